@@ -0,0 +1,352 @@
+import org.antlr.v4.runtime.ParserRuleContext;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Columnar C backend for record streams. Records are processed in blocks of
+ * up to 4096: every definition (a {@code READ}, a {@code DEF} or the value of
+ * a {@code WRITE}) becomes a column of doubles over the block, and every
+ * {@code DEF} becomes a loop over {@code restrict}, 64-byte aligned columns
+ * that gcc auto-vectorizes at {@code -O3}.
+ *
+ * <p>A block is read first, then the columns are computed in program order,
+ * then every record's output is written in program order, so the output is
+ * the same as the scalar {@code --batch} program. Variables are renamed on
+ * every definition, so a name that is read twice gets two columns. Only the
+ * columns a {@code WRITE} depends on are computed, and a column's storage is
+ * reused once its last reader has run, so a block stays in cache.
+ */
+public class ColumnarBackend extends CustomLangBaseVisitor<String> {
+
+    /** Memory budget for the columns of a block, about an L2 cache. */
+    private static final long COLUMN_BYTES = 1L << 20;
+
+    private final CompilerOptions options;
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+    private final Map<String, Integer> versions = new HashMap<>();
+    private final List<Integer> readColumns = new ArrayList<>();
+    private final List<Kernel> kernels = new ArrayList<>();
+    private final List<Write> writes = new ArrayList<>();
+    private Set<Integer> operands;
+    private int columns;
+
+    /** A loop computing one column from the columns it reads. */
+    private static class Kernel {
+        final int column;
+        final Set<Integer> operands;
+        final String body;
+
+        Kernel(int column, Set<Integer> operands, String body) {
+            this.column = column;
+            this.operands = operands;
+            this.body = body;
+        }
+    }
+
+    /** A WRITE: the name of its message, or null, and its column, or -1. */
+    private static class Write {
+        final String message;
+        final int column;
+
+        Write(String message, int column) {
+            this.message = message;
+            this.column = column;
+        }
+    }
+
+    public ColumnarBackend(CompilerOptions options) {
+        this.options = options;
+    }
+
+    @Override
+    public String visitProgram(CustomLangParser.ProgramContext ctx) {
+        visitChildren(ctx);
+        if (readColumns.isEmpty()) {
+            throw new IllegalStateException("Columnar mode needs a program that READs its records");
+        }
+
+        List<Kernel> live = liveKernels();
+        Map<Integer, Integer> slots = new HashMap<>();
+        int slotCount = Math.max(1, allocateSlots(live, slots));
+        long block = COLUMN_BYTES / ((long) slotCount * Double.BYTES);
+        block = Math.max(64, Math.min(4096, block / 64 * 64));
+
+        StringBuilder program = new StringBuilder(Compiler.INCLUDES);
+        if (options.fastIo) {
+            program.append(Compiler.runtime(Compiler.FAST_IO_RUNTIME)).append("\n");
+        }
+        program.append(Compiler.runtime(Compiler.BATCH_RUNTIME)).append("\n");
+        program.append("#define CL_BLOCK ").append(block).append("\n");
+        program.append("#define CL_COLUMNS ").append(slotCount).append("\n\n");
+        for (Map.Entry<String, Integer> string : strings.entrySet()) {
+            program.append("static const char cl_str_").append(string.getValue())
+                    .append("[] = ").append(string.getKey()).append(";\n");
+        }
+        program.append("static double *cl_col[CL_COLUMNS];\n\n");
+        for (Kernel kernel : live) {
+            appendKernel(program, kernel);
+        }
+
+        program.append("int main(int argc, char **argv) {\n");
+        program.append("cl_open_input(argc, argv);\n");
+        program.append("double cl_started = cl_now();\n");
+        program.append("unsigned long cl_records = 0;\n");
+        program.append("for (int c = 0; c < CL_COLUMNS; c++) {\n");
+        program.append("    cl_col[c] = aligned_alloc(64, CL_BLOCK * sizeof(double));\n");
+        program.append("    if (!cl_col[c]) {\n");
+        program.append("        fprintf(stderr, \"Error: Out of memory.\\n\");\n");
+        program.append("        exit(1);\n");
+        program.append("    }\n");
+        program.append("    memset(cl_col[c], 0, CL_BLOCK * sizeof(double));\n");
+        program.append("}\n");
+        program.append("int cl_failed = 0;\n");
+        program.append("while (!cl_failed) {\n");
+        program.append("size_t n = 0;\n");
+        program.append("while (n < CL_BLOCK && !cl_at_eof()) {\n");
+        for (int column : readColumns) {
+            program.append("    if (!cl_try_read_double(&cl_col[").append(slots.get(column)).append("][n])) {\n");
+            program.append("        cl_failed = 1;\n");
+            program.append("        break;\n");
+            program.append("    }\n");
+        }
+        program.append("    if (cl_failed) {\n");
+        program.append("        break;\n");
+        program.append("    }\n");
+        program.append("    n++;\n");
+        program.append("}\n");
+        program.append("if (n == 0) {\n");
+        program.append("    break;\n");
+        program.append("}\n");
+        for (Kernel kernel : live) {
+            program.append("cl_kernel_").append(kernel.column).append("(n, cl_col[")
+                    .append(slots.get(kernel.column)).append("]");
+            for (int operand : kernel.operands) {
+                program.append(", cl_col[").append(slots.get(operand)).append("]");
+            }
+            program.append(");\n");
+        }
+        program.append("for (size_t i = 0; i < n; i++) {\n");
+        for (Write write : writes) {
+            if (write.message != null) {
+                program.append("    fwrite(").append(write.message).append(", 1, sizeof ")
+                        .append(write.message).append(" - 1, stdout);\n");
+            }
+            if (write.column >= 0) {
+                String value = "cl_col[" + slots.get(write.column) + "][i]";
+                if (options.fastIo) {
+                    program.append("    cl_print_double(").append(value).append(");\n");
+                } else {
+                    program.append("    printf(\"%lf\\n\", ").append(value).append(");\n");
+                }
+            }
+        }
+        program.append("}\n");
+        program.append("cl_records += n;\n");
+        program.append("}\n");
+        program.append("if (cl_failed) {\n");
+        program.append("    fflush(stdout);\n");
+        program.append("    cl_input_error();\n");
+        program.append("}\n");
+        program.append("cl_report(cl_records, cl_started);\n");
+        return program.append(Compiler.EPILOGUE).toString();
+    }
+
+    /** The kernels a WRITE depends on, in program order. */
+    private List<Kernel> liveKernels() {
+        Set<Integer> live = new HashSet<>();
+        for (Write write : writes) {
+            live.add(write.column);
+        }
+        List<Kernel> result = new ArrayList<>();
+        for (int k = kernels.size() - 1; k >= 0; k--) {
+            Kernel kernel = kernels.get(k);
+            if (live.contains(kernel.column)) {
+                live.addAll(kernel.operands);
+                result.add(kernel);
+            }
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Maps every column to a storage slot and returns the number of slots. A
+     * read or computed column's slot is reused after its last reader, unless a
+     * WRITE prints it; declared but never assigned columns stay zero.
+     */
+    private int allocateSlots(List<Kernel> live, Map<Integer, Integer> slots) {
+        Map<Integer, Integer> lastUse = new HashMap<>();
+        Set<Integer> reusable = new HashSet<>(readColumns);
+        for (int k = 0; k < live.size(); k++) {
+            for (int operand : live.get(k).operands) {
+                lastUse.put(operand, k);
+            }
+            reusable.add(live.get(k).column);
+        }
+        for (Write write : writes) {
+            reusable.remove(write.column);
+        }
+
+        Deque<Integer> free = new ArrayDeque<>();
+        int count = 0;
+        for (int column : readColumns) {
+            slots.put(column, count++);
+        }
+        for (int k = 0; k < live.size(); k++) {
+            Kernel kernel = live.get(k);
+            for (int operand : kernel.operands) {
+                if (!slots.containsKey(operand)) {
+                    slots.put(operand, count++);
+                }
+            }
+            // The result takes its slot before the operands release theirs,
+            // so the restrict pointers of a kernel never alias.
+            Integer slot = free.poll();
+            slots.put(kernel.column, slot != null ? slot : count++);
+            for (int operand : kernel.operands) {
+                if (lastUse.get(operand) == k && reusable.contains(operand)) {
+                    free.add(slots.get(operand));
+                }
+            }
+        }
+        for (Write write : writes) {
+            if (write.column >= 0 && !slots.containsKey(write.column)) {
+                slots.put(write.column, count++);
+            }
+        }
+        return count;
+    }
+
+    private static void appendKernel(StringBuilder program, Kernel kernel) {
+        program.append("static void cl_kernel_").append(kernel.column).append("(size_t n, double *restrict out");
+        for (int operand : kernel.operands) {
+            program.append(", const double *restrict c").append(operand);
+        }
+        program.append(") {\n");
+        program.append("    out = __builtin_assume_aligned(out, 64);\n");
+        for (int operand : kernel.operands) {
+            program.append("    c").append(operand).append(" = __builtin_assume_aligned(c").append(operand)
+                    .append(", 64);\n");
+        }
+        program.append("    for (size_t i = 0; i < n; i++) {\n");
+        program.append("        out[i] = ").append(kernel.body).append(";\n");
+        program.append("    }\n");
+        program.append("}\n\n");
+    }
+
+    @Override
+    public String visitDeclaration(CustomLangParser.DeclarationContext ctx) {
+        if (ctx.NUMBER() != null) {
+            // Columns are already vectors over the records; an array would be a second dimension.
+            throw new IllegalStateException("line " + ctx.start.getLine() + ": columnar mode does not support arrays");
+        }
+        // An uninitialized variable reads as a zeroed column.
+        versions.put(ctx.ID().getText(), columns++);
+        return null;
+    }
+
+    @Override
+    public String visitAssignment(CustomLangParser.AssignmentContext ctx) {
+        versions.put(ctx.ID().getText(), define(ctx.expr()));
+        return null;
+    }
+
+    @Override
+    public String visitScanStmt(CustomLangParser.ScanStmtContext ctx) {
+        int column = columns++;
+        readColumns.add(column);
+        versions.put(ctx.ID().getText(), column);
+        return null;
+    }
+
+    @Override
+    public String visitPrintStmt(CustomLangParser.PrintStmtContext ctx) {
+        String message = ctx.STRING().getText();
+        String name = null;
+        if (message.length() > 2) {
+            name = "cl_str_" + strings.computeIfAbsent(message, m -> strings.size());
+        }
+        int column = -1;
+        if (ctx.expr() != null) {
+            CustomLangParser.ExprContext expr = ctx.expr();
+            while (expr.op == null && expr.NUMBER() == null && expr.ID() == null && expr.aggregate == null) {
+                expr = expr.expr(0);
+            }
+            column = expr.ID() != null ? column(expr) : define(ctx.expr());
+        }
+        writes.add(new Write(name, column));
+        return null;
+    }
+
+    @Override
+    public String visitWhileStmt(CustomLangParser.WhileStmtContext ctx) {
+        throw controlFlow(ctx);
+    }
+
+    @Override
+    public String visitRepeatStmt(CustomLangParser.RepeatStmtContext ctx) {
+        throw controlFlow(ctx);
+    }
+
+    @Override
+    public String visitIfStmt(CustomLangParser.IfStmtContext ctx) {
+        throw controlFlow(ctx);
+    }
+
+    /** Every record runs the same kernels, so the program has to be straight-line code. */
+    private static IllegalStateException controlFlow(ParserRuleContext ctx) {
+        return new IllegalStateException("line " + ctx.start.getLine() + ": columnar mode does not support "
+                + ctx.start.getText());
+    }
+
+    /** Records a kernel computing {@code expr} into a new column and returns the column. */
+    private int define(CustomLangParser.ExprContext expr) {
+        operands = new LinkedHashSet<>();
+        String body = visit(expr);
+        int column = columns++;
+        kernels.add(new Kernel(column, operands, body));
+        return column;
+    }
+
+    private int column(CustomLangParser.ExprContext ctx) {
+        Integer column = versions.get(ctx.ID().getText());
+        if (column == null) {
+            throw new IllegalStateException("line " + ctx.start.getLine() + ": variable '"
+                    + ctx.ID().getText() + "' is used before it is defined");
+        }
+        return column;
+    }
+
+    @Override
+    public String visitExpr(CustomLangParser.ExprContext ctx) {
+        if (ctx.op != null) {
+            Reassociation.Terms terms = options.reassociate ? Reassociation.chain(ctx) : null;
+            if (terms != null) {
+                return Reassociation.toC(terms, this::visit);
+            }
+            return visit(ctx.expr(0)) + " " + ctx.op.getText() + " " + visit(ctx.expr(1));
+        } else if (ctx.NUMBER() != null) {
+            return ctx.NUMBER().getText();
+        } else if (ctx.ID() != null) {
+            int column = column(ctx);
+            operands.add(column);
+            return "c" + column + "[i]";
+        } else if (ctx.aggregate != null) {
+            // Every record is a row of the same READs; there is no rest of the input to aggregate.
+            throw new IllegalStateException("line " + ctx.start.getLine() + ": columnar mode does not support "
+                    + ctx.aggregate.getText() + "(INPUT)");
+        } else {
+            return "(" + visit(ctx.expr(0)) + ")";
+        }
+    }
+}
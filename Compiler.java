@@ -1,85 +1,1274 @@
 import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.Interval;
 import org.antlr.v4.runtime.tree.*;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+/**
+ * Compiles a CustomLang program to C, for {@code java Compiler file}, which
+ * writes {@code output.c}.
+ *
+ * <p>WRITE messages are kept once each in a table of {@code static const char[]}
+ * and written with {@code fwrite}, so a {@code %} in them is printed as is.
+ * Blocks of WHILE, REPEAT and IF are not scopes: a variable first defined in
+ * one is declared at the top of {@code main}, initialized to 0. REPEAT
+ * evaluates its count once and rounds it down, and subexpressions of a loop
+ * body that use no variable the loop assigns are computed once before it.
+ *
+ * <p>An array {@code DEF v[N];} is a static, 64-byte aligned array, and every
+ * statement that uses one is a single loop over its elements that gcc
+ * vectorizes: a number applies to every element, READ reads one number per
+ * element and WRITE prints the message once and one element per line.
+ *
+ * <p>Programs of more than {@code chunkAbove} statements are split into
+ * functions of {@code chunkSize}, because gcc's optimizer is super-linear in
+ * the size of a function (see {@link #compileChunks}).
+ */
 public class Compiler extends CustomLangBaseVisitor<String> {
 
+    static final String INCLUDES = "#include <stdio.h>\n#include <stdlib.h>\n\n";
+    static final String EPILOGUE = "return 0;\n}";
+    static final String FAST_IO_RUNTIME = "customlang_fast_io.h";
+    static final String BATCH_RUNTIME = "customlang_batch.h";
+    static final String PROFILE_RUNTIME = "customlang_profile.h";
+    static final String AGGREGATE_RUNTIME = "customlang_aggregate.h";
+
+    private static final Map<String, String> RUNTIMES = new HashMap<>();
+
+    private final CompilerOptions options;
+    private final Diagnostics diagnostics;
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+    private final String out;
+    /** {@code --fast-io}, or a program with aggregates, which read the input through its buffer. */
+    private boolean fastIo;
+    /** The top-level statement before which the aggregates of INPUT are computed, or null. */
+    private CustomLangParser.StatementContext aggregatePass;
     private StringBuilder cCode = new StringBuilder();
+    private Set<String> shared = Collections.emptySet();
+    private IntegerInference integers;
+    /** With {@code --bind}, the constants of the program, otherwise null. */
+    private PartialEvaluation evaluation;
+    private SymbolTable symbols;
+    /** The array variables in the order {@link #program} declares them, or null for the order of their slots. */
+    private List<String> arrayOrder;
+    private final BitSet declared = new BitSet();
+    /** Declarations of variables first defined in a loop or an IF, emitted at the top of the function. */
+    private final StringBuilder locals = new StringBuilder();
+    private ParseTreeProperty<String> invariants = new ParseTreeProperty<>();
+    private int depth;
+    /** Of the blocks around the statement, those of IFs whose branch {@code --bind} decides. */
+    private int takenDepth;
+    private int loops;
+    /** The loop index while an elementwise statement is emitted, otherwise null. */
+    private String element;
+    private int reads;
+    /** With {@code --profile}, the source line, run and text of every profiled statement, as C initializers. */
+    private List<String> profileSites;
+    /** With {@code --profile}, the statements that always run together; the program body is run 0. */
+    private int profileRuns;
+    private int profileRun;
+    /** In a {@link ModuleBuilder} build, the name of this module, or null for the main program. */
+    private String module;
+    /** In a {@link ModuleBuilder} build, the modules this one IMPORTs, in order, otherwise null. */
+    private List<String> imports;
+    /** The variables that are globals of a modular build, mapped to the module that defines them. */
+    private Map<String, String> globals = Collections.emptyMap();
+
+    public Compiler() {
+        this(new CompilerOptions());
+    }
+
+    public Compiler(CompilerOptions options) {
+        this(options, new Diagnostics("<input>", options.maxErrors, options.strict));
+    }
+
+    public Compiler(CompilerOptions options, Diagnostics diagnostics) {
+        this.options = options;
+        this.diagnostics = diagnostics;
+        this.out = options.threads > 1 ? "cl_out" : "stdout";
+        this.fastIo = options.fastIo;
+    }
+
+    /**
+     * Compiles the program as module {@code name} of a modular build, or as
+     * its main program if {@code name} is null. {@code imported} maps the
+     * variables the modules in {@code imports} export to their module.
+     */
+    Compiler module(String name, List<String> imports, Map<String, String> imported) {
+        this.module = name;
+        this.imports = imports;
+        this.globals = new LinkedHashMap<>(imported);
+        return this;
+    }
+
+    /** Forgets the last program but keeps the buffers, so a {@link CompilerSession} can reuse this compiler. */
+    void reset() {
+        strings.clear();
+        cCode.setLength(0);
+        shared = Collections.emptySet();
+        integers = null;
+        evaluation = null;
+        symbols = null;
+        arrayOrder = null;
+        declared.clear();
+        locals.setLength(0);
+        invariants = new ParseTreeProperty<>();
+        depth = 0;
+        takenDepth = 0;
+        loops = 0;
+        element = null;
+        fastIo = options.fastIo;
+        aggregatePass = null;
+        reads = 0;
+        profileSites = null;
+        profileRuns = 0;
+        profileRun = 0;
+    }
+
+    /** Everything before the first statement, including the opening of main(). */
+    public String prelude() {
+        return declarations() + "int main() {\n";
+    }
+
+    /** Includes, the runtimes and the string literals seen so far. */
+    private String declarations() {
+        StringBuilder prelude = new StringBuilder(INCLUDES);
+        if (options.inferInt) {
+            prelude.insert(prelude.length() - 1, "#include <stdint.h>\n");
+        }
+        if (fastIo) {
+            prelude.append(runtime(FAST_IO_RUNTIME)).append("\n");
+        }
+        if (aggregatePass != null) {
+            prelude.append(runtime(AGGREGATE_RUNTIME)).append("\n");
+        }
+        if (options.batch) {
+            prelude.append(runtime(BATCH_RUNTIME)).append("\n");
+        }
+        if (imports != null) {
+            for (String imported : imports) {
+                prelude.append("#include \"").append(imported).append(".h\"\n");
+            }
+            if (module != null) {
+                prelude.append("#include \"").append(module).append(".h\"\n");
+            }
+            prelude.append("\n");
+        }
+        if (profiling()) {
+            prelude.append("#define CL_PROFILE_SITES ").append(profileSites.size()).append("\n");
+            prelude.append("#define CL_PROFILE_RUNS ").append(profileRuns).append("\n");
+            prelude.append("#define CL_PROFILE_SOURCE \"").append(cString(diagnostics.fileName())).append("\"\n");
+            prelude.append(runtime(PROFILE_RUNTIME)).append("\n");
+            prelude.append("static const struct cl_profile_line cl_profile_lines[CL_PROFILE_SITES] = {\n");
+            for (String site : profileSites) {
+                prelude.append("    ").append(site).append(",\n");
+            }
+            prelude.append("};\n\n");
+        }
+        for (Map.Entry<String, Integer> string : strings.entrySet()) {
+            prelude.append("static const char cl_str_").append(string.getValue())
+                    .append("[] = ").append(string.getKey()).append(";\n");
+        }
+        if (!strings.isEmpty()) {
+            prelude.append("\n");
+        }
+        boolean exported = false;
+        for (Map.Entry<String, String> global : globals.entrySet()) {
+            if (global.getValue().equals(module)) {
+                prelude.append("double ").append(ModuleBuilder.symbol(module, global.getKey())).append(";\n");
+                exported = true;
+            }
+        }
+        if (exported) {
+            prelude.append("\n");
+        }
+        if (options.slots && symbols != null && symbols.size() > 0) {
+            prelude.append(options.threads > 1 ? "static __thread" : "static")
+                    .append(" double cl_v[").append(symbols.size()).append("];\n\n");
+        }
+        // Arrays are static, so they are not limited by the stack, and aligned for vector loads.
+        boolean arrays = false;
+        if (arrayOrder != null) {
+            for (String name : arrayOrder) {
+                declareArray(prelude, name, symbols.length(name));
+                arrays = true;
+            }
+        }
+        for (int slot = 0; arrayOrder == null && symbols != null && slot < symbols.size(); slot++) {
+            if (symbols.length(slot) > 0) {
+                declareArray(prelude, symbols.name(slot), symbols.length(slot));
+                arrays = true;
+            }
+        }
+        if (arrays) {
+            prelude.append("\n");
+        }
+        return prelude.toString();
+    }
+
+    private void declareArray(StringBuilder prelude, String name, int length) {
+        prelude.append(options.threads > 1 ? "static __thread" : "static").append(" double ")
+                .append(arrayRef(name)).append("[").append(length).append("] __attribute__((aligned(64)));\n");
+    }
+
+    /** Reads a C runtime source that is emitted into the generated program. */
+    static synchronized String runtime(String name) {
+        String cached = RUNTIMES.get(name);
+        if (cached != null) {
+            return cached;
+        }
+        try (InputStream in = Compiler.class.getResourceAsStream("/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Runtime " + name + " is missing from the class path");
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            String runtime = out.toString("UTF-8");
+            RUNTIMES.put(name, runtime);
+            return runtime;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
     
+    /**
+     * How generated code refers to a variable: a C variable, a field of the
+     * chunk state, with {@code --slots} its slot in {@code cl_v}, or the
+     * global of a module that exports it.
+     */
+    private String varRef(String id) {
+        String global = globals.get(id);
+        if (global != null) {
+            return ModuleBuilder.symbol(global, id);
+        }
+        if (options.slots && symbols != null) {
+            return "cl_v[" + symbols.slot(id) + "]";
+        }
+        return shared.contains(id) ? "S->" + id : id;
+    }
+
+    /** The length of an array variable, or 0 for a number. */
+    private int length(String id) {
+        return symbols != null ? symbols.length(id) : 0;
+    }
+
+    /** The length of the arrays an expression combines, or 0 if it is a number. */
+    private int length(CustomLangParser.ExprContext ctx) {
+        return symbols != null ? symbols.length(ctx) : 0;
+    }
+
+    /** The C array of an array variable; prefixed, since arrays are file-scope names. */
+    private static String arrayRef(String id) {
+        return "cl_a_" + id;
+    }
+
+    /**
+     * Opens a loop over the elements of arrays of {@code length}; expressions
+     * emitted until {@link #endElementwise()} refer to element {@code cl_e}.
+     * The arrays are distinct static objects, so gcc knows they do not alias
+     * and can vectorize the loop.
+     */
+    private void elementwise(int length) {
+        element = "cl_e";
+        cCode.append("for (int cl_e = 0; cl_e < ").append(length).append("; cl_e++) {\n");
+    }
+
+    private void endElementwise() {
+        element = null;
+        cCode.append("}\n");
+    }
+
+    /** Whether this definition is the first of its variable, which declares it in C. */
+    private boolean declares(Token id) {
+        return symbols == null || declares(symbols.slot(id));
+    }
+
+    private boolean declares(String id) {
+        return symbols == null || declares(symbols.slot(id));
+    }
+
+    private boolean declares(int slot) {
+        boolean first = !declared.get(slot);
+        declared.set(slot);
+        return first;
+    }
+
+    /** Emits {@code id = expr}, declaring the variable if this is its first definition. */
+    private void assign(String id, String expr) {
+        String target = varRef(id);
+        if (!target.equals(id) || !declares(id)) {
+            cCode.append(target).append(" = ").append(expr).append(";\n");
+        } else if (inBlock()) {
+            locals.append(type(id)).append(" ").append(id).append(" = 0;\n");
+            cCode.append(id).append(" = ").append(expr).append(";\n");
+        } else {
+            cCode.append(type(id)).append(" ").append(id).append(" = ").append(expr).append(";\n");
+        }
+    }
+
+    /** With {@code --bind}, the value of an expression that does not depend on the input, or null. */
+    private PartialEvaluation.Constant constant(CustomLangParser.ExprContext ctx) {
+        return evaluation != null ? evaluation.constant(ctx) : null;
+    }
+
+    /**
+     * With {@code --bind}, declares a variable whose constant definitions were
+     * left out, at the top of the function, the first time the residual
+     * program needs it.
+     */
+    private void declareLate(String id) {
+        if (evaluation != null && varRef(id).equals(id) && declares(id)) {
+            locals.append(type(id)).append(" ").append(id).append(";\n");
+        }
+    }
+
+    /**
+     * Assigns the variables a loop or an IF defines the constant values they
+     * have before it, since their constant definitions were not emitted.
+     */
+    private void materialize(ParserRuleContext statement) {
+        if (evaluation != null) {
+            for (Map.Entry<String, Double> value : evaluation.materialized(statement).entrySet()) {
+                assign(value.getKey(), new PartialEvaluation.Constant(value.getValue(), false).toC());
+            }
+        }
+    }
+
     @Override
     public String visitDeclaration(CustomLangParser.DeclarationContext ctx) {
         String id = ctx.ID().getText();
-        cCode.append("double ").append(id).append(";\n");
+        if (ctx.NUMBER() != null) {
+            if (symbols == null) {
+                throw new IllegalStateException("line " + ctx.start.getLine()
+                        + ": arrays need the whole program to be compiled at once");
+            }
+            if (options.batch && depth == 0) {
+                // Every record starts with a zeroed array, like the first.
+                elementwise(length(id));
+                cCode.append(arrayRef(id)).append("[cl_e] = 0;\n");
+                endElementwise();
+            }
+            return null;
+        }
+        if (evaluation != null && evaluation.bound(id) && runsOnce()) {
+            // Declared where it is first used, if the residual program still uses it.
+            return null;
+        }
+        if (varRef(id).equals(id) && declares(ctx.ID().getSymbol())) {
+            if (inBlock()) {
+                locals.append("double ").append(id).append(" = 0;\n");
+            } else {
+                cCode.append("double ").append(id).append(";\n");
+            }
+        }
         return null;
     }
     
     @Override
     public String visitProgram(CustomLangParser.ProgramContext ctx) {
-        cCode.append("#include <stdio.h>\n#include <stdlib.h>\n\nint main() {\n");
-        visitChildren(ctx);
-        cCode.append("return 0;\n}");
+        if (imports != null) {
+            symbols = checkSymbols(ctx, globals, diagnostics);
+            if (module != null) {
+                for (String id : ModuleBuilder.exports(ctx)) {
+                    globals.put(id, module);
+                }
+            }
+        } else {
+            symbols = checkSymbols(ctx, diagnostics);
+        }
+        if (options.inferInt) {
+            integers = IntegerInference.analyze(ctx);
+        }
+        if (!options.bindings.isEmpty()) {
+            evaluation = PartialEvaluation.analyze(ctx, options.bindings, symbols, options.reassociate);
+        }
+        if (options.profile) {
+            profileSites = new ArrayList<>();
+            profileRuns = 1;
+        }
+        List<CustomLangParser.StatementContext> statements = ctx.statement();
+        for (CustomLangParser.StatementContext statement : statements) {
+            Token aggregate = aggregate(statement);
+            if (aggregate != null) {
+                if (imports != null) {
+                    throw new IllegalStateException("line " + aggregate.getLine() + ": " + aggregate.getText()
+                            + "(INPUT) reads the rest of the input and cannot be used in a program with modules");
+                }
+                if (options.batch) {
+                    throw new IllegalStateException("line " + aggregate.getLine() + ": " + aggregate.getText()
+                            + "(INPUT) reads the rest of the input and cannot be combined with --batch");
+                }
+                aggregatePass = statement;
+                // The pass parses numbers with the fast I/O runtime, so READs have to share its buffer.
+                fastIo = true;
+                break;
+            }
+        }
+        String chunks = "";
+        if (options.chunkSize > 0 && statements.size() > options.chunkAbove) {
+            chunks = compileChunks(statements);
+        } else {
+            visitChildren(ctx);
+            cCode.insert(0, locals);
+        }
+        if (module != null) {
+            // Runs once, however many modules import this one.
+            return declarations() + chunks + "void " + ModuleBuilder.initializer(module) + "(void) {\n"
+                    + "static int cl_done;\nif (cl_done) {\nreturn;\n}\ncl_done = 1;\n"
+                    + initializers() + cCode + "}\n";
+        }
+        if (!options.batch) {
+            return declarations() + chunks + "int main() {\n" + initializers() + (profiling() ? "cl_profile_start(0);\ncl_profile_enter(0);\n" : "")
+                    + cCode + EPILOGUE;
+        }
+        if (reads == 0) {
+            throw new IllegalStateException("Batch mode needs a program that READs its records");
+        }
+
+        StringBuilder program = new StringBuilder(declarations());
+        program.append(chunks);
+        if (options.threads > 1) {
+            program.append("static void cl_record(const double *cl_in_values, FILE *cl_out) {\n");
+            program.append(cCode);
+            program.append("}\n\n");
+        }
+        program.append("int main(int argc, char **argv) {\n");
+        program.append("cl_open_input(argc, argv);\n");
+        program.append("double cl_started = cl_now();\n");
+        if (profiling()) {
+            program.append("cl_profile_start(1);\n");
+        }
+        if (options.threads > 1) {
+            program.append("unsigned long cl_records = cl_run_threaded(cl_record, ").append(reads)
+                    .append(", ").append(options.threads).append(");\n");
+        } else {
+            program.append("unsigned long cl_records = 0;\n");
+            program.append("while (!cl_at_eof()) {\n");
+            if (profiling()) {
+                program.append("cl_profile_record();\n");
+                program.append("cl_profile_enter(0);\n");
+            }
+            program.append(cCode);
+            program.append("cl_records++;\n");
+            program.append("}\n");
+        }
+        program.append("cl_report(cl_records, cl_started);\n");
+        return program.append(EPILOGUE).toString();
+    }
+
+    /** Calls to the initializers of the imported modules, which run their statements first. */
+    private String initializers() {
+        StringBuilder calls = new StringBuilder();
+        for (String imported : imports != null ? imports : Collections.<String>emptyList()) {
+            calls.append(ModuleBuilder.initializer(imported)).append("();\n");
+        }
+        return calls.toString();
+    }
+
+    /**
+     * Splits the statements into functions of {@code chunkSize} statements,
+     * because gcc's optimizer is super-linear in the size of a function.
+     * Variables used by a single chunk stay local to it; the others live in a
+     * {@code struct cl_state} that every chunk gets as {@code S}. Returns the
+     * state and the chunk functions and leaves the calls in {@link #cCode}.
+     */
+    private String compileChunks(List<CustomLangParser.StatementContext> statements) {
+        Map<String, Integer> firstChunk = new HashMap<>();
+        Set<String> crossing = new LinkedHashSet<>();
+        for (int i = 0; i < statements.size(); i++) {
+            int chunk = i / options.chunkSize;
+            for (String id : identifiers(statements.get(i), new ArrayList<>())) {
+                if (length(id) > 0 || globals.containsKey(id)) {
+                    // Arrays and module globals are visible to every chunk.
+                    continue;
+                }
+                if (firstChunk.computeIfAbsent(id, k -> chunk) != chunk) {
+                    crossing.add(id);
+                }
+            }
+        }
+        // With --slots every variable is already global.
+        shared = options.slots ? Collections.emptySet() : crossing;
+
+        boolean threaded = options.threads > 1;
+        StringBuilder parameters = new StringBuilder();
+        StringBuilder arguments = new StringBuilder();
+        StringBuilder functions = new StringBuilder();
+        if (!shared.isEmpty()) {
+            functions.append("struct cl_state {\n");
+            for (String id : shared) {
+                functions.append("    ").append(type(id)).append(" ").append(id).append(";\n");
+            }
+            functions.append("};\n\n");
+            functions.append(threaded ? "static __thread" : "static").append(" struct cl_state cl_state;\n\n");
+            parameters.append("struct cl_state *S");
+            arguments.append("&cl_state");
+        }
+        if (threaded) {
+            parameters.append(parameters.length() > 0 ? ", " : "").append("const double *cl_in_values, FILE *cl_out");
+            arguments.append(arguments.length() > 0 ? ", " : "").append("cl_in_values, cl_out");
+        }
+        if (parameters.length() == 0) {
+            parameters.append("void");
+        }
+
+        StringBuilder calls = new StringBuilder();
+        for (int start = 0; start < statements.size(); start += options.chunkSize) {
+            int chunk = start / options.chunkSize;
+            cCode = new StringBuilder();
+            for (CustomLangParser.StatementContext statement
+                    : statements.subList(start, Math.min(statements.size(), start + options.chunkSize))) {
+                visit(statement);
+            }
+            cCode.insert(0, locals);
+            locals.setLength(0);
+            // Kept out of line, or gcc would inline every chunk back into main().
+            functions.append("__attribute__((noinline)) static void cl_chunk_").append(chunk)
+                    .append("(").append(parameters).append(") {\n").append(cCode).append("}\n\n");
+            calls.append("cl_chunk_").append(chunk).append("(").append(arguments).append(");\n");
+        }
+        cCode = calls;
+        return functions.toString();
+    }
+
+    /** The first aggregate of INPUT in {@code tree}, or null. */
+    static Token aggregate(ParseTree tree) {
+        if (tree instanceof CustomLangParser.ExprContext && ((CustomLangParser.ExprContext) tree).aggregate != null) {
+            return ((CustomLangParser.ExprContext) tree).aggregate;
+        }
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            Token aggregate = aggregate(tree.getChild(i));
+            if (aggregate != null) {
+                return aggregate;
+            }
+        }
+        return null;
+    }
+
+    private static List<String> identifiers(ParseTree tree, List<String> result) {
+        if (tree instanceof TerminalNode) {
+            if (((TerminalNode) tree).getSymbol().getType() == CustomLangParser.ID) {
+                result.add(tree.getText());
+            }
+        } else {
+            for (int i = 0; i < tree.getChildCount(); i++) {
+                identifiers(tree.getChild(i), result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Emits the C code of a single statement, independently of the rest of the
+     * program. Statements are self-contained, so the fragments can be cached and
+     * spliced between {@link #prelude()} and {@link #EPILOGUE}.
+     */
+    public String compileStatement(CustomLangParser.StatementContext ctx) {
+        cCode.setLength(0);
+        visit(ctx);
         return cCode.toString();
     }
 
+    /**
+     * Sets the program whose statements {@link #compileStatement(CustomLangParser.StatementContext,
+     * Collection, int)} compiles one at a time: its symbols, the statement before
+     * which the aggregates of INPUT are computed, or null, and its arrays and
+     * string literals in the order a full compile declares them, that of their
+     * first appearance.
+     */
+    void program(SymbolTable symbols, CustomLangParser.StatementContext aggregatePass, List<String> arrays,
+                 List<String> strings) {
+        this.symbols = symbols;
+        this.aggregatePass = aggregatePass;
+        this.arrayOrder = arrays;
+        this.strings.clear();
+        for (String string : strings) {
+            this.strings.put(string, this.strings.size());
+        }
+        fastIo = options.fastIo || aggregatePass != null;
+    }
+
+    /**
+     * Emits the C code a full compile gives a statement of the program set by
+     * {@link #program}: {@code redefined} are the variables it defines that
+     * the statements before it already defined, and {@code loop} is the number
+     * its first loop gets. The variables it first defines in a block are
+     * declared in {@link #locals()}.
+     */
+    String compileStatement(CustomLangParser.StatementContext ctx, Collection<String> redefined, int loop) {
+        declared.clear();
+        for (String id : redefined) {
+            declared.set(symbols.slot(id));
+        }
+        locals.setLength(0);
+        invariants = new ParseTreeProperty<>();
+        depth = 0;
+        takenDepth = 0;
+        element = null;
+        loops = loop;
+        return compileStatement(ctx);
+    }
+
+    /** The declarations the last statement compiled left for the top of main(). */
+    String locals() {
+        return locals.toString();
+    }
+
+    /** The number the next loop gets. */
+    int loops() {
+        return loops;
+    }
+
+    /**
+     * With {@code --profile}, a statement that runs code ends by charging the
+     * time since the previous one to its own counter.
+     */
+    @Override
+    public String visitStatement(CustomLangParser.StatementContext ctx) {
+        if (ctx == aggregatePass) {
+            cCode.append("cl_aggregate_input();\n");
+        }
+        visitChildren(ctx);
+        if (profileSites != null && ctx.declaration() == null && ctx.exportStmt() == null) {
+            cCode.append("cl_profile_tick(").append(profileSites.size()).append(");\n");
+            profileSites.add("{" + ctx.start.getLine() + ", " + profileRun + ", \"" + cString(sourceText(ctx)) + "\"}");
+        }
+        return null;
+    }
+
+    private boolean profiling() {
+        return profileSites != null && !profileSites.isEmpty();
+    }
+
+    /** The source of a statement on one line, shortened for the profile report. */
+    private static String sourceText(ParserRuleContext ctx) {
+        String text = ctx.start.getInputStream()
+                .getText(Interval.of(ctx.start.getStartIndex(), ctx.stop.getStopIndex()))
+                .replaceAll("\\s+", " ");
+        return text.length() > 60 ? text.substring(0, 57) + "..." : text;
+    }
+
+    /** Escapes text for a C string literal; other control characters become spaces. */
+    private static String cString(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' || c == '"') {
+                escaped.append('\\').append(c);
+            } else if (c == '?') {
+                // Avoids trigraphs like ??= in the literal.
+                escaped.append("\\?");
+            } else {
+                escaped.append(c < 0x20 || c == 0x7f ? ' ' : c);
+            }
+        }
+        return escaped.toString();
+    }
+
     @Override
     public String visitAssignment(CustomLangParser.AssignmentContext ctx) {
         String id = ctx.ID().getText();
-        String expr = visit(ctx.expr());
-        cCode.append("double ").append(id).append(" = ").append(expr).append(";\n");
+        int length = length(id);
+        if (length > 0) {
+            // A number assigned to an array is assigned to each element.
+            elementwise(length);
+            cCode.append(arrayRef(id)).append("[cl_e] = ").append(doubleExpr(ctx.expr())).append(";\n");
+            endElementwise();
+            return null;
+        }
+        if (runsOnce() && constant(ctx.expr()) != null) {
+            // Every later use is replaced by the value, until a loop or an IF materializes it.
+            return null;
+        }
+        assign(id, type(id).equals("double") ? doubleExpr(ctx.expr()) : visit(ctx.expr()));
         return null;
     }
 
+    /**
+     * Constant messages are written from the string table with their length
+     * known at compile time, so they are never scanned for format specifiers
+     * and a {@code %} in them is printed as is.
+     */
     @Override
     public String visitPrintStmt(CustomLangParser.PrintStmtContext ctx) {
         String message = ctx.STRING().getText();
+        PartialEvaluation.Constant value = ctx.expr() != null ? constant(ctx.expr()) : null;
+        if (value != null) {
+            // Printed at compile time: the number is a literal after the message, in case it ends in an escape.
+            String number = "\"" + PartialEvaluation.format(value.value) + "\\n\"";
+            message = message.length() > 2 ? message + " " + number : number;
+            String name = "cl_str_" + strings.computeIfAbsent(message, m -> strings.size());
+            cCode.append("fwrite(").append(name).append(", 1, sizeof ").append(name).append(" - 1, ")
+                    .append(out).append(");\n");
+            return null;
+        }
+        if (message.length() > 2) {
+            String name = "cl_str_" + strings.computeIfAbsent(message, m -> strings.size());
+            cCode.append("fwrite(").append(name).append(", 1, sizeof ").append(name).append(" - 1, ")
+                    .append(out).append(");\n");
+        }
+        int length = ctx.expr() != null ? length(ctx.expr()) : 0;
+        if (length > 0) {
+            // One line per element, after the message.
+            elementwise(length);
+        }
         if (ctx.expr() != null) {
-            String format = "\"%lf\\n\"";
-            String expr = visit(ctx.expr());
-            cCode.append("printf(").append(message).append(format).append(", ").append(expr).append(");\n");
+            String expr = doubleExpr(ctx.expr());
+            if (fastIo) {
+                if (out.equals("stdout")) {
+                    cCode.append("cl_print_double(").append(expr).append(");\n");
+                } else {
+                    cCode.append("cl_fprint_double(").append(out).append(", ").append(expr).append(");\n");
+                }
+            } else if (out.equals("stdout")) {
+                cCode.append("printf(\"%lf\\n\", ").append(expr).append(");\n");
+            } else {
+                cCode.append("fprintf(").append(out).append(", \"%lf\\n\", ").append(expr).append(");\n");
+            }
+        }
+        if (length > 0) {
+            endElementwise();
+        }
+        return null;
+    }
+
+    /**
+     * Whether a definition is in a loop or an IF. Blocks are not scopes in
+     * CustomLang, so the variables first defined there are declared at the
+     * top of the function instead. Without symbols, for single statements,
+     * there is no later use to keep them visible for.
+     */
+    private boolean inBlock() {
+        return depth > 0 && symbols != null;
+    }
+
+    /**
+     * With {@code --bind}, whether the statement runs once, in order, like a
+     * top-level one: it is in no loop and only in IFs whose branch is known.
+     * The constants it defines are left out as at the top level, since every
+     * later use is replaced by their values.
+     */
+    private boolean runsOnce() {
+        return depth == takenDepth;
+    }
+
+    @Override
+    public String visitBlock(CustomLangParser.BlockContext ctx) {
+        cCode.append("{\n");
+        int run = profileRun;
+        if (profileSites != null) {
+            profileRun = profileRuns++;
+            cCode.append("cl_profile_enter(").append(profileRun).append(");\n");
+        }
+        depth++;
+        for (CustomLangParser.StatementContext statement : ctx.statement()) {
+            visit(statement);
+        }
+        depth--;
+        profileRun = run;
+        cCode.append("}");
+        return null;
+    }
+
+    @Override
+    public String visitWhileStmt(CustomLangParser.WhileStmtContext ctx) {
+        materialize(ctx);
+        if (Boolean.FALSE.equals(evaluation != null ? evaluation.taken(ctx.condition()) : null)) {
+            return null;
+        }
+        hoistInvariants(ctx);
+        cCode.append("while (").append(visit(ctx.condition())).append(") ");
+        visit(ctx.block());
+        cCode.append("\n");
+        return null;
+    }
+
+    /**
+     * The count is evaluated once and rounded down; a count that is not a
+     * number or less than 1 runs the block zero times.
+     */
+    @Override
+    public String visitRepeatStmt(CustomLangParser.RepeatStmtContext ctx) {
+        int loop = loops++;
+        String value = "cl_r" + loop;
+        String count = "cl_n" + loop;
+        String counter = "cl_i" + loop;
+        materialize(ctx);
+        cCode.append("double ").append(value).append(" = ").append(doubleExpr(ctx.expr())).append(";\n");
+        cCode.append("long long ").append(count).append(" = !(").append(value).append(" >= 1) ? 0 : ")
+                .append(value).append(" >= 9e18 ? 9000000000000000000LL : (long long) ").append(value).append(";\n");
+        hoistInvariants(ctx);
+        cCode.append("for (long long ").append(counter).append(" = 0; ").append(counter).append(" < ").append(count)
+                .append("; ").append(counter).append("++) ");
+        visit(ctx.block());
+        cCode.append("\n");
+        return null;
+    }
+
+    @Override
+    public String visitIfStmt(CustomLangParser.IfStmtContext ctx) {
+        Boolean taken = evaluation != null ? evaluation.taken(ctx.condition()) : null;
+        if (taken != null) {
+            // Only the branch that runs is emitted.
+            CustomLangParser.BlockContext block = taken ? ctx.block(0) : ctx.block().size() > 1 ? ctx.block(1) : null;
+            if (block != null) {
+                takenDepth++;
+                visit(block);
+                takenDepth--;
+                cCode.append("\n");
+            } else if (!taken && ctx.ifStmt() != null) {
+                visit(ctx.ifStmt());
+            }
+            return null;
+        }
+        materialize(ctx);
+        cCode.append("if (").append(visit(ctx.condition())).append(") ");
+        visit(ctx.block(0));
+        if (ctx.block().size() > 1) {
+            cCode.append(" else ");
+            visit(ctx.block(1));
+            cCode.append("\n");
+        } else if (ctx.ifStmt() != null) {
+            cCode.append(" else ");
+            visit(ctx.ifStmt());
         } else {
-            cCode.append("printf(").append(message).append(");\n");
+            cCode.append("\n");
         }
         return null;
     }
 
+    @Override
+    public String visitCondition(CustomLangParser.ConditionContext ctx) {
+        Boolean taken = evaluation != null ? evaluation.taken(ctx) : null;
+        if (taken != null) {
+            return taken ? "1" : "0";
+        }
+        return doubleExpr(ctx.expr(0)) + " " + ctx.op.getText() + " " + doubleExpr(ctx.expr(1));
+    }
+
+    /**
+     * Loop-invariant code motion: every largest subexpression of a loop's
+     * condition and body that reads no variable the loop defines or READs is
+     * computed once, before the loop, into a {@code cl_inv_N} temporary.
+     * Expressions have no side effects and do not trap, so computing one for
+     * a loop that runs zero times is harmless. Literal-only expressions are
+     * left to gcc, which folds them, and elementwise ones are not numbers.
+     * Neither are those {@code --bind} folds to a value, nor, with
+     * {@code --reassociate}, the inner nodes of a chain, which is emitted
+     * from its terms; the invariant terms are hoisted instead.
+     */
+    private void hoistInvariants(ParserRuleContext loop) {
+        Set<String> defined = new HashSet<>();
+        definitions(loop, defined);
+        List<CustomLangParser.ExprContext> found = new ArrayList<>();
+        if (loop instanceof CustomLangParser.WhileStmtContext) {
+            findInvariants(((CustomLangParser.WhileStmtContext) loop).condition(), defined, found);
+            findInvariants(((CustomLangParser.WhileStmtContext) loop).block(), defined, found);
+        } else {
+            findInvariants(((CustomLangParser.RepeatStmtContext) loop).block(), defined, found);
+        }
+        for (CustomLangParser.ExprContext expr : found) {
+            String name = "cl_inv_" + loops++;
+            cCode.append(integral(expr) ? "int64_t " : "double ").append(name).append(" = ").append(visit(expr))
+                    .append(";\n");
+            invariants.put(expr, name);
+        }
+    }
+
+    static void definitions(ParseTree tree, Set<String> result) {
+        if (tree instanceof CustomLangParser.AssignmentContext) {
+            result.add(((CustomLangParser.AssignmentContext) tree).ID().getText());
+        } else if (tree instanceof CustomLangParser.DeclarationContext) {
+            result.add(((CustomLangParser.DeclarationContext) tree).ID().getText());
+        } else if (tree instanceof CustomLangParser.ScanStmtContext) {
+            result.add(((CustomLangParser.ScanStmtContext) tree).ID().getText());
+        }
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            definitions(tree.getChild(i), result);
+        }
+    }
+
+    private void findInvariants(ParseTree tree, Set<String> defined, List<CustomLangParser.ExprContext> found) {
+        if (tree instanceof CustomLangParser.ExprContext) {
+            CustomLangParser.ExprContext expr = (CustomLangParser.ExprContext) tree;
+            if (invariants.get(expr) != null || constant(expr) != null) {
+                // Already hoisted, or emitted as its value.
+                return;
+            }
+            if (expr.op != null && !(options.reassociate && Reassociation.inner(expr))) {
+                List<String> ids = identifiers(expr, new ArrayList<>());
+                if (!ids.isEmpty() && Collections.disjoint(ids, defined) && length(expr) == 0) {
+                    found.add(expr);
+                    return;
+                }
+            }
+        }
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            findInvariants(tree.getChild(i), defined, found);
+        }
+    }
+
     @Override
     public String visitScanStmt(CustomLangParser.ScanStmtContext ctx) {
-        String id = ctx.ID().getText();
-        cCode.append("if (scanf(\"%lf\", &").append(id).append(") != 1) {\n");
-        cCode.append("    fprintf(stderr, \"Error: Invalid input. Expected a decimal number.\\n\");\n");
-        cCode.append("    exit(1);\n");
-        cCode.append("}\n");
+        String id = varRef(ctx.ID().getText());
+        if (options.threads > 1 && depth > 0) {
+            throw new IllegalStateException("line " + ctx.start.getLine()
+                    + ": --threads needs the same number of READs for every record, so READ cannot be in a loop or an IF");
+        }
+        if (evaluation != null && evaluation.bound(ctx.ID().getText())) {
+            if (!runsOnce()) {
+                assign(ctx.ID().getText(), new PartialEvaluation.Constant(options.bindings.get(ctx.ID().getText()), false).toC());
+            }
+            return null;
+        }
+        // An array is READ one number per element.
+        int length = length(ctx.ID().getText());
+        if (length == 0) {
+            declareLate(ctx.ID().getText());
+        }
+        String first = "cl_in_values[" + reads;
+        if (length > 0) {
+            elementwise(length);
+            id = arrayRef(ctx.ID().getText()) + "[cl_e]";
+            first += " + cl_e";
+        }
+        reads += Math.max(length, 1);
+        if (options.threads > 1) {
+            // Records are read up front and handed to the worker threads.
+            cCode.append(id).append(" = ").append(first).append("];\n");
+        } else if (fastIo) {
+            cCode.append(id).append(" = cl_read_double();\n");
+        } else {
+            cCode.append("if (scanf(\"%lf\", &").append(id).append(") != 1) {\n");
+            cCode.append("    fprintf(stderr, \"Error: Invalid input. Expected a decimal number.\\n\");\n");
+            cCode.append("    exit(1);\n");
+            cCode.append("}\n");
+        }
+        if (length > 0) {
+            endElementwise();
+        }
         return null;
     }
 
+    /** The C type of a variable: {@code int64_t} if {@code --infer-int} proved it integral. */
+    private String type(String id) {
+        if (globals.containsKey(id)) {
+            // Declared double in the module's header.
+            return "double";
+        }
+        return integers != null && integers.isIntegral(id) ? "int64_t" : "double";
+    }
+
+    private boolean integral(CustomLangParser.ExprContext ctx) {
+        return integers != null && integers.isIntegral(ctx);
+    }
+
+    /** An expression converted to double where it is integral, as WRITE and double operators need. */
+    private String doubleExpr(CustomLangParser.ExprContext ctx) {
+        if (!integral(ctx)) {
+            return visit(ctx);
+        }
+        String expr = visit(ctx);
+        return ctx.op != null ? "(double) (" + expr + ")" : "(double) " + expr;
+    }
+
+    /** An operand of an int64 operator, where a literal like {@code 2.0} is written {@code 2}. */
+    private String integerExpr(CustomLangParser.ExprContext ctx) {
+        if (ctx.NUMBER() != null) {
+            return new BigDecimal(ctx.NUMBER().getText()).toBigInteger().toString();
+        }
+        return visit(ctx);
+    }
+
     @Override
     public String visitExpr(CustomLangParser.ExprContext ctx) {
+        PartialEvaluation.Constant constant = ctx.NUMBER() == null ? constant(ctx) : null;
+        if (constant != null) {
+            return integral(ctx) ? Long.toString((long) constant.value) : constant.toC();
+        }
+        String invariant = invariants.get(ctx);
+        if (invariant != null) {
+            return invariant;
+        }
         if (ctx.op != null) {
-            String left = visit(ctx.expr(0));
-            String right = visit(ctx.expr(1));
+            boolean integral = integral(ctx);
+            Reassociation.Terms terms = options.reassociate ? Reassociation.chain(ctx) : null;
+            if (terms != null) {
+                return Reassociation.toC(terms, integral ? this::integerExpr : this::doubleExpr);
+            }
+            String left = integral ? integerExpr(ctx.expr(0)) : doubleExpr(ctx.expr(0));
+            String right = integral ? integerExpr(ctx.expr(1)) : doubleExpr(ctx.expr(1));
             return left + " " + ctx.op.getText() + " " + right;
         } else if (ctx.NUMBER() != null) {
             return ctx.NUMBER().getText();
+        } else if (ctx.ID() != null && element != null && length(ctx.ID().getText()) > 0) {
+            return arrayRef(ctx.ID().getText()) + "[" + element + "]";
         } else if (ctx.ID() != null) {
-            return ctx.ID().getText();
+            String id = ctx.ID().getText();
+            declareLate(id);
+            return varRef(id);
+        } else if (ctx.aggregate != null) {
+            if (aggregatePass == null) {
+                throw new IllegalStateException("line " + ctx.start.getLine() + ": " + ctx.aggregate.getText()
+                        + "(INPUT) needs the whole program to be compiled at once");
+            }
+            return "cl_agg." + ctx.aggregate.getText().toLowerCase(Locale.ROOT);
         } else {
             return "(" + visit(ctx.expr(0)) + ")";
         }
     }
 
     public static void main(String[] args) throws Exception {
-        CharStream input = CharStreams.fromFileName(args[0]);
+        CompilerOptions options = CompilerOptions.parse(args);
+        if (options.watch) {
+            List<Path> roots = new ArrayList<>();
+            for (String root : options.inputFiles) {
+                roots.add(Paths.get(root));
+            }
+            new SourceWatcher(roots, options).run();
+            return;
+        }
+        if (options.nativeBuild) {
+            buildNative(options);
+            return;
+        }
+
+        String inputFile = options.inputFiles.get(0);
+        if (!options.precompile && ModuleBuilder.imports(Paths.get(inputFile))) {
+            try {
+                new ModuleBuilder(options, Paths.get("."), "output.c").generate(Paths.get(inputFile));
+            } catch (IllegalStateException e) {
+                (options.jsonDiagnostics ? System.out : System.err).println(e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        Diagnostics diagnostics = new Diagnostics(inputFile, options.maxErrors, options.strict);
+        CustomLangParser.ProgramContext tree = parse(inputFile, diagnostics);
+        String code = null;
+        try {
+            if (tree != null && options.precompile) {
+                if (!tree.importStmt().isEmpty()) {
+                    throw new IllegalStateException("Programs with IMPORT cannot be precompiled");
+                }
+                checkSymbols(tree, diagnostics);
+            } else if (tree != null) {
+                code = generate(options, tree, diagnostics);
+            }
+        } catch (IllegalStateException e) {
+            if (!diagnostics.hasErrors() && !options.jsonDiagnostics) {
+                System.err.println(e.getMessage());
+                System.exit(1);
+            } else if (!diagnostics.hasErrors()) {
+                diagnostics.generatorError(e.getMessage());
+            }
+        }
+        if (options.jsonDiagnostics) {
+            System.out.println(diagnostics.toJson());
+        } else {
+            System.err.print(diagnostics.toText());
+        }
+        if (diagnostics.hasErrors()) {
+            System.exit(1);
+        }
+
+        if (options.precompile) {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream("output.clpc"))) {
+                PrecompiledProgram.write(tree, out);
+            }
+            return;
+        }
+        try (FileWriter fileWriter = new FileWriter(options.emitLlvm ? "output.ll" : "output.c")) {
+            fileWriter.write(code);
+        }
+    }
+
+    static String generate(CompilerOptions options, CustomLangParser.ProgramContext tree, Diagnostics diagnostics) {
+        if (options.emitLlvm || options.columnar) {
+            checkSymbols(tree, diagnostics);
+            return options.emitLlvm ? new LlvmBackend(options).visit(tree) : new ColumnarBackend(options).visit(tree);
+        }
+        return new Compiler(options, diagnostics).visit(tree);
+    }
+
+    /** Runs the symbol checks; their errors, if any, are thrown as an IllegalStateException. */
+    static SymbolTable checkSymbols(CustomLangParser.ProgramContext program, Diagnostics diagnostics) {
+        return checkSymbols(program, Collections.emptyMap(), diagnostics);
+    }
+
+    static SymbolTable checkSymbols(CustomLangParser.ProgramContext program, Map<String, String> imported,
+                                    Diagnostics diagnostics) {
+        SymbolTable symbols = new SymbolTable();
+        try {
+            symbols.check(program, imported, diagnostics);
+        } catch (Diagnostics.LimitReached e) {
+            // The errors so far are in diagnostics.
+        }
+        if (diagnostics.hasErrors()) {
+            throw new IllegalStateException(diagnostics.toText());
+        }
+        return symbols;
+    }
+
+    /** Parses a source file, or loads it if it was precompiled; errors are added to {@code diagnostics}. */
+    static CustomLangParser.ProgramContext parse(String fileName, Diagnostics diagnostics) throws IOException {
+        Path file = Paths.get(fileName);
+        if (PrecompiledProgram.isPrecompiled(file)) {
+            try {
+                return PrecompiledProgram.load(file);
+            } catch (IllegalStateException e) {
+                try {
+                    diagnostics.error("loader", 1, 0, e.getMessage());
+                } catch (Diagnostics.LimitReached limit) {
+                    // The error is in diagnostics.
+                }
+                return null;
+            }
+        }
+        return diagnostics.parse(CharStreams.fromFileName(fileName));
+    }
+
+    static ParseTree parse(String fileName) throws IOException {
+        CharStream input = CharStreams.fromFileName(fileName);
         CustomLangLexer lexer = new CustomLangLexer(input);
         CommonTokenStream tokens = new CommonTokenStream(lexer);
         CustomLangParser parser = new CustomLangParser(tokens);
-        ParseTree tree = parser.program();
+        return parser.program();
+    }
 
-        Compiler compiler = new Compiler();
-        String cCode = compiler.visit(tree);
-        
-        try (FileWriter fileWriter = new FileWriter("output.c")) {
-            fileWriter.write(cCode);
+    /**
+     * Compiles every input straight to a native binary, in parallel. A single
+     * input is linked to {@code output}, like {@code gcc output.c -o output};
+     * several inputs are linked to their base names.
+     */
+    static void buildNative(CompilerOptions options) throws Exception {
+        NativeBuilder builder = new NativeBuilder(options.cflags, options.ldflags);
+        List<String> inputFiles = options.inputFiles;
+        List<Path> training = new ArrayList<>();
+        for (String input : options.pgoInputs) {
+            training.add(Paths.get(input));
+        }
+        int threads = Math.max(1, Math.min(inputFiles.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<String>> results = new ArrayList<>();
+        for (String inputFile : inputFiles) {
+            results.add(executor.submit(() -> {
+                long start = System.nanoTime();
+                String name = Paths.get(inputFile).getFileName().toString().replaceFirst("\\.[^.]*$", "");
+                Path binary = Paths.get(inputFiles.size() == 1 ? "output" : name);
+                if (ModuleBuilder.imports(Paths.get(inputFile))) {
+                    return buildModules(builder, options, Paths.get(inputFile), binary);
+                }
+                Diagnostics diagnostics = new Diagnostics(inputFile, options.maxErrors, options.strict);
+                CustomLangParser.ProgramContext tree = parse(inputFile, diagnostics);
+                String cCode = null;
+                try {
+                    if (tree != null) {
+                        cCode = generate(options, tree, diagnostics);
+                    }
+                } catch (IllegalStateException e) {
+                    if (!diagnostics.hasErrors() && !options.jsonDiagnostics) {
+                        throw e;
+                    } else if (!diagnostics.hasErrors()) {
+                        diagnostics.generatorError(e.getMessage());
+                    }
+                }
+                if (diagnostics.hasErrors()) {
+                    throw new IllegalStateException(options.jsonDiagnostics
+                            ? diagnostics.toJson() : diagnostics.toText().trim());
+                }
+                double codegenMs = (System.nanoTime() - start) / 1e6;
+                NativeBuilder.Report report;
+                try {
+                    report = options.pgoInputs.isEmpty() ? builder.build(cCode, binary)
+                            : builder.buildWithProfile(cCode, training, binary);
+                } catch (IllegalStateException e) {
+                    throw options.jsonDiagnostics ? fileError(options, inputFile, "native", e.getMessage()) : e;
+                }
+                return String.format("%s: codegen %.1f ms, %s -> %s", inputFile, codegenMs, report, binary);
+            }));
+        }
+        executor.shutdown();
+        boolean failed = false;
+        for (Future<String> result : results) {
+            try {
+                System.out.println(result.get());
+            } catch (ExecutionException e) {
+                boolean diagnostics = options.jsonDiagnostics && e.getCause() instanceof IllegalStateException;
+                (diagnostics ? System.out : System.err).println(e.getCause().getMessage());
+                failed = true;
+            }
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    /** An error about a whole file, as {@code file: message} or, with {@code --diagnostics=json}, as JSON. */
+    private static IllegalStateException fileError(CompilerOptions options, String file, String source,
+                                                   String message) {
+        if (!options.jsonDiagnostics) {
+            return new IllegalStateException(file + ": " + message);
+        }
+        Diagnostics diagnostics = new Diagnostics(file, 0, false);
+        diagnostics.error(source, 0, 0, message);
+        return new IllegalStateException(diagnostics.toJson());
+    }
+
+    /**
+     * Builds a program with modules: their translation units are generated
+     * under the cache, where they are kept for the next build, and compiled
+     * and linked together.
+     */
+    private static String buildModules(NativeBuilder builder, CompilerOptions options, Path source, Path binary)
+            throws IOException, InterruptedException {
+        if (!options.pgoInputs.isEmpty()) {
+            throw fileError(options, source.toString(), "options", "--pgo is not supported for programs with IMPORT");
+        }
+        long start = System.nanoTime();
+        Path directory = NativeBuilder.cacheDirectory().resolve("modules")
+                .resolve(NativeBuilder.hash(source.toAbsolutePath().normalize().toString()));
+        List<ModuleBuilder.Module> modules = new ModuleBuilder(options, directory, "output.c").generate(source);
+        List<String> units = new ArrayList<>();
+        int generated = 0;
+        for (ModuleBuilder.Module module : modules) {
+            units.add(new String(Files.readAllBytes(module.unit), StandardCharsets.UTF_8));
+            generated += module.generated ? 1 : 0;
         }
+        double codegenMs = (System.nanoTime() - start) / 1e6;
+        NativeBuilder.Report report = builder.build(units, directory, binary);
+        return String.format("%s: codegen %.1f ms, %d/%d modules regenerated, %s -> %s",
+                source, codegenMs, generated, modules.size(), report, binary);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,314 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Command line options of {@link Compiler}. */
+public class CompilerOptions {
+
+    /** Writes LLVM IR for a single-record stdio program to {@code output.ll}; see {@link LlvmBackend}. */
+    boolean emitLlvm;
+    /** Writes the parsed and checked program to {@code output.clpc} instead of compiling it. */
+    boolean precompile;
+    /** Builds binaries with gcc, several programs in parallel and cached; see {@link NativeBuilder}. */
+    boolean nativeBuild;
+    /** Recompiles the sources under the input directories whenever they change; see {@link SourceWatcher}. */
+    boolean watch;
+    /** Emits {@code customlang_fast_io.h}, which must be on the class path, for READ and WRITE. */
+    boolean fastIo;
+    /** Runs the program once per record of the input, with {@code customlang_batch.h}. */
+    boolean batch;
+    /** Runs the program over blocks of records; see {@link ColumnarBackend}. */
+    boolean columnar;
+    /** Declares the variables {@link IntegerInference} proves integral {@code int64_t}. */
+    boolean inferInt;
+    /** Emits the variables as {@code static double cl_v[N]}, indexed by their slots in the {@link SymbolTable}. */
+    boolean slots;
+    /** Times every statement and writes {@code customlang.prof} at exit, with {@code customlang_profile.h}. */
+    boolean profile;
+    /** Rebalances arithmetic chains, see {@link Reassociation}, and lets gcc and LLVM fuse multiply-adds. */
+    boolean reassociate;
+    /** Stops at the first error instead of recovering. */
+    boolean strict;
+    /** Prints the errors as JSON on stdout; see {@link Diagnostics#toJson()}. */
+    boolean jsonDiagnostics;
+    int maxErrors = 100;
+    int threads = 1;
+    int chunkSize = 2000;
+    int chunkAbove = 20000;
+    List<String> cflags = Arrays.asList("-O2");
+    List<String> ldflags = new ArrayList<>();
+    List<String> inputFiles = new ArrayList<>();
+    /** Values of READ targets fixed at compile time with {@code --bind} and {@code --bind-file}. */
+    Map<String, Double> bindings = new LinkedHashMap<>();
+    /** Training inputs of {@code --pgo}, which the instrumented binary is run on. */
+    List<String> pgoInputs = new ArrayList<>();
+
+    // Setters for library use, like the command line options of the same names,
+    // which CompilerSession checks with validate().
+
+    /** {@code --fast-io}. */
+    public CompilerOptions fastIo(boolean fastIo) {
+        this.fastIo = fastIo;
+        return this;
+    }
+
+    /** {@code --batch}. */
+    public CompilerOptions batch(boolean batch) {
+        this.batch = batch;
+        return this;
+    }
+
+    /** {@code --threads N}, which implies {@code --batch}. */
+    public CompilerOptions threads(int threads) {
+        this.threads = threads;
+        this.batch = true;
+        return this;
+    }
+
+    /** {@code --infer-int}. */
+    public CompilerOptions inferInt(boolean inferInt) {
+        this.inferInt = inferInt;
+        return this;
+    }
+
+    /** {@code --slots}. */
+    public CompilerOptions slots(boolean slots) {
+        this.slots = slots;
+        return this;
+    }
+
+    /** {@code --profile}. */
+    public CompilerOptions profile(boolean profile) {
+        this.profile = profile;
+        return this;
+    }
+
+    /** {@code --reassociate}. */
+    public CompilerOptions reassociate(boolean reassociate) {
+        this.reassociate = reassociate;
+        return this;
+    }
+
+    /** {@code --strict}. */
+    public CompilerOptions strict(boolean strict) {
+        this.strict = strict;
+        return this;
+    }
+
+    /** {@code --max-errors N}; 0 is no limit. */
+    public CompilerOptions maxErrors(int maxErrors) {
+        this.maxErrors = maxErrors;
+        return this;
+    }
+
+    /** {@code --chunk-size N}; 0 keeps a single main(). */
+    public CompilerOptions chunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+        this.chunkAbove = chunkSize;
+        return this;
+    }
+
+    /** {@code --bind name=value}. */
+    public CompilerOptions bind(String name, double value) {
+        bind(bindings, name + "=" + value, "bind");
+        return this;
+    }
+
+    static CompilerOptions parse(String[] args) {
+        CompilerOptions options = new CompilerOptions();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--emit-llvm")) {
+                options.emitLlvm = true;
+            } else if (arg.equals("--precompile")) {
+                options.precompile = true;
+            } else if (arg.equals("--native")) {
+                options.nativeBuild = true;
+            } else if (arg.equals("--watch")) {
+                options.watch = true;
+            } else if (arg.equals("--fast-io")) {
+                options.fastIo = true;
+            } else if (arg.equals("--batch")) {
+                options.batch = true;
+            } else if (arg.equals("--infer-int")) {
+                options.inferInt = true;
+            } else if (arg.equals("--slots")) {
+                options.slots = true;
+            } else if (arg.equals("--profile")) {
+                options.profile = true;
+            } else if (arg.equals("--reassociate")) {
+                options.reassociate = true;
+            } else if (arg.equals("--strict")) {
+                options.strict = true;
+            } else if (arg.equals("--max-errors")) {
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("--max-errors needs an error count");
+                }
+                options.maxErrors = number("--max-errors", args[++i]);
+            } else if (arg.equals("--diagnostics=json")) {
+                options.jsonDiagnostics = true;
+            } else if (arg.equals("--diagnostics=text")) {
+                options.jsonDiagnostics = false;
+            } else if (arg.equals("--columnar")) {
+                options.columnar = true;
+            } else if (arg.equals("--threads")) {
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("--threads needs a thread count");
+                }
+                options.threads = number("--threads", args[++i]);
+                options.batch = true;
+            } else if (arg.equals("--chunk-size")) {
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("--chunk-size needs a statement count");
+                }
+                options.chunkSize = number("--chunk-size", args[++i]);
+                options.chunkAbove = options.chunkSize;
+            } else if (arg.equals("--bind")) {
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("--bind needs name=value");
+                }
+                bind(options.bindings, args[++i], "--bind " + args[i]);
+            } else if (arg.equals("--bind-file")) {
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("--bind-file needs a file of name=value lines");
+                }
+                bindFile(options.bindings, args[++i]);
+            } else if (arg.equals("--pgo")) {
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("--pgo needs a training input file");
+                }
+                options.pgoInputs.add(args[++i]);
+                options.nativeBuild = true;
+            } else if (arg.startsWith("--cflags=")) {
+                options.cflags = splitFlags(arg.substring("--cflags=".length()));
+            } else if (arg.startsWith("--ldflags=")) {
+                options.ldflags = splitFlags(arg.substring("--ldflags=".length()));
+            } else if (arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            } else {
+                options.inputFiles.add(arg);
+            }
+        }
+        options.validate();
+        if (options.watch && options.inputFiles.isEmpty()) {
+            options.inputFiles.add(".");
+        }
+        if (options.inputFiles.isEmpty()) {
+            throw new IllegalArgumentException("Usage: java Compiler [options] file.customlang...");
+        }
+        return options;
+    }
+
+    /**
+     * Rejects options no backend can combine and adds the build flags some
+     * options need. {@link #parse} calls it, and so does {@link CompilerSession}
+     * for options set with the setters.
+     */
+    void validate() {
+        if (threads < 1) {
+            throw new IllegalArgumentException("--threads must be at least 1");
+        }
+        if (columnar && threads > 1) {
+            throw new IllegalArgumentException("--columnar cannot be combined with --threads");
+        }
+        if (columnar && inferInt) {
+            throw new IllegalArgumentException("--columnar computes every column as a double and cannot be combined with --infer-int");
+        }
+        if (slots && inferInt) {
+            throw new IllegalArgumentException("--slots stores every variable as a double and cannot be combined with --infer-int");
+        }
+        if (emitLlvm && (batch || threads > 1 || fastIo)) {
+            throw new IllegalArgumentException("--emit-llvm only emits a single-record stdio program and cannot be combined with --batch, --threads or --fast-io");
+        }
+        if (profile && (emitLlvm || columnar || threads > 1)) {
+            throw new IllegalArgumentException("--profile is only supported by the scalar C backend without --threads");
+        }
+        if (!bindings.isEmpty() && (emitLlvm || columnar)) {
+            throw new IllegalArgumentException("--bind is only supported by the scalar C backend");
+        }
+        if (precompile && (nativeBuild || emitLlvm)) {
+            throw new IllegalArgumentException("--precompile writes output.clpc and cannot be combined with --native or --emit-llvm");
+        }
+        if (watch && (emitLlvm || precompile || nativeBuild)) {
+            throw new IllegalArgumentException("--watch writes C next to each source and cannot be combined with --emit-llvm, --precompile, --native or --pgo");
+        }
+        if (!pgoInputs.isEmpty() && emitLlvm) {
+            throw new IllegalArgumentException("--pgo builds native binaries from C and cannot be combined with --emit-llvm");
+        }
+        if (maxErrors < 0) {
+            throw new IllegalArgumentException("--max-errors must be 0 (no limit) or more");
+        }
+        if (chunkSize < 0) {
+            throw new IllegalArgumentException("--chunk-size must be 0 (no chunks) or more");
+        }
+        if (threads > 1 && !ldflags.contains("-pthread")) {
+            ldflags = new ArrayList<>(ldflags);
+            ldflags.add("-pthread");
+        }
+        if (reassociate && cflags.stream().noneMatch(flag -> flag.startsWith("-ffp-contract="))) {
+            // Reassociated programs already round differently, so let gcc fuse multiply-adds too.
+            cflags = new ArrayList<>(cflags);
+            cflags.add("-ffp-contract=fast");
+        }
+    }
+
+    private static int number(String option, String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + ": '" + value + "' is not a whole number");
+        }
+    }
+
+    private static void bind(Map<String, Double> bindings, String binding, String where) {
+        int equals = binding.indexOf('=');
+        String name = equals < 0 ? "" : binding.substring(0, equals).trim();
+        if (!name.matches("[a-zA-Z_][a-zA-Z_0-9]*")) {
+            throw new IllegalArgumentException(where + ": expected name=value");
+        }
+        String value = binding.substring(equals + 1).trim();
+        try {
+            double number = Double.parseDouble(value);
+            if (Double.isFinite(number)) {
+                bindings.put(name, number);
+                return;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below.
+        }
+        throw new IllegalArgumentException(where + ": '" + value + "' is not a finite number");
+    }
+
+    /** One name=value per line; blank lines and lines starting with # are skipped. */
+    private static void bindFile(Map<String, Double> bindings, String file) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                bind(bindings, line, file + ":" + (i + 1));
+            }
+        }
+    }
+
+    private static List<String> splitFlags(String flags) {
+        List<String> result = new ArrayList<>();
+        for (String flag : flags.trim().split("\\s+")) {
+            if (!flag.isEmpty()) {
+                result.add(flag);
+            }
+        }
+        return result;
+    }
+}
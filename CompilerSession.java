@@ -0,0 +1,197 @@
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles CustomLang sources to C in-process, for embedding the compiler in
+ * other programs. A session keeps its lexer, parser, {@link Compiler} and
+ * output buffer and resets them between compilations instead of allocating
+ * new ones, so it is cheap to reuse but must only be used by one thread at a
+ * time. The static methods use one session per thread and are safe to call
+ * from any number of threads. Code in a named package, which cannot import
+ * this class, uses {@code customlang.CustomLang} instead.
+ */
+public class CompilerSession {
+
+    private static final ThreadLocal<CompilerSession> SESSIONS = ThreadLocal.withInitial(CompilerSession::new);
+
+    /** Thrown when a source has errors; the diagnostics are in {@link #errors()}. */
+    public static class CompileException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Diagnostics.Diagnostic> errors;
+
+        CompileException(Diagnostics diagnostics) {
+            super(diagnostics.toText());
+            this.errors = new ArrayList<>(diagnostics.errors());
+        }
+
+        public List<Diagnostics.Diagnostic> errors() {
+            return errors;
+        }
+    }
+
+    private final CompilerOptions options;
+    private final Diagnostics diagnostics;
+    private final CustomLangLexer lexer = new CustomLangLexer(null);
+    private final CustomLangParser parser = new CustomLangParser(null);
+    private final Compiler compiler;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private ByteBuffer bytes = ByteBuffer.allocate(1 << 16);
+
+    public CompilerSession() {
+        this(new CompilerOptions());
+    }
+
+    /** A session compiling with {@code options}, which it checks like the command line's. */
+    public CompilerSession(CompilerOptions options) {
+        options.validate();
+        this.options = options;
+        this.diagnostics = new Diagnostics("<input>", options.maxErrors, options.strict);
+        this.compiler = new Compiler(options, diagnostics);
+    }
+
+    /** The session of the calling thread, with default options. */
+    public static CompilerSession current() {
+        return SESSIONS.get();
+    }
+
+    public static void compile(CharSequence source, Writer out) throws IOException {
+        out.write(current().toC(CharStreams.fromString(source.toString()), "<input>"));
+    }
+
+    public static void compile(Path source, Writer out) throws IOException {
+        out.write(current().toC(source));
+    }
+
+    public static void compile(InputStream source, Writer out) throws IOException {
+        out.write(current().toC(CharStreams.fromStream(source, StandardCharsets.UTF_8), "<input>"));
+    }
+
+    /** The C code as UTF-8 in a new buffer, which the caller owns. */
+    public static ByteBuffer compile(CharSequence source) {
+        return copy(current().toBytes(source));
+    }
+
+    public static ByteBuffer compile(Path source) throws IOException {
+        return copy(current().toBytes(source));
+    }
+
+    public static ByteBuffer compile(InputStream source) throws IOException {
+        return copy(current().toBytes(source));
+    }
+
+    // With options other than the defaults, each call compiles in a session of
+    // its own; a caller compiling many sources with the same options keeps one
+    // CompilerSession per thread instead.
+
+    public static void compile(CharSequence source, Writer out, CompilerOptions options) throws IOException {
+        out.write(new CompilerSession(options).toC(CharStreams.fromString(source.toString()), "<input>"));
+    }
+
+    public static void compile(Path source, Writer out, CompilerOptions options) throws IOException {
+        out.write(new CompilerSession(options).toC(source));
+    }
+
+    public static void compile(InputStream source, Writer out, CompilerOptions options) throws IOException {
+        out.write(new CompilerSession(options).toC(CharStreams.fromStream(source, StandardCharsets.UTF_8), "<input>"));
+    }
+
+    public static ByteBuffer compile(CharSequence source, CompilerOptions options) {
+        return copy(new CompilerSession(options).toBytes(source));
+    }
+
+    public static ByteBuffer compile(Path source, CompilerOptions options) throws IOException {
+        return copy(new CompilerSession(options).toBytes(source));
+    }
+
+    public static ByteBuffer compile(InputStream source, CompilerOptions options) throws IOException {
+        return copy(new CompilerSession(options).toBytes(source));
+    }
+
+    private static ByteBuffer copy(ByteBuffer buffer) {
+        ByteBuffer copy = ByteBuffer.allocate(buffer.remaining());
+        copy.put(buffer).flip();
+        return copy;
+    }
+
+    /**
+     * The C code as UTF-8, in this session's buffer: the returned read-only
+     * view is only valid until the next compilation in this session.
+     */
+    public ByteBuffer toBytes(CharSequence source) {
+        return encode(toC(CharStreams.fromString(source.toString()), "<input>"));
+    }
+
+    public ByteBuffer toBytes(Path source) throws IOException {
+        return encode(toC(source));
+    }
+
+    public ByteBuffer toBytes(InputStream source) throws IOException {
+        return encode(toC(CharStreams.fromStream(source, StandardCharsets.UTF_8), "<input>"));
+    }
+
+    /** Compiles one source to C; throws {@link CompileException} if it has errors. */
+    public String toC(CharStream input, String fileName) {
+        diagnostics.reset(fileName);
+        lexer.setInputStream(input);
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        parser.setTokenStream(tokens);
+        return toC(diagnostics.parse(lexer, parser, tokens));
+    }
+
+    /** Compiles a source file, or a program precompiled with {@code --precompile}, to C. */
+    public String toC(Path source) throws IOException {
+        if (!PrecompiledProgram.isPrecompiled(source)) {
+            return toC(CharStreams.fromPath(source, StandardCharsets.UTF_8), source.toString());
+        }
+        diagnostics.reset(source.toString());
+        return toC(Compiler.parse(source.toString(), diagnostics));
+    }
+
+    private String toC(CustomLangParser.ProgramContext program) {
+        try {
+            if (program != null) {
+                if (options.emitLlvm || options.columnar) {
+                    return Compiler.generate(options, program, diagnostics);
+                }
+                compiler.reset();
+                return compiler.visit(program);
+            }
+        } catch (IllegalStateException e) {
+            // What the generator rejects, like an array in a condition, is an error of the source too.
+            if (!diagnostics.hasErrors()) {
+                diagnostics.generatorError(e.getMessage());
+            }
+        }
+        throw new CompileException(diagnostics);
+    }
+
+    private ByteBuffer encode(String code) {
+        encoder.reset();
+        bytes.clear();
+        CharBuffer chars = CharBuffer.wrap(code);
+        CoderResult result = encoder.encode(chars, bytes, true);
+        while (result.isOverflow() || encoder.flush(bytes).isOverflow()) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(bytes.capacity() * 2, code.length() * 3));
+            bytes.flip();
+            larger.put(bytes);
+            bytes = larger;
+            result = encoder.encode(chars, bytes, true);
+        }
+        bytes.flip();
+        return bytes.asReadOnlyBuffer();
+    }
+}
@@ -1,15 +1,21 @@
 grammar CustomLang;
 
-program: statement+;
+program: importStmt* statement+;
+
+importStmt: 'IMPORT' ID ';';
 
 statement: assignment
          | declaration
          | printStmt
          | scanStmt
+         | whileStmt
+         | repeatStmt
+         | ifStmt
+         | exportStmt
          | expr ';' 
          ;
 
-declaration: 'DEF' ID ';';
+declaration: 'DEF' ID ('[' NUMBER ']')? ';';
 
 assignment: 'DEF' ID '<-' expr ';';
 
@@ -17,9 +23,22 @@ printStmt: 'WRITE' '(' STRING (',' expr)? ')' ';';
 
 scanStmt: 'READ' '(' ID ')' ';';
 
+exportStmt: 'EXPORT' ID (',' ID)* ';';
+
+block: '{' statement* '}';
+
+whileStmt: 'WHILE' '(' condition ')' block;
+
+repeatStmt: 'REPEAT' expr block;
+
+ifStmt: 'IF' '(' condition ')' block ('ELSE' (block | ifStmt))?;
+
+condition: expr op=('<'|'<='|'>'|'>='|'=='|'!=') expr;
+
 expr: expr op=('*'|'/') expr
     | expr op=('+'|'-') expr
     | '(' expr ')'
+    | aggregate=('SUM'|'MIN'|'MAX'|'AVG'|'COUNT') '(' 'INPUT' ')'
     | NUMBER
     | ID
     ;
@@ -17,7 +17,10 @@ public class CustomLangLexer extends Lexer {
 		new PredictionContextCache();
 	public static final int
 		T__0=1, T__1=2, T__2=3, T__3=4, T__4=5, T__5=6, T__6=7, T__7=8, T__8=9, 
-		T__9=10, T__10=11, T__11=12, ID=13, NUMBER=14, STRING=15, WS=16;
+		T__9=10, T__10=11, T__11=12, T__12=13, T__13=14, T__14=15, T__15=16, T__16=17, 
+		T__17=18, T__18=19, T__19=20, T__20=21, T__21=22, T__22=23, T__23=24, 
+		T__24=25, T__25=26, T__26=27, T__27=28, T__28=29, T__29=30, T__30=31, 
+		T__31=32, T__32=33, T__33=34, ID=35, NUMBER=36, STRING=37, WS=38;
 	public static String[] channelNames = {
 		"DEFAULT_TOKEN_CHANNEL", "HIDDEN"
 	};
@@ -29,22 +32,29 @@ public class CustomLangLexer extends Lexer {
 	private static String[] makeRuleNames() {
 		return new String[] {
 			"T__0", "T__1", "T__2", "T__3", "T__4", "T__5", "T__6", "T__7", "T__8", 
-			"T__9", "T__10", "T__11", "ID", "NUMBER", "STRING", "WS"
+			"T__9", "T__10", "T__11", "T__12", "T__13", "T__14", "T__15", "T__16", 
+			"T__17", "T__18", "T__19", "T__20", "T__21", "T__22", "T__23", "T__24", 
+			"T__25", "T__26", "T__27", "T__28", "T__29", "T__30", "T__31", "T__32", 
+			"T__33", "ID", "NUMBER", "STRING", "WS"
 		};
 	}
 	public static final String[] ruleNames = makeRuleNames();
 
 	private static String[] makeLiteralNames() {
 		return new String[] {
-			null, "';'", "'DEF'", "'<-'", "'WRITE'", "'('", "','", "')'", "'READ'", 
-			"'*'", "'/'", "'+'", "'-'"
+			null, "'IMPORT'", "';'", "'DEF'", "'['", "']'", "'<-'", "'WRITE'", "'('", 
+			"','", "')'", "'READ'", "'EXPORT'", "'{'", "'}'", "'WHILE'", "'REPEAT'", 
+			"'IF'", "'ELSE'", "'<'", "'<='", "'>'", "'>='", "'=='", "'!='", "'*'", 
+			"'/'", "'+'", "'-'", "'SUM'", "'MIN'", "'MAX'", "'AVG'", "'COUNT'", "'INPUT'"
 		};
 	}
 	private static final String[] _LITERAL_NAMES = makeLiteralNames();
 	private static String[] makeSymbolicNames() {
 		return new String[] {
 			null, null, null, null, null, null, null, null, null, null, null, null, 
-			null, "ID", "NUMBER", "STRING", "WS"
+			null, null, null, null, null, null, null, null, null, null, null, null, 
+			null, null, null, null, null, null, null, null, null, null, null, "ID", 
+			"NUMBER", "STRING", "WS"
 		};
 	}
 	private static final String[] _SYMBOLIC_NAMES = makeSymbolicNames();
@@ -106,67 +116,149 @@ public class CustomLangLexer extends Lexer {
 	public ATN getATN() { return _ATN; }
 
 	public static final String _serializedATN =
-		"\u0004\u0000\u0010g\u0006\uffff\uffff\u0002\u0000\u0007\u0000\u0002\u0001"+
+		"\u0004\u0000&\u00ea\u0006\uffff\uffff\u0002\u0000\u0007\u0000\u0002\u0001"+
 		"\u0007\u0001\u0002\u0002\u0007\u0002\u0002\u0003\u0007\u0003\u0002\u0004"+
 		"\u0007\u0004\u0002\u0005\u0007\u0005\u0002\u0006\u0007\u0006\u0002\u0007"+
 		"\u0007\u0007\u0002\b\u0007\b\u0002\t\u0007\t\u0002\n\u0007\n\u0002\u000b"+
 		"\u0007\u000b\u0002\f\u0007\f\u0002\r\u0007\r\u0002\u000e\u0007\u000e\u0002"+
-		"\u000f\u0007\u000f\u0001\u0000\u0001\u0000\u0001\u0001\u0001\u0001\u0001"+
-		"\u0001\u0001\u0001\u0001\u0002\u0001\u0002\u0001\u0002\u0001\u0003\u0001"+
-		"\u0003\u0001\u0003\u0001\u0003\u0001\u0003\u0001\u0003\u0001\u0004\u0001"+
-		"\u0004\u0001\u0005\u0001\u0005\u0001\u0006\u0001\u0006\u0001\u0007\u0001"+
-		"\u0007\u0001\u0007\u0001\u0007\u0001\u0007\u0001\b\u0001\b\u0001\t\u0001"+
-		"\t\u0001\n\u0001\n\u0001\u000b\u0001\u000b\u0001\f\u0001\f\u0005\fF\b"+
-		"\f\n\f\f\fI\t\f\u0001\r\u0004\rL\b\r\u000b\r\f\rM\u0001\r\u0001\r\u0004"+
-		"\rR\b\r\u000b\r\f\rS\u0003\rV\b\r\u0001\u000e\u0001\u000e\u0005\u000e"+
-		"Z\b\u000e\n\u000e\f\u000e]\t\u000e\u0001\u000e\u0001\u000e\u0001\u000f"+
-		"\u0004\u000fb\b\u000f\u000b\u000f\f\u000fc\u0001\u000f\u0001\u000f\u0001"+
-		"[\u0000\u0010\u0001\u0001\u0003\u0002\u0005\u0003\u0007\u0004\t\u0005"+
-		"\u000b\u0006\r\u0007\u000f\b\u0011\t\u0013\n\u0015\u000b\u0017\f\u0019"+
-		"\r\u001b\u000e\u001d\u000f\u001f\u0010\u0001\u0000\u0004\u0003\u0000A"+
-		"Z__az\u0004\u000009AZ__az\u0001\u000009\u0003\u0000\t\n\r\r  l\u0000\u0001"+
-		"\u0001\u0000\u0000\u0000\u0000\u0003\u0001\u0000\u0000\u0000\u0000\u0005"+
-		"\u0001\u0000\u0000\u0000\u0000\u0007\u0001\u0000\u0000\u0000\u0000\t\u0001"+
-		"\u0000\u0000\u0000\u0000\u000b\u0001\u0000\u0000\u0000\u0000\r\u0001\u0000"+
-		"\u0000\u0000\u0000\u000f\u0001\u0000\u0000\u0000\u0000\u0011\u0001\u0000"+
-		"\u0000\u0000\u0000\u0013\u0001\u0000\u0000\u0000\u0000\u0015\u0001\u0000"+
-		"\u0000\u0000\u0000\u0017\u0001\u0000\u0000\u0000\u0000\u0019\u0001\u0000"+
-		"\u0000\u0000\u0000\u001b\u0001\u0000\u0000\u0000\u0000\u001d\u0001\u0000"+
-		"\u0000\u0000\u0000\u001f\u0001\u0000\u0000\u0000\u0001!\u0001\u0000\u0000"+
-		"\u0000\u0003#\u0001\u0000\u0000\u0000\u0005\'\u0001\u0000\u0000\u0000"+
-		"\u0007*\u0001\u0000\u0000\u0000\t0\u0001\u0000\u0000\u0000\u000b2\u0001"+
-		"\u0000\u0000\u0000\r4\u0001\u0000\u0000\u0000\u000f6\u0001\u0000\u0000"+
-		"\u0000\u0011;\u0001\u0000\u0000\u0000\u0013=\u0001\u0000\u0000\u0000\u0015"+
-		"?\u0001\u0000\u0000\u0000\u0017A\u0001\u0000\u0000\u0000\u0019C\u0001"+
-		"\u0000\u0000\u0000\u001bK\u0001\u0000\u0000\u0000\u001dW\u0001\u0000\u0000"+
-		"\u0000\u001fa\u0001\u0000\u0000\u0000!\"\u0005;\u0000\u0000\"\u0002\u0001"+
-		"\u0000\u0000\u0000#$\u0005D\u0000\u0000$%\u0005E\u0000\u0000%&\u0005F"+
-		"\u0000\u0000&\u0004\u0001\u0000\u0000\u0000\'(\u0005<\u0000\u0000()\u0005"+
-		"-\u0000\u0000)\u0006\u0001\u0000\u0000\u0000*+\u0005W\u0000\u0000+,\u0005"+
-		"R\u0000\u0000,-\u0005I\u0000\u0000-.\u0005T\u0000\u0000./\u0005E\u0000"+
-		"\u0000/\b\u0001\u0000\u0000\u000001\u0005(\u0000\u00001\n\u0001\u0000"+
-		"\u0000\u000023\u0005,\u0000\u00003\f\u0001\u0000\u0000\u000045\u0005)"+
-		"\u0000\u00005\u000e\u0001\u0000\u0000\u000067\u0005R\u0000\u000078\u0005"+
-		"E\u0000\u000089\u0005A\u0000\u00009:\u0005D\u0000\u0000:\u0010\u0001\u0000"+
-		"\u0000\u0000;<\u0005*\u0000\u0000<\u0012\u0001\u0000\u0000\u0000=>\u0005"+
-		"/\u0000\u0000>\u0014\u0001\u0000\u0000\u0000?@\u0005+\u0000\u0000@\u0016"+
-		"\u0001\u0000\u0000\u0000AB\u0005-\u0000\u0000B\u0018\u0001\u0000\u0000"+
-		"\u0000CG\u0007\u0000\u0000\u0000DF\u0007\u0001\u0000\u0000ED\u0001\u0000"+
-		"\u0000\u0000FI\u0001\u0000\u0000\u0000GE\u0001\u0000\u0000\u0000GH\u0001"+
-		"\u0000\u0000\u0000H\u001a\u0001\u0000\u0000\u0000IG\u0001\u0000\u0000"+
-		"\u0000JL\u0007\u0002\u0000\u0000KJ\u0001\u0000\u0000\u0000LM\u0001\u0000"+
-		"\u0000\u0000MK\u0001\u0000\u0000\u0000MN\u0001\u0000\u0000\u0000NU\u0001"+
-		"\u0000\u0000\u0000OQ\u0005.\u0000\u0000PR\u0007\u0002\u0000\u0000QP\u0001"+
-		"\u0000\u0000\u0000RS\u0001\u0000\u0000\u0000SQ\u0001\u0000\u0000\u0000"+
-		"ST\u0001\u0000\u0000\u0000TV\u0001\u0000\u0000\u0000UO\u0001\u0000\u0000"+
-		"\u0000UV\u0001\u0000\u0000\u0000V\u001c\u0001\u0000\u0000\u0000W[\u0005"+
-		"\"\u0000\u0000XZ\t\u0000\u0000\u0000YX\u0001\u0000\u0000\u0000Z]\u0001"+
-		"\u0000\u0000\u0000[\\\u0001\u0000\u0000\u0000[Y\u0001\u0000\u0000\u0000"+
-		"\\^\u0001\u0000\u0000\u0000][\u0001\u0000\u0000\u0000^_\u0005\"\u0000"+
-		"\u0000_\u001e\u0001\u0000\u0000\u0000`b\u0007\u0003\u0000\u0000a`\u0001"+
-		"\u0000\u0000\u0000bc\u0001\u0000\u0000\u0000ca\u0001\u0000\u0000\u0000"+
-		"cd\u0001\u0000\u0000\u0000de\u0001\u0000\u0000\u0000ef\u0006\u000f\u0000"+
-		"\u0000f \u0001\u0000\u0000\u0000\u0007\u0000GMSU[c\u0001\u0006\u0000\u0000";
+		"\u000f\u0007\u000f\u0002\u0010\u0007\u0010\u0002\u0011\u0007\u0011\u0002"+
+		"\u0012\u0007\u0012\u0002\u0013\u0007\u0013\u0002\u0014\u0007\u0014\u0002"+
+		"\u0015\u0007\u0015\u0002\u0016\u0007\u0016\u0002\u0017\u0007\u0017\u0002"+
+		"\u0018\u0007\u0018\u0002\u0019\u0007\u0019\u0002\u001a\u0007\u001a\u0002"+
+		"\u001b\u0007\u001b\u0002\u001c\u0007\u001c\u0002\u001d\u0007\u001d\u0002"+
+		"\u001e\u0007\u001e\u0002\u001f\u0007\u001f\u0002 \u0007 \u0002!\u0007"+
+		"!\u0002\"\u0007\"\u0002#\u0007#\u0002$\u0007$\u0002%\u0007%\u0001\u0000"+
+		"\u0001\u0000\u0001\u0000\u0001\u0000\u0001\u0000\u0001\u0000\u0001\u0000"+
+		"\u0001\u0001\u0001\u0001\u0001\u0002\u0001\u0002\u0001\u0002\u0001\u0002"+
+		"\u0001\u0003\u0001\u0003\u0001\u0004\u0001\u0004\u0001\u0005\u0001\u0005"+
+		"\u0001\u0005\u0001\u0006\u0001\u0006\u0001\u0006\u0001\u0006\u0001\u0006"+
+		"\u0001\u0006\u0001\u0007\u0001\u0007\u0001\b\u0001\b\u0001\t\u0001\t\u0001"+
+		"\n\u0001\n\u0001\n\u0001\n\u0001\n\u0001\u000b\u0001\u000b\u0001\u000b"+
+		"\u0001\u000b\u0001\u000b\u0001\u000b\u0001\u000b\u0001\f\u0001\f\u0001"+
+		"\r\u0001\r\u0001\u000e\u0001\u000e\u0001\u000e\u0001\u000e\u0001\u000e"+
+		"\u0001\u000e\u0001\u000f\u0001\u000f\u0001\u000f\u0001\u000f\u0001\u000f"+
+		"\u0001\u000f\u0001\u000f\u0001\u0010\u0001\u0010\u0001\u0010\u0001\u0011"+
+		"\u0001\u0011\u0001\u0011\u0001\u0011\u0001\u0011\u0001\u0012\u0001\u0012"+
+		"\u0001\u0013\u0001\u0013\u0001\u0013\u0001\u0014\u0001\u0014\u0001\u0015"+
+		"\u0001\u0015\u0001\u0015\u0001\u0016\u0001\u0016\u0001\u0016\u0001\u0017"+
+		"\u0001\u0017\u0001\u0017\u0001\u0018\u0001\u0018\u0001\u0019\u0001\u0019"+
+		"\u0001\u001a\u0001\u001a\u0001\u001b\u0001\u001b\u0001\u001c\u0001\u001c"+
+		"\u0001\u001c\u0001\u001c\u0001\u001d\u0001\u001d\u0001\u001d\u0001\u001d"+
+		"\u0001\u001e\u0001\u001e\u0001\u001e\u0001\u001e\u0001\u001f\u0001\u001f"+
+		"\u0001\u001f\u0001\u001f\u0001 \u0001 \u0001 \u0001 \u0001 \u0001 \u0001"+
+		"!\u0001!\u0001!\u0001!\u0001!\u0001!\u0001\"\u0001\"\u0005\"\u00c9\b\""+
+		"\n\"\f\"\u00cc\t\"\u0001#\u0004#\u00cf\b#\u000b#\f#\u00d0\u0001#\u0001"+
+		"#\u0004#\u00d5\b#\u000b#\f#\u00d6\u0003#\u00d9\b#\u0001$\u0001$\u0005"+
+		"$\u00dd\b$\n$\f$\u00e0\t$\u0001$\u0001$\u0001%\u0004%\u00e5\b%\u000b%"+
+		"\f%\u00e6\u0001%\u0001%\u0001\u00de\u0000&\u0001\u0001\u0003\u0002\u0005"+
+		"\u0003\u0007\u0004\t\u0005\u000b\u0006\r\u0007\u000f\b\u0011\t\u0013\n"+
+		"\u0015\u000b\u0017\f\u0019\r\u001b\u000e\u001d\u000f\u001f\u0010!\u0011"+
+		"#\u0012%\u0013\'\u0014)\u0015+\u0016-\u0017/\u00181\u00193\u001a5\u001b"+
+		"7\u001c9\u001d;\u001e=\u001f? A!C\"E#G$I%K&\u0001\u0000\u0004\u0003\u0000"+
+		"AZ__az\u0004\u000009AZ__az\u0001\u000009\u0003\u0000\t\n\r\r  \u00ef\u0000"+
+		"\u0001\u0001\u0000\u0000\u0000\u0000\u0003\u0001\u0000\u0000\u0000\u0000"+
+		"\u0005\u0001\u0000\u0000\u0000\u0000\u0007\u0001\u0000\u0000\u0000\u0000"+
+		"\t\u0001\u0000\u0000\u0000\u0000\u000b\u0001\u0000\u0000\u0000\u0000\r"+
+		"\u0001\u0000\u0000\u0000\u0000\u000f\u0001\u0000\u0000\u0000\u0000\u0011"+
+		"\u0001\u0000\u0000\u0000\u0000\u0013\u0001\u0000\u0000\u0000\u0000\u0015"+
+		"\u0001\u0000\u0000\u0000\u0000\u0017\u0001\u0000\u0000\u0000\u0000\u0019"+
+		"\u0001\u0000\u0000\u0000\u0000\u001b\u0001\u0000\u0000\u0000\u0000\u001d"+
+		"\u0001\u0000\u0000\u0000\u0000\u001f\u0001\u0000\u0000\u0000\u0000!\u0001"+
+		"\u0000\u0000\u0000\u0000#\u0001\u0000\u0000\u0000\u0000%\u0001\u0000\u0000"+
+		"\u0000\u0000\'\u0001\u0000\u0000\u0000\u0000)\u0001\u0000\u0000\u0000"+
+		"\u0000+\u0001\u0000\u0000\u0000\u0000-\u0001\u0000\u0000\u0000\u0000/"+
+		"\u0001\u0000\u0000\u0000\u00001\u0001\u0000\u0000\u0000\u00003\u0001\u0000"+
+		"\u0000\u0000\u00005\u0001\u0000\u0000\u0000\u00007\u0001\u0000\u0000\u0000"+
+		"\u00009\u0001\u0000\u0000\u0000\u0000;\u0001\u0000\u0000\u0000\u0000="+
+		"\u0001\u0000\u0000\u0000\u0000?\u0001\u0000\u0000\u0000\u0000A\u0001\u0000"+
+		"\u0000\u0000\u0000C\u0001\u0000\u0000\u0000\u0000E\u0001\u0000\u0000\u0000"+
+		"\u0000G\u0001\u0000\u0000\u0000\u0000I\u0001\u0000\u0000\u0000\u0000K"+
+		"\u0001\u0000\u0000\u0000\u0001M\u0001\u0000\u0000\u0000\u0003T\u0001\u0000"+
+		"\u0000\u0000\u0005V\u0001\u0000\u0000\u0000\u0007Z\u0001\u0000\u0000\u0000"+
+		"\t\\\u0001\u0000\u0000\u0000\u000b^\u0001\u0000\u0000\u0000\ra\u0001\u0000"+
+		"\u0000\u0000\u000fg\u0001\u0000\u0000\u0000\u0011i\u0001\u0000\u0000\u0000"+
+		"\u0013k\u0001\u0000\u0000\u0000\u0015m\u0001\u0000\u0000\u0000\u0017r"+
+		"\u0001\u0000\u0000\u0000\u0019y\u0001\u0000\u0000\u0000\u001b{\u0001\u0000"+
+		"\u0000\u0000\u001d}\u0001\u0000\u0000\u0000\u001f\u0083\u0001\u0000\u0000"+
+		"\u0000!\u008a\u0001\u0000\u0000\u0000#\u008d\u0001\u0000\u0000\u0000%"+
+		"\u0092\u0001\u0000\u0000\u0000\'\u0094\u0001\u0000\u0000\u0000)\u0097"+
+		"\u0001\u0000\u0000\u0000+\u0099\u0001\u0000\u0000\u0000-\u009c\u0001\u0000"+
+		"\u0000\u0000/\u009f\u0001\u0000\u0000\u00001\u00a2\u0001\u0000\u0000\u0000"+
+		"3\u00a4\u0001\u0000\u0000\u00005\u00a6\u0001\u0000\u0000\u00007\u00a8"+
+		"\u0001\u0000\u0000\u00009\u00aa\u0001\u0000\u0000\u0000;\u00ae\u0001\u0000"+
+		"\u0000\u0000=\u00b2\u0001\u0000\u0000\u0000?\u00b6\u0001\u0000\u0000\u0000"+
+		"A\u00ba\u0001\u0000\u0000\u0000C\u00c0\u0001\u0000\u0000\u0000E\u00c6"+
+		"\u0001\u0000\u0000\u0000G\u00ce\u0001\u0000\u0000\u0000I\u00da\u0001\u0000"+
+		"\u0000\u0000K\u00e4\u0001\u0000\u0000\u0000MN\u0005I\u0000\u0000NO\u0005"+
+		"M\u0000\u0000OP\u0005P\u0000\u0000PQ\u0005O\u0000\u0000QR\u0005R\u0000"+
+		"\u0000RS\u0005T\u0000\u0000S\u0002\u0001\u0000\u0000\u0000TU\u0005;\u0000"+
+		"\u0000U\u0004\u0001\u0000\u0000\u0000VW\u0005D\u0000\u0000WX\u0005E\u0000"+
+		"\u0000XY\u0005F\u0000\u0000Y\u0006\u0001\u0000\u0000\u0000Z[\u0005[\u0000"+
+		"\u0000[\b\u0001\u0000\u0000\u0000\\]\u0005]\u0000\u0000]\n\u0001\u0000"+
+		"\u0000\u0000^_\u0005<\u0000\u0000_`\u0005-\u0000\u0000`\f\u0001\u0000"+
+		"\u0000\u0000ab\u0005W\u0000\u0000bc\u0005R\u0000\u0000cd\u0005I\u0000"+
+		"\u0000de\u0005T\u0000\u0000ef\u0005E\u0000\u0000f\u000e\u0001\u0000\u0000"+
+		"\u0000gh\u0005(\u0000\u0000h\u0010\u0001\u0000\u0000\u0000ij\u0005,\u0000"+
+		"\u0000j\u0012\u0001\u0000\u0000\u0000kl\u0005)\u0000\u0000l\u0014\u0001"+
+		"\u0000\u0000\u0000mn\u0005R\u0000\u0000no\u0005E\u0000\u0000op\u0005A"+
+		"\u0000\u0000pq\u0005D\u0000\u0000q\u0016\u0001\u0000\u0000\u0000rs\u0005"+
+		"E\u0000\u0000st\u0005X\u0000\u0000tu\u0005P\u0000\u0000uv\u0005O\u0000"+
+		"\u0000vw\u0005R\u0000\u0000wx\u0005T\u0000\u0000x\u0018\u0001\u0000\u0000"+
+		"\u0000yz\u0005{\u0000\u0000z\u001a\u0001\u0000\u0000\u0000{|\u0005}\u0000"+
+		"\u0000|\u001c\u0001\u0000\u0000\u0000}~\u0005W\u0000\u0000~\u007f\u0005"+
+		"H\u0000\u0000\u007f\u0080\u0005I\u0000\u0000\u0080\u0081\u0005L\u0000"+
+		"\u0000\u0081\u0082\u0005E\u0000\u0000\u0082\u001e\u0001\u0000\u0000\u0000"+
+		"\u0083\u0084\u0005R\u0000\u0000\u0084\u0085\u0005E\u0000\u0000\u0085\u0086"+
+		"\u0005P\u0000\u0000\u0086\u0087\u0005E\u0000\u0000\u0087\u0088\u0005A"+
+		"\u0000\u0000\u0088\u0089\u0005T\u0000\u0000\u0089 \u0001\u0000\u0000\u0000"+
+		"\u008a\u008b\u0005I\u0000\u0000\u008b\u008c\u0005F\u0000\u0000\u008c\""+
+		"\u0001\u0000\u0000\u0000\u008d\u008e\u0005E\u0000\u0000\u008e\u008f\u0005"+
+		"L\u0000\u0000\u008f\u0090\u0005S\u0000\u0000\u0090\u0091\u0005E\u0000"+
+		"\u0000\u0091$\u0001\u0000\u0000\u0000\u0092\u0093\u0005<\u0000\u0000\u0093"+
+		"&\u0001\u0000\u0000\u0000\u0094\u0095\u0005<\u0000\u0000\u0095\u0096\u0005"+
+		"=\u0000\u0000\u0096(\u0001\u0000\u0000\u0000\u0097\u0098\u0005>\u0000"+
+		"\u0000\u0098*\u0001\u0000\u0000\u0000\u0099\u009a\u0005>\u0000\u0000\u009a"+
+		"\u009b\u0005=\u0000\u0000\u009b,\u0001\u0000\u0000\u0000\u009c\u009d\u0005"+
+		"=\u0000\u0000\u009d\u009e\u0005=\u0000\u0000\u009e.\u0001\u0000\u0000"+
+		"\u0000\u009f\u00a0\u0005!\u0000\u0000\u00a0\u00a1\u0005=\u0000\u0000\u00a1"+
+		"0\u0001\u0000\u0000\u0000\u00a2\u00a3\u0005*\u0000\u0000\u00a32\u0001"+
+		"\u0000\u0000\u0000\u00a4\u00a5\u0005/\u0000\u0000\u00a54\u0001\u0000\u0000"+
+		"\u0000\u00a6\u00a7\u0005+\u0000\u0000\u00a76\u0001\u0000\u0000\u0000\u00a8"+
+		"\u00a9\u0005-\u0000\u0000\u00a98\u0001\u0000\u0000\u0000\u00aa\u00ab\u0005"+
+		"S\u0000\u0000\u00ab\u00ac\u0005U\u0000\u0000\u00ac\u00ad\u0005M\u0000"+
+		"\u0000\u00ad:\u0001\u0000\u0000\u0000\u00ae\u00af\u0005M\u0000\u0000\u00af"+
+		"\u00b0\u0005I\u0000\u0000\u00b0\u00b1\u0005N\u0000\u0000\u00b1<\u0001"+
+		"\u0000\u0000\u0000\u00b2\u00b3\u0005M\u0000\u0000\u00b3\u00b4\u0005A\u0000"+
+		"\u0000\u00b4\u00b5\u0005X\u0000\u0000\u00b5>\u0001\u0000\u0000\u0000\u00b6"+
+		"\u00b7\u0005A\u0000\u0000\u00b7\u00b8\u0005V\u0000\u0000\u00b8\u00b9\u0005"+
+		"G\u0000\u0000\u00b9@\u0001\u0000\u0000\u0000\u00ba\u00bb\u0005C\u0000"+
+		"\u0000\u00bb\u00bc\u0005O\u0000\u0000\u00bc\u00bd\u0005U\u0000\u0000\u00bd"+
+		"\u00be\u0005N\u0000\u0000\u00be\u00bf\u0005T\u0000\u0000\u00bfB\u0001"+
+		"\u0000\u0000\u0000\u00c0\u00c1\u0005I\u0000\u0000\u00c1\u00c2\u0005N\u0000"+
+		"\u0000\u00c2\u00c3\u0005P\u0000\u0000\u00c3\u00c4\u0005U\u0000\u0000\u00c4"+
+		"\u00c5\u0005T\u0000\u0000\u00c5D\u0001\u0000\u0000\u0000\u00c6\u00ca\u0007"+
+		"\u0000\u0000\u0000\u00c7\u00c9\u0007\u0001\u0000\u0000\u00c8\u00c7\u0001"+
+		"\u0000\u0000\u0000\u00c9\u00cc\u0001\u0000\u0000\u0000\u00ca\u00c8\u0001"+
+		"\u0000\u0000\u0000\u00ca\u00cb\u0001\u0000\u0000\u0000\u00cbF\u0001\u0000"+
+		"\u0000\u0000\u00cc\u00ca\u0001\u0000\u0000\u0000\u00cd\u00cf\u0007\u0002"+
+		"\u0000\u0000\u00ce\u00cd\u0001\u0000\u0000\u0000\u00cf\u00d0\u0001\u0000"+
+		"\u0000\u0000\u00d0\u00ce\u0001\u0000\u0000\u0000\u00d0\u00d1\u0001\u0000"+
+		"\u0000\u0000\u00d1\u00d8\u0001\u0000\u0000\u0000\u00d2\u00d4\u0005.\u0000"+
+		"\u0000\u00d3\u00d5\u0007\u0002\u0000\u0000\u00d4\u00d3\u0001\u0000\u0000"+
+		"\u0000\u00d5\u00d6\u0001\u0000\u0000\u0000\u00d6\u00d4\u0001\u0000\u0000"+
+		"\u0000\u00d6\u00d7\u0001\u0000\u0000\u0000\u00d7\u00d9\u0001\u0000\u0000"+
+		"\u0000\u00d8\u00d2\u0001\u0000\u0000\u0000\u00d8\u00d9\u0001\u0000\u0000"+
+		"\u0000\u00d9H\u0001\u0000\u0000\u0000\u00da\u00de\u0005\"\u0000\u0000"+
+		"\u00db\u00dd\t\u0000\u0000\u0000\u00dc\u00db\u0001\u0000\u0000\u0000\u00dd"+
+		"\u00e0\u0001\u0000\u0000\u0000\u00de\u00df\u0001\u0000\u0000\u0000\u00de"+
+		"\u00dc\u0001\u0000\u0000\u0000\u00df\u00e1\u0001\u0000\u0000\u0000\u00e0"+
+		"\u00de\u0001\u0000\u0000\u0000\u00e1\u00e2\u0005\"\u0000\u0000\u00e2J"+
+		"\u0001\u0000\u0000\u0000\u00e3\u00e5\u0007\u0003\u0000\u0000\u00e4\u00e3"+
+		"\u0001\u0000\u0000\u0000\u00e5\u00e6\u0001\u0000\u0000\u0000\u00e6\u00e4"+
+		"\u0001\u0000\u0000\u0000\u00e6\u00e7\u0001\u0000\u0000\u0000\u00e7\u00e8"+
+		"\u0001\u0000\u0000\u0000\u00e8\u00e9\u0006%\u0000\u0000\u00e9L\u0001\u0000"+
+		"\u0000\u0000\u0007\u0000\u00ca\u00d0\u00d6\u00d8\u00de\u00e6\u0001\u0006"+
+		"\u0000\u0000";
 	public static final ATN _ATN =
 		new ATNDeserializer().deserialize(_serializedATN.toCharArray());
 	static {
@@ -16,6 +16,16 @@ public interface CustomLangListener extends ParseTreeListener {
 	 * @param ctx the parse tree
 	 */
 	void exitProgram(CustomLangParser.ProgramContext ctx);
+	/**
+	 * Enter a parse tree produced by {@link CustomLangParser#importStmt}.
+	 * @param ctx the parse tree
+	 */
+	void enterImportStmt(CustomLangParser.ImportStmtContext ctx);
+	/**
+	 * Exit a parse tree produced by {@link CustomLangParser#importStmt}.
+	 * @param ctx the parse tree
+	 */
+	void exitImportStmt(CustomLangParser.ImportStmtContext ctx);
 	/**
 	 * Enter a parse tree produced by {@link CustomLangParser#statement}.
 	 * @param ctx the parse tree
@@ -66,6 +76,66 @@ public interface CustomLangListener extends ParseTreeListener {
 	 * @param ctx the parse tree
 	 */
 	void exitScanStmt(CustomLangParser.ScanStmtContext ctx);
+	/**
+	 * Enter a parse tree produced by {@link CustomLangParser#exportStmt}.
+	 * @param ctx the parse tree
+	 */
+	void enterExportStmt(CustomLangParser.ExportStmtContext ctx);
+	/**
+	 * Exit a parse tree produced by {@link CustomLangParser#exportStmt}.
+	 * @param ctx the parse tree
+	 */
+	void exitExportStmt(CustomLangParser.ExportStmtContext ctx);
+	/**
+	 * Enter a parse tree produced by {@link CustomLangParser#block}.
+	 * @param ctx the parse tree
+	 */
+	void enterBlock(CustomLangParser.BlockContext ctx);
+	/**
+	 * Exit a parse tree produced by {@link CustomLangParser#block}.
+	 * @param ctx the parse tree
+	 */
+	void exitBlock(CustomLangParser.BlockContext ctx);
+	/**
+	 * Enter a parse tree produced by {@link CustomLangParser#whileStmt}.
+	 * @param ctx the parse tree
+	 */
+	void enterWhileStmt(CustomLangParser.WhileStmtContext ctx);
+	/**
+	 * Exit a parse tree produced by {@link CustomLangParser#whileStmt}.
+	 * @param ctx the parse tree
+	 */
+	void exitWhileStmt(CustomLangParser.WhileStmtContext ctx);
+	/**
+	 * Enter a parse tree produced by {@link CustomLangParser#repeatStmt}.
+	 * @param ctx the parse tree
+	 */
+	void enterRepeatStmt(CustomLangParser.RepeatStmtContext ctx);
+	/**
+	 * Exit a parse tree produced by {@link CustomLangParser#repeatStmt}.
+	 * @param ctx the parse tree
+	 */
+	void exitRepeatStmt(CustomLangParser.RepeatStmtContext ctx);
+	/**
+	 * Enter a parse tree produced by {@link CustomLangParser#ifStmt}.
+	 * @param ctx the parse tree
+	 */
+	void enterIfStmt(CustomLangParser.IfStmtContext ctx);
+	/**
+	 * Exit a parse tree produced by {@link CustomLangParser#ifStmt}.
+	 * @param ctx the parse tree
+	 */
+	void exitIfStmt(CustomLangParser.IfStmtContext ctx);
+	/**
+	 * Enter a parse tree produced by {@link CustomLangParser#condition}.
+	 * @param ctx the parse tree
+	 */
+	void enterCondition(CustomLangParser.ConditionContext ctx);
+	/**
+	 * Exit a parse tree produced by {@link CustomLangParser#condition}.
+	 * @param ctx the parse tree
+	 */
+	void exitCondition(CustomLangParser.ConditionContext ctx);
 	/**
 	 * Enter a parse tree produced by {@link CustomLangParser#expr}.
 	 * @param ctx the parse tree
@@ -17,29 +17,39 @@ public class CustomLangParser extends Parser {
 		new PredictionContextCache();
 	public static final int
 		T__0=1, T__1=2, T__2=3, T__3=4, T__4=5, T__5=6, T__6=7, T__7=8, T__8=9, 
-		T__9=10, T__10=11, T__11=12, ID=13, NUMBER=14, STRING=15, WS=16;
+		T__9=10, T__10=11, T__11=12, T__12=13, T__13=14, T__14=15, T__15=16, T__16=17, 
+		T__17=18, T__18=19, T__19=20, T__20=21, T__21=22, T__22=23, T__23=24, 
+		T__24=25, T__25=26, T__26=27, T__27=28, T__28=29, T__29=30, T__30=31, 
+		T__31=32, T__32=33, T__33=34, ID=35, NUMBER=36, STRING=37, WS=38;
 	public static final int
-		RULE_program = 0, RULE_statement = 1, RULE_declaration = 2, RULE_assignment = 3, 
-		RULE_printStmt = 4, RULE_scanStmt = 5, RULE_expr = 6;
+		RULE_program = 0, RULE_importStmt = 1, RULE_statement = 2, RULE_declaration = 3, 
+		RULE_assignment = 4, RULE_printStmt = 5, RULE_scanStmt = 6, RULE_exportStmt = 7, 
+		RULE_block = 8, RULE_whileStmt = 9, RULE_repeatStmt = 10, RULE_ifStmt = 11, 
+		RULE_condition = 12, RULE_expr = 13;
 	private static String[] makeRuleNames() {
 		return new String[] {
-			"program", "statement", "declaration", "assignment", "printStmt", "scanStmt", 
-			"expr"
+			"program", "importStmt", "statement", "declaration", "assignment", "printStmt", 
+			"scanStmt", "exportStmt", "block", "whileStmt", "repeatStmt", "ifStmt", 
+			"condition", "expr"
 		};
 	}
 	public static final String[] ruleNames = makeRuleNames();
 
 	private static String[] makeLiteralNames() {
 		return new String[] {
-			null, "';'", "'DEF'", "'<-'", "'WRITE'", "'('", "','", "')'", "'READ'", 
-			"'*'", "'/'", "'+'", "'-'"
+			null, "'IMPORT'", "';'", "'DEF'", "'['", "']'", "'<-'", "'WRITE'", "'('", 
+			"','", "')'", "'READ'", "'EXPORT'", "'{'", "'}'", "'WHILE'", "'REPEAT'", 
+			"'IF'", "'ELSE'", "'<'", "'<='", "'>'", "'>='", "'=='", "'!='", "'*'", 
+			"'/'", "'+'", "'-'", "'SUM'", "'MIN'", "'MAX'", "'AVG'", "'COUNT'", "'INPUT'"
 		};
 	}
 	private static final String[] _LITERAL_NAMES = makeLiteralNames();
 	private static String[] makeSymbolicNames() {
 		return new String[] {
 			null, null, null, null, null, null, null, null, null, null, null, null, 
-			null, "ID", "NUMBER", "STRING", "WS"
+			null, null, null, null, null, null, null, null, null, null, null, null, 
+			null, null, null, null, null, null, null, null, null, null, null, "ID", 
+			"NUMBER", "STRING", "WS"
 		};
 	}
 	private static final String[] _SYMBOLIC_NAMES = makeSymbolicNames();
@@ -95,6 +105,12 @@ public class CustomLangParser extends Parser {
 
 	@SuppressWarnings("CheckReturnValue")
 	public static class ProgramContext extends ParserRuleContext {
+		public List<ImportStmtContext> importStmt() {
+			return getRuleContexts(ImportStmtContext.class);
+		}
+		public ImportStmtContext importStmt(int i) {
+			return getRuleContext(ImportStmtContext.class,i);
+		}
 		public List<StatementContext> statement() {
 			return getRuleContexts(StatementContext.class);
 		}
@@ -127,20 +143,81 @@ public class CustomLangParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(15); 
+			setState(31);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			while (_la==T__0) {
+				{
+				{
+				setState(28);
+				importStmt();
+				}
+				}
+				setState(33);
+				_errHandler.sync(this);
+				_la = _input.LA(1);
+			}
+			setState(35); 
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			do {
 				{
 				{
-				setState(14);
+				setState(34);
 				statement();
 				}
 				}
-				setState(17); 
+				setState(37); 
 				_errHandler.sync(this);
 				_la = _input.LA(1);
-			} while ( (((_la) & ~0x3f) == 0 && ((1L << _la) & 24884L) != 0) );
+			} while ( (((_la) & ~0x3f) == 0 && ((1L << _la) & 119722449288L) != 0) );
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	@SuppressWarnings("CheckReturnValue")
+	public static class ImportStmtContext extends ParserRuleContext {
+		public TerminalNode ID() { return getToken(CustomLangParser.ID, 0); }
+		public ImportStmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_importStmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof CustomLangListener ) ((CustomLangListener)listener).enterImportStmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof CustomLangListener ) ((CustomLangListener)listener).exitImportStmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof CustomLangVisitor ) return ((CustomLangVisitor<? extends T>)visitor).visitImportStmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final ImportStmtContext importStmt() throws RecognitionException {
+		ImportStmtContext _localctx = new ImportStmtContext(_ctx, getState());
+		enterRule(_localctx, 2, RULE_importStmt);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(39);
+			match(T__0);
+			setState(40);
+			match(ID);
+			setState(41);
+			match(T__1);
 			}
 		}
 		catch (RecognitionException re) {
@@ -168,6 +245,18 @@ public class CustomLangParser extends Parser {
 		public ScanStmtContext scanStmt() {
 			return getRuleContext(ScanStmtContext.class,0);
 		}
+		public WhileStmtContext whileStmt() {
+			return getRuleContext(WhileStmtContext.class,0);
+		}
+		public RepeatStmtContext repeatStmt() {
+			return getRuleContext(RepeatStmtContext.class,0);
+		}
+		public IfStmtContext ifStmt() {
+			return getRuleContext(IfStmtContext.class,0);
+		}
+		public ExportStmtContext exportStmt() {
+			return getRuleContext(ExportStmtContext.class,0);
+		}
 		public ExprContext expr() {
 			return getRuleContext(ExprContext.class,0);
 		}
@@ -192,46 +281,74 @@ public class CustomLangParser extends Parser {
 
 	public final StatementContext statement() throws RecognitionException {
 		StatementContext _localctx = new StatementContext(_ctx, getState());
-		enterRule(_localctx, 2, RULE_statement);
+		enterRule(_localctx, 4, RULE_statement);
 		try {
-			setState(26);
+			setState(54);
 			_errHandler.sync(this);
-			switch ( getInterpreter().adaptivePredict(_input,1,_ctx) ) {
+			switch ( getInterpreter().adaptivePredict(_input,2,_ctx) ) {
 			case 1:
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(19);
+				setState(43);
 				assignment();
 				}
 				break;
 			case 2:
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(20);
+				setState(44);
 				declaration();
 				}
 				break;
 			case 3:
 				enterOuterAlt(_localctx, 3);
 				{
-				setState(21);
+				setState(45);
 				printStmt();
 				}
 				break;
 			case 4:
 				enterOuterAlt(_localctx, 4);
 				{
-				setState(22);
+				setState(46);
 				scanStmt();
 				}
 				break;
 			case 5:
 				enterOuterAlt(_localctx, 5);
 				{
-				setState(23);
+				setState(47);
+				whileStmt();
+				}
+				break;
+			case 6:
+				enterOuterAlt(_localctx, 6);
+				{
+				setState(48);
+				repeatStmt();
+				}
+				break;
+			case 7:
+				enterOuterAlt(_localctx, 7);
+				{
+				setState(49);
+				ifStmt();
+				}
+				break;
+			case 8:
+				enterOuterAlt(_localctx, 8);
+				{
+				setState(50);
+				exportStmt();
+				}
+				break;
+			case 9:
+				enterOuterAlt(_localctx, 9);
+				{
+				setState(51);
 				expr(0);
-				setState(24);
-				match(T__0);
+				setState(52);
+				match(T__1);
 				}
 				break;
 			}
@@ -250,6 +367,7 @@ public class CustomLangParser extends Parser {
 	@SuppressWarnings("CheckReturnValue")
 	public static class DeclarationContext extends ParserRuleContext {
 		public TerminalNode ID() { return getToken(CustomLangParser.ID, 0); }
+		public TerminalNode NUMBER() { return getToken(CustomLangParser.NUMBER, 0); }
 		public DeclarationContext(ParserRuleContext parent, int invokingState) {
 			super(parent, invokingState);
 		}
@@ -271,16 +389,31 @@ public class CustomLangParser extends Parser {
 
 	public final DeclarationContext declaration() throws RecognitionException {
 		DeclarationContext _localctx = new DeclarationContext(_ctx, getState());
-		enterRule(_localctx, 4, RULE_declaration);
+		enterRule(_localctx, 6, RULE_declaration);
+		int _la;
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(28);
-			match(T__1);
-			setState(29);
+			setState(56);
+			match(T__2);
+			setState(57);
 			match(ID);
-			setState(30);
-			match(T__0);
+			setState(61);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			if (_la==T__3) {
+				{
+				setState(58);
+				match(T__3);
+				setState(59);
+				match(NUMBER);
+				setState(60);
+				match(T__4);
+				}
+			}
+
+			setState(63);
+			match(T__1);
 			}
 		}
 		catch (RecognitionException re) {
@@ -321,20 +454,20 @@ public class CustomLangParser extends Parser {
 
 	public final AssignmentContext assignment() throws RecognitionException {
 		AssignmentContext _localctx = new AssignmentContext(_ctx, getState());
-		enterRule(_localctx, 6, RULE_assignment);
+		enterRule(_localctx, 8, RULE_assignment);
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(32);
-			match(T__1);
-			setState(33);
-			match(ID);
-			setState(34);
+			setState(65);
 			match(T__2);
-			setState(35);
+			setState(66);
+			match(ID);
+			setState(67);
+			match(T__5);
+			setState(68);
 			expr(0);
-			setState(36);
-			match(T__0);
+			setState(69);
+			match(T__1);
 			}
 		}
 		catch (RecognitionException re) {
@@ -375,33 +508,33 @@ public class CustomLangParser extends Parser {
 
 	public final PrintStmtContext printStmt() throws RecognitionException {
 		PrintStmtContext _localctx = new PrintStmtContext(_ctx, getState());
-		enterRule(_localctx, 8, RULE_printStmt);
+		enterRule(_localctx, 10, RULE_printStmt);
 		int _la;
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(38);
-			match(T__3);
-			setState(39);
-			match(T__4);
-			setState(40);
+			setState(71);
+			match(T__6);
+			setState(72);
+			match(T__7);
+			setState(73);
 			match(STRING);
-			setState(43);
+			setState(76);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
-			if (_la==T__5) {
+			if (_la==T__8) {
 				{
-				setState(41);
-				match(T__5);
-				setState(42);
+				setState(74);
+				match(T__8);
+				setState(75);
 				expr(0);
 				}
 			}
 
-			setState(45);
-			match(T__6);
-			setState(46);
-			match(T__0);
+			setState(78);
+			match(T__9);
+			setState(79);
+			match(T__1);
 			}
 		}
 		catch (RecognitionException re) {
@@ -439,20 +572,414 @@ public class CustomLangParser extends Parser {
 
 	public final ScanStmtContext scanStmt() throws RecognitionException {
 		ScanStmtContext _localctx = new ScanStmtContext(_ctx, getState());
-		enterRule(_localctx, 10, RULE_scanStmt);
+		enterRule(_localctx, 12, RULE_scanStmt);
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(48);
+			setState(81);
+			match(T__10);
+			setState(82);
 			match(T__7);
-			setState(49);
-			match(T__4);
-			setState(50);
+			setState(83);
 			match(ID);
-			setState(51);
-			match(T__6);
-			setState(52);
-			match(T__0);
+			setState(84);
+			match(T__9);
+			setState(85);
+			match(T__1);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	@SuppressWarnings("CheckReturnValue")
+	public static class ExportStmtContext extends ParserRuleContext {
+		public List<TerminalNode> ID() { return getTokens(CustomLangParser.ID); }
+		public TerminalNode ID(int i) {
+			return getToken(CustomLangParser.ID, i);
+		}
+		public ExportStmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_exportStmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof CustomLangListener ) ((CustomLangListener)listener).enterExportStmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof CustomLangListener ) ((CustomLangListener)listener).exitExportStmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof CustomLangVisitor ) return ((CustomLangVisitor<? extends T>)visitor).visitExportStmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final ExportStmtContext exportStmt() throws RecognitionException {
+		ExportStmtContext _localctx = new ExportStmtContext(_ctx, getState());
+		enterRule(_localctx, 14, RULE_exportStmt);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(87);
+			match(T__11);
+			setState(88);
+			match(ID);
+			setState(93);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			while (_la==T__8) {
+				{
+				{
+				setState(89);
+				match(T__8);
+				setState(90);
+				match(ID);
+				}
+				}
+				setState(95);
+				_errHandler.sync(this);
+				_la = _input.LA(1);
+			}
+			setState(96);
+			match(T__1);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	@SuppressWarnings("CheckReturnValue")
+	public static class BlockContext extends ParserRuleContext {
+		public List<StatementContext> statement() {
+			return getRuleContexts(StatementContext.class);
+		}
+		public StatementContext statement(int i) {
+			return getRuleContext(StatementContext.class,i);
+		}
+		public BlockContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_block; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof CustomLangListener ) ((CustomLangListener)listener).enterBlock(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof CustomLangListener ) ((CustomLangListener)listener).exitBlock(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof CustomLangVisitor ) return ((CustomLangVisitor<? extends T>)visitor).visitBlock(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final BlockContext block() throws RecognitionException {
+		BlockContext _localctx = new BlockContext(_ctx, getState());
+		enterRule(_localctx, 16, RULE_block);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(98);
+			match(T__12);
+			setState(102);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			while ((((_la) & ~0x3f) == 0 && ((1L << _la) & 119722449288L) != 0)) {
+				{
+				{
+				setState(99);
+				statement();
+				}
+				}
+				setState(104);
+				_errHandler.sync(this);
+				_la = _input.LA(1);
+			}
+			setState(105);
+			match(T__13);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	@SuppressWarnings("CheckReturnValue")
+	public static class WhileStmtContext extends ParserRuleContext {
+		public ConditionContext condition() {
+			return getRuleContext(ConditionContext.class,0);
+		}
+		public BlockContext block() {
+			return getRuleContext(BlockContext.class,0);
+		}
+		public WhileStmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_whileStmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof CustomLangListener ) ((CustomLangListener)listener).enterWhileStmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof CustomLangListener ) ((CustomLangListener)listener).exitWhileStmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof CustomLangVisitor ) return ((CustomLangVisitor<? extends T>)visitor).visitWhileStmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final WhileStmtContext whileStmt() throws RecognitionException {
+		WhileStmtContext _localctx = new WhileStmtContext(_ctx, getState());
+		enterRule(_localctx, 18, RULE_whileStmt);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(107);
+			match(T__14);
+			setState(108);
+			match(T__7);
+			setState(109);
+			condition();
+			setState(110);
+			match(T__9);
+			setState(111);
+			block();
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	@SuppressWarnings("CheckReturnValue")
+	public static class RepeatStmtContext extends ParserRuleContext {
+		public ExprContext expr() {
+			return getRuleContext(ExprContext.class,0);
+		}
+		public BlockContext block() {
+			return getRuleContext(BlockContext.class,0);
+		}
+		public RepeatStmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_repeatStmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof CustomLangListener ) ((CustomLangListener)listener).enterRepeatStmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof CustomLangListener ) ((CustomLangListener)listener).exitRepeatStmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof CustomLangVisitor ) return ((CustomLangVisitor<? extends T>)visitor).visitRepeatStmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final RepeatStmtContext repeatStmt() throws RecognitionException {
+		RepeatStmtContext _localctx = new RepeatStmtContext(_ctx, getState());
+		enterRule(_localctx, 20, RULE_repeatStmt);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(113);
+			match(T__15);
+			setState(114);
+			expr(0);
+			setState(115);
+			block();
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	@SuppressWarnings("CheckReturnValue")
+	public static class IfStmtContext extends ParserRuleContext {
+		public ConditionContext condition() {
+			return getRuleContext(ConditionContext.class,0);
+		}
+		public List<BlockContext> block() {
+			return getRuleContexts(BlockContext.class);
+		}
+		public BlockContext block(int i) {
+			return getRuleContext(BlockContext.class,i);
+		}
+		public IfStmtContext ifStmt() {
+			return getRuleContext(IfStmtContext.class,0);
+		}
+		public IfStmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_ifStmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof CustomLangListener ) ((CustomLangListener)listener).enterIfStmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof CustomLangListener ) ((CustomLangListener)listener).exitIfStmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof CustomLangVisitor ) return ((CustomLangVisitor<? extends T>)visitor).visitIfStmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final IfStmtContext ifStmt() throws RecognitionException {
+		IfStmtContext _localctx = new IfStmtContext(_ctx, getState());
+		enterRule(_localctx, 22, RULE_ifStmt);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(117);
+			match(T__16);
+			setState(118);
+			match(T__7);
+			setState(119);
+			condition();
+			setState(120);
+			match(T__9);
+			setState(121);
+			block();
+			setState(127);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			if (_la==T__17) {
+				{
+				setState(122);
+				match(T__17);
+				setState(125);
+				_errHandler.sync(this);
+				switch (_input.LA(1)) {
+				case T__12:
+					{
+					setState(123);
+					block();
+					}
+					break;
+				case T__16:
+					{
+					setState(124);
+					ifStmt();
+					}
+					break;
+				default:
+					throw new NoViableAltException(this);
+				}
+				}
+			}
+
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	@SuppressWarnings("CheckReturnValue")
+	public static class ConditionContext extends ParserRuleContext {
+		public Token op;
+		public List<ExprContext> expr() {
+			return getRuleContexts(ExprContext.class);
+		}
+		public ExprContext expr(int i) {
+			return getRuleContext(ExprContext.class,i);
+		}
+		public ConditionContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_condition; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof CustomLangListener ) ((CustomLangListener)listener).enterCondition(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof CustomLangListener ) ((CustomLangListener)listener).exitCondition(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof CustomLangVisitor ) return ((CustomLangVisitor<? extends T>)visitor).visitCondition(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final ConditionContext condition() throws RecognitionException {
+		ConditionContext _localctx = new ConditionContext(_ctx, getState());
+		enterRule(_localctx, 24, RULE_condition);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(129);
+			expr(0);
+			setState(130);
+			((ConditionContext)_localctx).op = _input.LT(1);
+			_la = _input.LA(1);
+			if ( !((((_la) & ~0x3f) == 0 && ((1L << _la) & 33030144L) != 0)) ) {
+				((ConditionContext)_localctx).op = (Token)_errHandler.recoverInline(this);
+			}
+			else {
+				if ( _input.LA(1)==Token.EOF ) matchedEOF = true;
+				_errHandler.reportMatch(this);
+				consume();
+			}
+			setState(131);
+			expr(0);
 			}
 		}
 		catch (RecognitionException re) {
@@ -468,6 +995,7 @@ public class CustomLangParser extends Parser {
 
 	@SuppressWarnings("CheckReturnValue")
 	public static class ExprContext extends ParserRuleContext {
+		public Token aggregate;
 		public Token op;
 		public List<ExprContext> expr() {
 			return getRuleContexts(ExprContext.class);
@@ -505,35 +1033,60 @@ public class CustomLangParser extends Parser {
 		int _parentState = getState();
 		ExprContext _localctx = new ExprContext(_ctx, _parentState);
 		ExprContext _prevctx = _localctx;
-		int _startState = 12;
-		enterRecursionRule(_localctx, 12, RULE_expr, _p);
+		int _startState = 26;
+		enterRecursionRule(_localctx, 26, RULE_expr, _p);
 		int _la;
 		try {
 			int _alt;
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(61);
+			setState(144);
 			_errHandler.sync(this);
 			switch (_input.LA(1)) {
-			case T__4:
+			case T__7:
 				{
-				setState(55);
-				match(T__4);
-				setState(56);
+				setState(134);
+				match(T__7);
+				setState(135);
 				expr(0);
-				setState(57);
-				match(T__6);
+				setState(136);
+				match(T__9);
+				}
+				break;
+			case T__28:
+			case T__29:
+			case T__30:
+			case T__31:
+			case T__32:
+				{
+				setState(138);
+				((ExprContext)_localctx).aggregate = _input.LT(1);
+				_la = _input.LA(1);
+				if ( !((((_la) & ~0x3f) == 0 && ((1L << _la) & 16642998272L) != 0)) ) {
+					((ExprContext)_localctx).aggregate = (Token)_errHandler.recoverInline(this);
+				}
+				else {
+					if ( _input.LA(1)==Token.EOF ) matchedEOF = true;
+					_errHandler.reportMatch(this);
+					consume();
+				}
+				setState(139);
+				match(T__7);
+				setState(140);
+				match(T__33);
+				setState(141);
+				match(T__9);
 				}
 				break;
 			case NUMBER:
 				{
-				setState(59);
+				setState(142);
 				match(NUMBER);
 				}
 				break;
 			case ID:
 				{
-				setState(60);
+				setState(143);
 				match(ID);
 				}
 				break;
@@ -541,27 +1094,27 @@ public class CustomLangParser extends Parser {
 				throw new NoViableAltException(this);
 			}
 			_ctx.stop = _input.LT(-1);
-			setState(71);
+			setState(154);
 			_errHandler.sync(this);
-			_alt = getInterpreter().adaptivePredict(_input,5,_ctx);
+			_alt = getInterpreter().adaptivePredict(_input,11,_ctx);
 			while ( _alt!=2 && _alt!=org.antlr.v4.runtime.atn.ATN.INVALID_ALT_NUMBER ) {
 				if ( _alt==1 ) {
 					if ( _parseListeners!=null ) triggerExitRuleEvent();
 					_prevctx = _localctx;
 					{
-					setState(69);
+					setState(152);
 					_errHandler.sync(this);
-					switch ( getInterpreter().adaptivePredict(_input,4,_ctx) ) {
+					switch ( getInterpreter().adaptivePredict(_input,10,_ctx) ) {
 					case 1:
 						{
 						_localctx = new ExprContext(_parentctx, _parentState);
 						pushNewRecursionContext(_localctx, _startState, RULE_expr);
-						setState(63);
-						if (!(precpred(_ctx, 5))) throw new FailedPredicateException(this, "precpred(_ctx, 5)");
-						setState(64);
+						setState(146);
+						if (!(precpred(_ctx, 6))) throw new FailedPredicateException(this, "precpred(_ctx, 6)");
+						setState(147);
 						((ExprContext)_localctx).op = _input.LT(1);
 						_la = _input.LA(1);
-						if ( !(_la==T__8 || _la==T__9) ) {
+						if ( !(_la==T__24 || _la==T__25) ) {
 							((ExprContext)_localctx).op = (Token)_errHandler.recoverInline(this);
 						}
 						else {
@@ -569,20 +1122,20 @@ public class CustomLangParser extends Parser {
 							_errHandler.reportMatch(this);
 							consume();
 						}
-						setState(65);
-						expr(6);
+						setState(148);
+						expr(7);
 						}
 						break;
 					case 2:
 						{
 						_localctx = new ExprContext(_parentctx, _parentState);
 						pushNewRecursionContext(_localctx, _startState, RULE_expr);
-						setState(66);
-						if (!(precpred(_ctx, 4))) throw new FailedPredicateException(this, "precpred(_ctx, 4)");
-						setState(67);
+						setState(149);
+						if (!(precpred(_ctx, 5))) throw new FailedPredicateException(this, "precpred(_ctx, 5)");
+						setState(150);
 						((ExprContext)_localctx).op = _input.LT(1);
 						_la = _input.LA(1);
-						if ( !(_la==T__10 || _la==T__11) ) {
+						if ( !(_la==T__26 || _la==T__27) ) {
 							((ExprContext)_localctx).op = (Token)_errHandler.recoverInline(this);
 						}
 						else {
@@ -590,16 +1143,16 @@ public class CustomLangParser extends Parser {
 							_errHandler.reportMatch(this);
 							consume();
 						}
-						setState(68);
-						expr(5);
+						setState(151);
+						expr(6);
 						}
 						break;
 					}
 					} 
 				}
-				setState(73);
+				setState(156);
 				_errHandler.sync(this);
-				_alt = getInterpreter().adaptivePredict(_input,5,_ctx);
+				_alt = getInterpreter().adaptivePredict(_input,11,_ctx);
 			}
 			}
 		}
@@ -616,7 +1169,7 @@ public class CustomLangParser extends Parser {
 
 	public boolean sempred(RuleContext _localctx, int ruleIndex, int predIndex) {
 		switch (ruleIndex) {
-		case 6:
+		case 13:
 			return expr_sempred((ExprContext)_localctx, predIndex);
 		}
 		return true;
@@ -624,60 +1177,105 @@ public class CustomLangParser extends Parser {
 	private boolean expr_sempred(ExprContext _localctx, int predIndex) {
 		switch (predIndex) {
 		case 0:
-			return precpred(_ctx, 5);
+			return precpred(_ctx, 6);
 		case 1:
-			return precpred(_ctx, 4);
+			return precpred(_ctx, 5);
 		}
 		return true;
 	}
 
 	public static final String _serializedATN =
-		"\u0004\u0001\u0010K\u0002\u0000\u0007\u0000\u0002\u0001\u0007\u0001\u0002"+
+		"\u0004\u0001&\u009e\u0002\u0000\u0007\u0000\u0002\u0001\u0007\u0001\u0002"+
 		"\u0002\u0007\u0002\u0002\u0003\u0007\u0003\u0002\u0004\u0007\u0004\u0002"+
-		"\u0005\u0007\u0005\u0002\u0006\u0007\u0006\u0001\u0000\u0004\u0000\u0010"+
-		"\b\u0000\u000b\u0000\f\u0000\u0011\u0001\u0001\u0001\u0001\u0001\u0001"+
-		"\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0003\u0001\u001b\b\u0001"+
-		"\u0001\u0002\u0001\u0002\u0001\u0002\u0001\u0002\u0001\u0003\u0001\u0003"+
-		"\u0001\u0003\u0001\u0003\u0001\u0003\u0001\u0003\u0001\u0004\u0001\u0004"+
-		"\u0001\u0004\u0001\u0004\u0001\u0004\u0003\u0004,\b\u0004\u0001\u0004"+
+		"\u0005\u0007\u0005\u0002\u0006\u0007\u0006\u0002\u0007\u0007\u0007\u0002"+
+		"\b\u0007\b\u0002\t\u0007\t\u0002\n\u0007\n\u0002\u000b\u0007\u000b\u0002"+
+		"\f\u0007\f\u0002\r\u0007\r\u0001\u0000\u0005\u0000\u001e\b\u0000\n\u0000"+
+		"\f\u0000!\t\u0000\u0001\u0000\u0004\u0000$\b\u0000\u000b\u0000\f\u0000"+
+		"%\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0002\u0001\u0002"+
+		"\u0001\u0002\u0001\u0002\u0001\u0002\u0001\u0002\u0001\u0002\u0001\u0002"+
+		"\u0001\u0002\u0001\u0002\u0001\u0002\u0003\u00027\b\u0002\u0001\u0003"+
+		"\u0001\u0003\u0001\u0003\u0001\u0003\u0001\u0003\u0003\u0003>\b\u0003"+
+		"\u0001\u0003\u0001\u0003\u0001\u0004\u0001\u0004\u0001\u0004\u0001\u0004"+
 		"\u0001\u0004\u0001\u0004\u0001\u0005\u0001\u0005\u0001\u0005\u0001\u0005"+
-		"\u0001\u0005\u0001\u0005\u0001\u0006\u0001\u0006\u0001\u0006\u0001\u0006"+
-		"\u0001\u0006\u0001\u0006\u0001\u0006\u0003\u0006>\b\u0006\u0001\u0006"+
-		"\u0001\u0006\u0001\u0006\u0001\u0006\u0001\u0006\u0001\u0006\u0005\u0006"+
-		"F\b\u0006\n\u0006\f\u0006I\t\u0006\u0001\u0006\u0000\u0001\f\u0007\u0000"+
-		"\u0002\u0004\u0006\b\n\f\u0000\u0002\u0001\u0000\t\n\u0001\u0000\u000b"+
-		"\fM\u0000\u000f\u0001\u0000\u0000\u0000\u0002\u001a\u0001\u0000\u0000"+
-		"\u0000\u0004\u001c\u0001\u0000\u0000\u0000\u0006 \u0001\u0000\u0000\u0000"+
-		"\b&\u0001\u0000\u0000\u0000\n0\u0001\u0000\u0000\u0000\f=\u0001\u0000"+
-		"\u0000\u0000\u000e\u0010\u0003\u0002\u0001\u0000\u000f\u000e\u0001\u0000"+
-		"\u0000\u0000\u0010\u0011\u0001\u0000\u0000\u0000\u0011\u000f\u0001\u0000"+
-		"\u0000\u0000\u0011\u0012\u0001\u0000\u0000\u0000\u0012\u0001\u0001\u0000"+
-		"\u0000\u0000\u0013\u001b\u0003\u0006\u0003\u0000\u0014\u001b\u0003\u0004"+
-		"\u0002\u0000\u0015\u001b\u0003\b\u0004\u0000\u0016\u001b\u0003\n\u0005"+
-		"\u0000\u0017\u0018\u0003\f\u0006\u0000\u0018\u0019\u0005\u0001\u0000\u0000"+
-		"\u0019\u001b\u0001\u0000\u0000\u0000\u001a\u0013\u0001\u0000\u0000\u0000"+
-		"\u001a\u0014\u0001\u0000\u0000\u0000\u001a\u0015\u0001\u0000\u0000\u0000"+
-		"\u001a\u0016\u0001\u0000\u0000\u0000\u001a\u0017\u0001\u0000\u0000\u0000"+
-		"\u001b\u0003\u0001\u0000\u0000\u0000\u001c\u001d\u0005\u0002\u0000\u0000"+
-		"\u001d\u001e\u0005\r\u0000\u0000\u001e\u001f\u0005\u0001\u0000\u0000\u001f"+
-		"\u0005\u0001\u0000\u0000\u0000 !\u0005\u0002\u0000\u0000!\"\u0005\r\u0000"+
-		"\u0000\"#\u0005\u0003\u0000\u0000#$\u0003\f\u0006\u0000$%\u0005\u0001"+
-		"\u0000\u0000%\u0007\u0001\u0000\u0000\u0000&\'\u0005\u0004\u0000\u0000"+
-		"\'(\u0005\u0005\u0000\u0000(+\u0005\u000f\u0000\u0000)*\u0005\u0006\u0000"+
-		"\u0000*,\u0003\f\u0006\u0000+)\u0001\u0000\u0000\u0000+,\u0001\u0000\u0000"+
-		"\u0000,-\u0001\u0000\u0000\u0000-.\u0005\u0007\u0000\u0000./\u0005\u0001"+
-		"\u0000\u0000/\t\u0001\u0000\u0000\u000001\u0005\b\u0000\u000012\u0005"+
-		"\u0005\u0000\u000023\u0005\r\u0000\u000034\u0005\u0007\u0000\u000045\u0005"+
-		"\u0001\u0000\u00005\u000b\u0001\u0000\u0000\u000067\u0006\u0006\uffff"+
-		"\uffff\u000078\u0005\u0005\u0000\u000089\u0003\f\u0006\u00009:\u0005\u0007"+
-		"\u0000\u0000:>\u0001\u0000\u0000\u0000;>\u0005\u000e\u0000\u0000<>\u0005"+
-		"\r\u0000\u0000=6\u0001\u0000\u0000\u0000=;\u0001\u0000\u0000\u0000=<\u0001"+
-		"\u0000\u0000\u0000>G\u0001\u0000\u0000\u0000?@\n\u0005\u0000\u0000@A\u0007"+
-		"\u0000\u0000\u0000AF\u0003\f\u0006\u0006BC\n\u0004\u0000\u0000CD\u0007"+
-		"\u0001\u0000\u0000DF\u0003\f\u0006\u0005E?\u0001\u0000\u0000\u0000EB\u0001"+
-		"\u0000\u0000\u0000FI\u0001\u0000\u0000\u0000GE\u0001\u0000\u0000\u0000"+
-		"GH\u0001\u0000\u0000\u0000H\r\u0001\u0000\u0000\u0000IG\u0001\u0000\u0000"+
-		"\u0000\u0006\u0011\u001a+=EG";
+		"\u0001\u0005\u0003\u0005M\b\u0005\u0001\u0005\u0001\u0005\u0001\u0005"+
+		"\u0001\u0006\u0001\u0006\u0001\u0006\u0001\u0006\u0001\u0006\u0001\u0006"+
+		"\u0001\u0007\u0001\u0007\u0001\u0007\u0001\u0007\u0005\u0007\\\b\u0007"+
+		"\n\u0007\f\u0007_\t\u0007\u0001\u0007\u0001\u0007\u0001\b\u0001\b\u0005"+
+		"\be\b\b\n\b\f\bh\t\b\u0001\b\u0001\b\u0001\t\u0001\t\u0001\t\u0001\t\u0001"+
+		"\t\u0001\t\u0001\n\u0001\n\u0001\n\u0001\n\u0001\u000b\u0001\u000b\u0001"+
+		"\u000b\u0001\u000b\u0001\u000b\u0001\u000b\u0001\u000b\u0001\u000b\u0003"+
+		"\u000b~\b\u000b\u0003\u000b\u0080\b\u000b\u0001\f\u0001\f\u0001\f\u0001"+
+		"\f\u0001\r\u0001\r\u0001\r\u0001\r\u0001\r\u0001\r\u0001\r\u0001\r\u0001"+
+		"\r\u0001\r\u0001\r\u0003\r\u0091\b\r\u0001\r\u0001\r\u0001\r\u0001\r\u0001"+
+		"\r\u0001\r\u0005\r\u0099\b\r\n\r\f\r\u009c\t\r\u0001\r\u0000\u0001\u001a"+
+		"\u000e\u0000\u0002\u0004\u0006\b\n\f\u000e\u0010\u0012\u0014\u0016\u0018"+
+		"\u001a\u0000\u0004\u0001\u0000\u0013\u0018\u0001\u0000\u001d!\u0001\u0000"+
+		"\u0019\u001a\u0001\u0000\u001b\u001c\u00a4\u0000\u001f\u0001\u0000\u0000"+
+		"\u0000\u0002\'\u0001\u0000\u0000\u0000\u00046\u0001\u0000\u0000\u0000"+
+		"\u00068\u0001\u0000\u0000\u0000\bA\u0001\u0000\u0000\u0000\nG\u0001\u0000"+
+		"\u0000\u0000\fQ\u0001\u0000\u0000\u0000\u000eW\u0001\u0000\u0000\u0000"+
+		"\u0010b\u0001\u0000\u0000\u0000\u0012k\u0001\u0000\u0000\u0000\u0014q"+
+		"\u0001\u0000\u0000\u0000\u0016u\u0001\u0000\u0000\u0000\u0018\u0081\u0001"+
+		"\u0000\u0000\u0000\u001a\u0090\u0001\u0000\u0000\u0000\u001c\u001e\u0003"+
+		"\u0002\u0001\u0000\u001d\u001c\u0001\u0000\u0000\u0000\u001e!\u0001\u0000"+
+		"\u0000\u0000\u001f\u001d\u0001\u0000\u0000\u0000\u001f \u0001\u0000\u0000"+
+		"\u0000 #\u0001\u0000\u0000\u0000!\u001f\u0001\u0000\u0000\u0000\"$\u0003"+
+		"\u0004\u0002\u0000#\"\u0001\u0000\u0000\u0000$%\u0001\u0000\u0000\u0000"+
+		"%#\u0001\u0000\u0000\u0000%&\u0001\u0000\u0000\u0000&\u0001\u0001\u0000"+
+		"\u0000\u0000\'(\u0005\u0001\u0000\u0000()\u0005#\u0000\u0000)*\u0005\u0002"+
+		"\u0000\u0000*\u0003\u0001\u0000\u0000\u0000+7\u0003\b\u0004\u0000,7\u0003"+
+		"\u0006\u0003\u0000-7\u0003\n\u0005\u0000.7\u0003\f\u0006\u0000/7\u0003"+
+		"\u0012\t\u000007\u0003\u0014\n\u000017\u0003\u0016\u000b\u000027\u0003"+
+		"\u000e\u0007\u000034\u0003\u001a\r\u000045\u0005\u0002\u0000\u000057\u0001"+
+		"\u0000\u0000\u00006+\u0001\u0000\u0000\u00006,\u0001\u0000\u0000\u0000"+
+		"6-\u0001\u0000\u0000\u00006.\u0001\u0000\u0000\u00006/\u0001\u0000\u0000"+
+		"\u000060\u0001\u0000\u0000\u000061\u0001\u0000\u0000\u000062\u0001\u0000"+
+		"\u0000\u000063\u0001\u0000\u0000\u00007\u0005\u0001\u0000\u0000\u0000"+
+		"89\u0005\u0003\u0000\u00009=\u0005#\u0000\u0000:;\u0005\u0004\u0000\u0000"+
+		";<\u0005$\u0000\u0000<>\u0005\u0005\u0000\u0000=:\u0001\u0000\u0000\u0000"+
+		"=>\u0001\u0000\u0000\u0000>?\u0001\u0000\u0000\u0000?@\u0005\u0002\u0000"+
+		"\u0000@\u0007\u0001\u0000\u0000\u0000AB\u0005\u0003\u0000\u0000BC\u0005"+
+		"#\u0000\u0000CD\u0005\u0006\u0000\u0000DE\u0003\u001a\r\u0000EF\u0005"+
+		"\u0002\u0000\u0000F\t\u0001\u0000\u0000\u0000GH\u0005\u0007\u0000\u0000"+
+		"HI\u0005\b\u0000\u0000IL\u0005%\u0000\u0000JK\u0005\t\u0000\u0000KM\u0003"+
+		"\u001a\r\u0000LJ\u0001\u0000\u0000\u0000LM\u0001\u0000\u0000\u0000MN\u0001"+
+		"\u0000\u0000\u0000NO\u0005\n\u0000\u0000OP\u0005\u0002\u0000\u0000P\u000b"+
+		"\u0001\u0000\u0000\u0000QR\u0005\u000b\u0000\u0000RS\u0005\b\u0000\u0000"+
+		"ST\u0005#\u0000\u0000TU\u0005\n\u0000\u0000UV\u0005\u0002\u0000\u0000"+
+		"V\r\u0001\u0000\u0000\u0000WX\u0005\f\u0000\u0000X]\u0005#\u0000\u0000"+
+		"YZ\u0005\t\u0000\u0000Z\\\u0005#\u0000\u0000[Y\u0001\u0000\u0000\u0000"+
+		"\\_\u0001\u0000\u0000\u0000][\u0001\u0000\u0000\u0000]^\u0001\u0000\u0000"+
+		"\u0000^`\u0001\u0000\u0000\u0000_]\u0001\u0000\u0000\u0000`a\u0005\u0002"+
+		"\u0000\u0000a\u000f\u0001\u0000\u0000\u0000bf\u0005\r\u0000\u0000ce\u0003"+
+		"\u0004\u0002\u0000dc\u0001\u0000\u0000\u0000eh\u0001\u0000\u0000\u0000"+
+		"fd\u0001\u0000\u0000\u0000fg\u0001\u0000\u0000\u0000gi\u0001\u0000\u0000"+
+		"\u0000hf\u0001\u0000\u0000\u0000ij\u0005\u000e\u0000\u0000j\u0011\u0001"+
+		"\u0000\u0000\u0000kl\u0005\u000f\u0000\u0000lm\u0005\b\u0000\u0000mn\u0003"+
+		"\u0018\f\u0000no\u0005\n\u0000\u0000op\u0003\u0010\b\u0000p\u0013\u0001"+
+		"\u0000\u0000\u0000qr\u0005\u0010\u0000\u0000rs\u0003\u001a\r\u0000st\u0003"+
+		"\u0010\b\u0000t\u0015\u0001\u0000\u0000\u0000uv\u0005\u0011\u0000\u0000"+
+		"vw\u0005\b\u0000\u0000wx\u0003\u0018\f\u0000xy\u0005\n\u0000\u0000y\u007f"+
+		"\u0003\u0010\b\u0000z}\u0005\u0012\u0000\u0000{~\u0003\u0010\b\u0000|"+
+		"~\u0003\u0016\u000b\u0000}{\u0001\u0000\u0000\u0000}|\u0001\u0000\u0000"+
+		"\u0000~\u0080\u0001\u0000\u0000\u0000\u007fz\u0001\u0000\u0000\u0000\u007f"+
+		"\u0080\u0001\u0000\u0000\u0000\u0080\u0017\u0001\u0000\u0000\u0000\u0081"+
+		"\u0082\u0003\u001a\r\u0000\u0082\u0083\u0007\u0000\u0000\u0000\u0083\u0084"+
+		"\u0003\u001a\r\u0000\u0084\u0019\u0001\u0000\u0000\u0000\u0085\u0086\u0006"+
+		"\r\uffff\uffff\u0000\u0086\u0087\u0005\b\u0000\u0000\u0087\u0088\u0003"+
+		"\u001a\r\u0000\u0088\u0089\u0005\n\u0000\u0000\u0089\u0091\u0001\u0000"+
+		"\u0000\u0000\u008a\u008b\u0007\u0001\u0000\u0000\u008b\u008c\u0005\b\u0000"+
+		"\u0000\u008c\u008d\u0005\"\u0000\u0000\u008d\u0091\u0005\n\u0000\u0000"+
+		"\u008e\u0091\u0005$\u0000\u0000\u008f\u0091\u0005#\u0000\u0000\u0090\u0085"+
+		"\u0001\u0000\u0000\u0000\u0090\u008a\u0001\u0000\u0000\u0000\u0090\u008e"+
+		"\u0001\u0000\u0000\u0000\u0090\u008f\u0001\u0000\u0000\u0000\u0091\u009a"+
+		"\u0001\u0000\u0000\u0000\u0092\u0093\n\u0006\u0000\u0000\u0093\u0094\u0007"+
+		"\u0002\u0000\u0000\u0094\u0099\u0003\u001a\r\u0007\u0095\u0096\n\u0005"+
+		"\u0000\u0000\u0096\u0097\u0007\u0003\u0000\u0000\u0097\u0099\u0003\u001a"+
+		"\r\u0006\u0098\u0092\u0001\u0000\u0000\u0000\u0098\u0095\u0001\u0000\u0000"+
+		"\u0000\u0099\u009c\u0001\u0000\u0000\u0000\u009a\u0098\u0001\u0000\u0000"+
+		"\u0000\u009a\u009b\u0001\u0000\u0000\u0000\u009b\u001b\u0001\u0000\u0000"+
+		"\u0000\u009c\u009a\u0001\u0000\u0000\u0000\f\u001f%6=L]f}\u007f\u0090"+
+		"\u0098\u009a";
 	public static final ATN _ATN =
 		new ATNDeserializer().deserialize(_serializedATN.toCharArray());
 	static {
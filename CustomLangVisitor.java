@@ -15,6 +15,12 @@ public interface CustomLangVisitor<T> extends ParseTreeVisitor<T> {
 	 * @return the visitor result
 	 */
 	T visitProgram(CustomLangParser.ProgramContext ctx);
+	/**
+	 * Visit a parse tree produced by {@link CustomLangParser#importStmt}.
+	 * @param ctx the parse tree
+	 * @return the visitor result
+	 */
+	T visitImportStmt(CustomLangParser.ImportStmtContext ctx);
 	/**
 	 * Visit a parse tree produced by {@link CustomLangParser#statement}.
 	 * @param ctx the parse tree
@@ -45,6 +51,42 @@ public interface CustomLangVisitor<T> extends ParseTreeVisitor<T> {
 	 * @return the visitor result
 	 */
 	T visitScanStmt(CustomLangParser.ScanStmtContext ctx);
+	/**
+	 * Visit a parse tree produced by {@link CustomLangParser#exportStmt}.
+	 * @param ctx the parse tree
+	 * @return the visitor result
+	 */
+	T visitExportStmt(CustomLangParser.ExportStmtContext ctx);
+	/**
+	 * Visit a parse tree produced by {@link CustomLangParser#block}.
+	 * @param ctx the parse tree
+	 * @return the visitor result
+	 */
+	T visitBlock(CustomLangParser.BlockContext ctx);
+	/**
+	 * Visit a parse tree produced by {@link CustomLangParser#whileStmt}.
+	 * @param ctx the parse tree
+	 * @return the visitor result
+	 */
+	T visitWhileStmt(CustomLangParser.WhileStmtContext ctx);
+	/**
+	 * Visit a parse tree produced by {@link CustomLangParser#repeatStmt}.
+	 * @param ctx the parse tree
+	 * @return the visitor result
+	 */
+	T visitRepeatStmt(CustomLangParser.RepeatStmtContext ctx);
+	/**
+	 * Visit a parse tree produced by {@link CustomLangParser#ifStmt}.
+	 * @param ctx the parse tree
+	 * @return the visitor result
+	 */
+	T visitIfStmt(CustomLangParser.IfStmtContext ctx);
+	/**
+	 * Visit a parse tree produced by {@link CustomLangParser#condition}.
+	 * @param ctx the parse tree
+	 * @return the visitor result
+	 */
+	T visitCondition(CustomLangParser.ConditionContext ctx);
 	/**
 	 * Visit a parse tree produced by {@link CustomLangParser#expr}.
 	 * @param ctx the parse tree
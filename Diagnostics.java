@@ -0,0 +1,212 @@
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Collects the errors of one input file from the lexer, the parser and the
+ * symbol checks. Parsing stops as soon as {@code maxErrors} errors are
+ * collected, or at the first one in strict mode, so a malformed input is
+ * rejected in time bounded by the limit rather than by its size.
+ */
+public class Diagnostics extends BaseErrorListener {
+
+    /** One error, at a 1-based line and 0-based column like ANTLR's. */
+    public static class Diagnostic {
+        final String source;
+        final int line;
+        final int column;
+        final String message;
+
+        Diagnostic(String source, int line, int column, String message) {
+            this.source = source;
+            this.line = line;
+            this.column = column;
+            this.message = message;
+        }
+
+        /** What found the error: {@code lexer}, {@code parser}, {@code symbols}, {@code generator}... */
+        public String source() {
+            return source;
+        }
+
+        public int line() {
+            return line;
+        }
+
+        public int column() {
+            return column;
+        }
+
+        public String message() {
+            return message;
+        }
+    }
+
+    /** Thrown when the error limit is reached, to stop the lexer, the parser or the checks at once. */
+    static class LimitReached extends ParseCancellationException {
+        private static final long serialVersionUID = 1L;
+
+        LimitReached() {
+            super("error limit reached");
+        }
+    }
+
+    private static final Pattern GENERATOR_LINE = Pattern.compile("line (\\d+): (.*)", Pattern.DOTALL);
+
+    private String fileName;
+    private final int maxErrors;
+    private final boolean strict;
+    private final List<Diagnostic> errors = new ArrayList<>();
+    private boolean truncated;
+
+    public Diagnostics(String fileName, int maxErrors, boolean strict) {
+        this.fileName = fileName;
+        this.maxErrors = strict ? 1 : maxErrors;
+        this.strict = strict;
+    }
+
+    /**
+     * Lexes and parses a file with these diagnostics. In strict mode the parser
+     * bails out at the first syntax error instead of recovering. Returns null
+     * if there were errors.
+     */
+    CustomLangParser.ProgramContext parse(CharStream input) {
+        CustomLangLexer lexer = new CustomLangLexer(input);
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        return parse(lexer, new CustomLangParser(tokens), tokens);
+    }
+
+    /** Parses with a lexer and parser that are already set up on their input, so they can be reused. */
+    CustomLangParser.ProgramContext parse(CustomLangLexer lexer, CustomLangParser parser, CommonTokenStream tokens) {
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(this);
+        parser.removeErrorListeners();
+        parser.addErrorListener(this);
+        if (strict) {
+            parser.setErrorHandler(new BailErrorStrategy() {
+                @Override
+                public void recover(Parser recognizer, RecognitionException e) {
+                    reportError(recognizer, e);
+                    super.recover(recognizer, e);
+                }
+
+                @Override
+                public Token recoverInline(Parser recognizer) {
+                    reportError(recognizer, new InputMismatchException(recognizer));
+                    return super.recoverInline(recognizer);
+                }
+            });
+        }
+        try {
+            CustomLangParser.ProgramContext program = parser.program();
+            // program has no EOF, so the parser stops quietly before input it cannot start a statement with.
+            Token next = tokens.LT(1);
+            if (next.getType() != Token.EOF) {
+                error("parser", next.getLine(), next.getCharPositionInLine(),
+                        "extraneous input '" + next.getText() + "' expecting a statement");
+            }
+            return errors.isEmpty() ? program : null;
+        } catch (ParseCancellationException e) {
+            return null;
+        }
+    }
+
+    /** Clears the errors, to reuse these diagnostics for another file. */
+    void reset(String fileName) {
+        this.fileName = fileName;
+        errors.clear();
+        truncated = false;
+    }
+
+    String fileName() {
+        return fileName;
+    }
+
+    @Override
+    public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line, int charPositionInLine,
+                            String msg, RecognitionException e) {
+        error(recognizer instanceof Lexer ? "lexer" : "parser", line, charPositionInLine, msg);
+    }
+
+    /** Records an error; throws {@link LimitReached} once there are {@code maxErrors}. */
+    void error(String source, int line, int column, String message) {
+        errors.add(new Diagnostic(source, line, column, message));
+        if (maxErrors > 0 && errors.size() >= maxErrors) {
+            truncated = true;
+            throw new LimitReached();
+        }
+    }
+
+    void error(String source, Token token, String message) {
+        error(source, token.getLine(), token.getCharPositionInLine(), message);
+    }
+
+    /**
+     * Records an error the code generator threw, at the line its message
+     * starts with ({@code line N: ...}) if it names one.
+     */
+    void generatorError(String message) {
+        Matcher line = GENERATOR_LINE.matcher(message);
+        try {
+            if (line.matches()) {
+                error("generator", Integer.parseInt(line.group(1)), 0, line.group(2));
+            } else {
+                error("generator", 0, 0, message);
+            }
+        } catch (LimitReached e) {
+            // The error is recorded.
+        }
+    }
+
+    boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    List<Diagnostic> errors() {
+        return errors;
+    }
+
+    /** The errors as {@code file:line:column: message} lines. */
+    String toText() {
+        StringBuilder text = new StringBuilder();
+        for (Diagnostic error : errors) {
+            text.append(fileName).append(':').append(error.line).append(':').append(error.column + 1)
+                    .append(": ").append(error.message).append('\n');
+        }
+        if (truncated) {
+            text.append(fileName).append(": stopped after ").append(errors.size())
+                    .append(errors.size() == 1 ? " error" : " errors").append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * The errors as one JSON object, for pipelines that reject bad inputs:
+     * {@code {"file", "ok", "truncated", "errors": [{"source", "line", "column",
+     * "message"}]}}, where code generation errors have the source
+     * {@code generator} and native build failures {@code native}.
+     */
+    String toJson() {
+        List<Object> list = new ArrayList<>();
+        for (Diagnostic error : errors) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("source", error.source);
+            entry.put("line", (long) error.line);
+            entry.put("column", (long) error.column + 1);
+            entry.put("message", error.message);
+            list.add(entry);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("file", fileName);
+        result.put("ok", errors.isEmpty());
+        result.put("truncated", truncated);
+        result.put("errors", list);
+        return Json.write(result);
+    }
+}
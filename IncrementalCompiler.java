@@ -0,0 +1,861 @@
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Recompiles a source file after an edit by reparsing only the statements the
+ * edit touched. Statements are independent {@code ;}-terminated units, so the
+ * text between two untouched statements can be lexed and parsed on its own.
+ *
+ * <p>Each variable knows the statements that define and mention it. Only the
+ * reparsed statements and those that mention a variable whose first
+ * definition or array length changed are checked again, and a statement's C
+ * code is generated again only if it was checked again, the number of its
+ * first loop moved or the statement that computes the aggregates of INPUT
+ * changed. A statement with symbol errors gets no code until it checks
+ * again, and one the code generator rejects is left out, while the others
+ * are generated all the same. New code is spliced
+ * into the output in place. String literals are numbered by their first
+ * appearance, and statements generated again when their numbers move, so
+ * the output is the same as a full compile's with the same options, which
+ * {@link #supports} tells.
+ */
+public class IncrementalCompiler {
+
+    /** Symbol errors reported per statement before its check stops. */
+    private static final int MAX_ERRORS = 100;
+    /** Statements whose code changed beyond which the output is rebuilt rather than spliced. */
+    private static final int MAX_SPLICES = 32;
+
+    private static final Comparator<Segment> IN_ORDER = Comparator.comparingInt(segment -> segment.start);
+
+    /**
+     * A top-level statement: its character range in the source and its C
+     * code, with where that is in the output.
+     */
+    static class Segment {
+        int start;
+        int end;
+        final CustomLangParser.StatementContext ctx;
+        /** The variables the statement defines, in its blocks too. */
+        final Set<String> defines;
+        /** The slots of the variables it defines with DEF, in the order it defines them. */
+        final int[] definitions;
+        /** The slots of all the variables it names. */
+        final int[] mentions;
+        /** The messages it WRITEs from the string table, in order. */
+        final List<String> strings = new ArrayList<>();
+        final boolean aggregate;
+        int firstLoop;
+        int loops;
+        /** Declarations of the variables first defined in its blocks, for the top of main(). */
+        String locals = "";
+        /** Its C code, or null if it was not generated. */
+        String fragment;
+        /** Where {@code locals} and {@code fragment} start in their parts of the output. */
+        int localsOffset;
+        int fragmentOffset;
+        /** Its symbol errors, at offsets from {@code start}. */
+        List<Problem> errors = Collections.emptyList();
+        /** Why the generator rejected it, or null. */
+        String failure;
+
+        Segment(int start, int end, CustomLangParser.StatementContext ctx, SymbolTable symbols) {
+            this.start = start;
+            this.end = end;
+            this.ctx = ctx;
+            this.defines = new HashSet<>();
+            Compiler.definitions(ctx, defines);
+            this.aggregate = Compiler.aggregate(ctx) != null;
+            Set<Integer> defined = new LinkedHashSet<>();
+            Set<Integer> mentioned = new LinkedHashSet<>();
+            collect(ctx, symbols, defined, mentioned, strings);
+            this.definitions = defined.stream().mapToInt(Integer::intValue).toArray();
+            this.mentions = mentioned.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        private static void collect(ParseTree tree, SymbolTable symbols, Set<Integer> defined, Set<Integer> mentioned,
+                                    List<String> strings) {
+            if (tree instanceof TerminalNode) {
+                Token token = ((TerminalNode) tree).getSymbol();
+                if (token.getType() == CustomLangParser.STRING && token.getText().length() > 2) {
+                    strings.add(token.getText());
+                } else if (token.getType() == CustomLangParser.ID && token.getStartIndex() >= 0) {
+                    int slot = symbols.intern(token);
+                    mentioned.add(slot);
+                    if (tree.getParent() instanceof CustomLangParser.DeclarationContext
+                            || tree.getParent() instanceof CustomLangParser.AssignmentContext) {
+                        defined.add(slot);
+                    }
+                }
+                return;
+            }
+            for (int i = 0; i < tree.getChildCount(); i++) {
+                collect(tree.getChild(i), symbols, defined, mentioned, strings);
+            }
+        }
+    }
+
+    /** A lexer, parser, symbol or generator error, with its character range in the source. */
+    static class Problem {
+        final int start;
+        final int end;
+        final String message;
+
+        Problem(int start, int end, String message) {
+            this.start = start;
+            this.end = end;
+            this.message = message;
+        }
+    }
+
+    /**
+     * Whether a variable is defined before the statement being checked: by
+     * an earlier statement, or earlier in the statement itself.
+     */
+    private final class DefinedBefore implements SymbolTable.Defined {
+        Segment segment;
+        final BitSet here = new BitSet();
+
+        @Override
+        public boolean get(int slot) {
+            return here.get(slot) || definedBefore(slot, segment);
+        }
+
+        @Override
+        public void set(int slot) {
+            here.set(slot);
+        }
+    }
+
+    private final CompilerOptions options;
+    private Compiler compiler;
+    private SymbolTable symbols;
+    private List<Segment> segments;
+    /** For each slot, the statements that define the variable, the first of them, and those that name it. */
+    private List<List<Segment>> definers;
+    private List<Segment> firstDefiners;
+    private List<Set<Segment>> mentioners;
+    /** Slots whose first definition moved since the last check. */
+    private BitSet moved;
+    /** Slots of the variables that are arrays. */
+    private BitSet arrays;
+    private Set<Segment> aggregates;
+    private Segment aggregatePass;
+    /** For each string literal, the statements that WRITE it, and the literals in the order they are numbered. */
+    private Map<String, List<Segment>> writers;
+    private List<String> strings;
+    /** Whether a statement that WRITEs a literal came or went since they were numbered. */
+    private boolean renumber;
+    /** Statements whose code has to be generated again. */
+    private Set<Segment> pending;
+    /** Statements with symbol errors, which get no code. */
+    private Set<Segment> failing;
+    private Set<Segment> rejected;
+    /** The lexer and parser errors, which are kept for the statements that are not reparsed. */
+    private List<Problem> syntaxProblems;
+    /** All the problems, sorted, or null until asked for. */
+    private List<Problem> problems;
+    private String prelude;
+    /** Whether what the prelude declares may have changed since it was generated. */
+    private boolean stalePrelude;
+    private StringBuilder output;
+    /** The lengths of the locals of all statements, which come after the prelude in the output. */
+    private int localsLength;
+    private String source;
+    private int reparsedStatements;
+    private final DefinedBefore definedBefore = new DefinedBefore();
+    private final List<Problem> errors = new ArrayList<>();
+    private final Diagnostics diagnostics = new Diagnostics("<input>", MAX_ERRORS, false) {
+        @Override
+        void error(String source, Token token, String message) {
+            Segment segment = definedBefore.segment;
+            int offset = IncrementalCompiler.this.source.offsetByCodePoints(segment.start,
+                    token.getStartIndex() - segment.ctx.start.getStartIndex()) - segment.start;
+            errors.add(new Problem(offset, offset + Math.max(1, token.getText().length()), message));
+            super.error(source, token, message);
+        }
+    };
+
+    public IncrementalCompiler() {
+        this(new CompilerOptions());
+    }
+
+    /** A compiler for options it {@link #supports}. */
+    public IncrementalCompiler(CompilerOptions options) {
+        if (!supports(options)) {
+            throw new IllegalArgumentException("Incremental compiles support --fast-io and --reassociate, not the other code generation options");
+        }
+        this.options = options;
+        clear();
+    }
+
+    /**
+     * Whether a statement compiles to the same C here as in a full compile
+     * with {@code options}. Options that analyze the whole program, or that
+     * change the program around the statements, prevent that; so do the
+     * chunks of a program of more than {@code --chunk-size} statements.
+     */
+    static boolean supports(CompilerOptions options) {
+        return !options.emitLlvm && !options.columnar && !options.batch && !options.inferInt && !options.slots
+                && !options.profile && options.bindings.isEmpty();
+    }
+
+    /** Whether a full compile with the options splits the program into chunks, which this does not. */
+    boolean chunked() {
+        return options.chunkSize > 0 && segments.size() > options.chunkAbove;
+    }
+
+    private void clear() {
+        compiler = new Compiler(options);
+        symbols = new SymbolTable();
+        segments = new ArrayList<>();
+        definers = new ArrayList<>();
+        firstDefiners = new ArrayList<>();
+        mentioners = new ArrayList<>();
+        moved = new BitSet();
+        arrays = new BitSet();
+        aggregates = new HashSet<>();
+        aggregatePass = null;
+        writers = new HashMap<>();
+        strings = new ArrayList<>();
+        renumber = false;
+        pending = new HashSet<>();
+        failing = new HashSet<>();
+        rejected = new HashSet<>();
+        syntaxProblems = new ArrayList<>();
+        problems = null;
+        prelude = compiler.prelude();
+        stalePrelude = false;
+        output = new StringBuilder(prelude).append(Compiler.EPILOGUE);
+        localsLength = 0;
+        source = "";
+    }
+
+    /** Applies a new version of the source, diffing it against the previous one. */
+    public void update(String newSource) {
+        String oldSource = source;
+        int oldLength = oldSource.length();
+        int newLength = newSource.length();
+
+        int prefix = 0;
+        int max = Math.min(oldLength, newLength);
+        while (prefix < max && oldSource.charAt(prefix) == newSource.charAt(prefix)) {
+            prefix++;
+        }
+        if (prefix == oldLength && prefix == newLength) {
+            reparsedStatements = 0;
+            return;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && oldSource.charAt(oldLength - 1 - suffix) == newSource.charAt(newLength - 1 - suffix)) {
+            suffix++;
+        }
+        apply(newSource, prefix, oldLength - suffix);
+    }
+
+    /** Replaces the characters {@code [start, end)} of the source with {@code text}. */
+    public void edit(int start, int end, String text) {
+        apply(source.substring(0, start) + text + source.substring(end), start, end);
+    }
+
+    /**
+     * Parses the changed region, then splices its statements in and updates
+     * the symbols and the output. Errors in the program are problems; should
+     * anything else fail, the compiler starts over from an empty source.
+     */
+    private void apply(String newSource, int prefix, int changeEnd) {
+        int oldLength = source.length();
+        int newLength = newSource.length();
+
+        // Statements [first, last) overlap or touch the changed text.
+        int first = firstEndingAtOrAfter(prefix);
+        if (first > 0 && segments.get(first - 1).ctx.ifStmt() != null) {
+            // The edit may add an ELSE to the IF before it.
+            first--;
+        }
+        int last = first;
+        while (last < segments.size() && segments.get(last).start <= changeEnd) {
+            last++;
+        }
+
+        int delta = newLength - oldLength;
+        int regionStart = first > 0 ? segments.get(first - 1).end : 0;
+        int regionEnd = last < segments.size() ? segments.get(last).start + delta : newLength;
+
+        List<Segment> replacement = new ArrayList<>();
+        List<Problem> regionProblems = new ArrayList<>();
+        // An unbalanced edit (a removed ';', an opened string) can swallow the
+        // statements that follow, so take in twice as many of them each time
+        // until the region ends with a statement of its own.
+        for (int more = 1; !parseRegion(newSource, regionStart, regionEnd, replacement, regionProblems)
+                && regionEnd < newLength; more *= 2) {
+            last = (int) Math.min(segments.size(), (long) last + more);
+            regionEnd = last < segments.size() ? segments.get(last).start + delta : newLength;
+            replacement.clear();
+            regionProblems.clear();
+        }
+
+        try {
+            syntaxProblems = shiftProblems(regionStart, regionEnd - delta, regionProblems, delta);
+            source = newSource;
+            replace(first, last, replacement, delta);
+            check(replacement);
+            generate();
+        } catch (RuntimeException e) {
+            clear();
+            throw e;
+        }
+        problems = null;
+        reparsedStatements = replacement.size();
+    }
+
+    /**
+     * Replaces statements {@code [first, last)} with {@code replacement}, moves
+     * the statements after them by {@code delta} and takes the code of the
+     * replaced ones out of the output.
+     */
+    private void replace(int first, int last, List<Segment> replacement, int delta) {
+        int localsFrom = localsOffset(first);
+        int localsTo = localsOffset(last);
+        int fragmentsFrom = fragmentOffset(first);
+        int fragmentsTo = fragmentOffset(last);
+        int body = prelude.length() + localsLength;
+        output.delete(body + fragmentsFrom, body + fragmentsTo);
+        output.delete(prelude.length() + localsFrom, prelude.length() + localsTo);
+        localsLength -= localsTo - localsFrom;
+
+        for (int i = first; i < last; i++) {
+            forget(segments.get(i));
+        }
+        for (int i = last; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            segment.start += delta;
+            segment.end += delta;
+            segment.localsOffset -= localsTo - localsFrom;
+            segment.fragmentOffset -= fragmentsTo - fragmentsFrom;
+        }
+        segments.subList(first, last).clear();
+        segments.addAll(first, replacement);
+        for (Segment segment : replacement) {
+            segment.localsOffset = localsFrom;
+            segment.fragmentOffset = fragmentsFrom;
+            remember(segment);
+        }
+        // The statement after the change may number its loops differently.
+        if (first + replacement.size() < segments.size()) {
+            pending.add(segments.get(first + replacement.size()));
+        }
+    }
+
+    private int localsOffset(int index) {
+        return index < segments.size() ? segments.get(index).localsOffset : localsLength;
+    }
+
+    private int fragmentOffset(int index) {
+        int body = output.length() - Compiler.EPILOGUE.length() - prelude.length() - localsLength;
+        return index < segments.size() ? segments.get(index).fragmentOffset : body;
+    }
+
+    private void remember(Segment segment) {
+        for (int slot : segment.mentions) {
+            while (mentioners.size() <= slot) {
+                definers.add(new ArrayList<>());
+                firstDefiners.add(null);
+                mentioners.add(new HashSet<>());
+            }
+            mentioners.get(slot).add(segment);
+        }
+        for (int slot : segment.definitions) {
+            definers.get(slot).add(segment);
+            Segment firstDefiner = firstDefiners.get(slot);
+            if (firstDefiner == null || segment.start < firstDefiner.start) {
+                firstDefiners.set(slot, segment);
+                moved.set(slot);
+            }
+        }
+        if (segment.aggregate) {
+            aggregates.add(segment);
+        }
+        for (String string : segment.strings) {
+            writers.computeIfAbsent(string, s -> new ArrayList<>()).add(segment);
+            renumber = true;
+        }
+        pending.add(segment);
+    }
+
+    private void forget(Segment segment) {
+        for (int slot : segment.definitions) {
+            List<Segment> others = definers.get(slot);
+            others.remove(segment);
+            if (firstDefiners.get(slot) == segment) {
+                firstDefiners.set(slot, others.isEmpty() ? null : Collections.min(others, IN_ORDER));
+                moved.set(slot);
+            }
+        }
+        for (int slot : segment.mentions) {
+            mentioners.get(slot).remove(segment);
+        }
+        aggregates.remove(segment);
+        for (String string : segment.strings) {
+            List<Segment> others = writers.get(string);
+            others.remove(segment);
+            if (others.isEmpty()) {
+                writers.remove(string);
+            }
+            renumber = true;
+        }
+        pending.remove(segment);
+        failing.remove(segment);
+        rejected.remove(segment);
+    }
+
+    private boolean definedBefore(int slot, Segment segment) {
+        Segment firstDefiner = slot < firstDefiners.size() ? firstDefiners.get(slot) : null;
+        return firstDefiner != null && firstDefiner.start < segment.start;
+    }
+
+    /**
+     * Checks the symbols of the reparsed statements and of those that name a
+     * variable whose first definition moved, in program order; when that
+     * changes the length of an array, the statements that name it are
+     * checked again too.
+     */
+    private void check(List<Segment> reparsed) {
+        TreeSet<Segment> work = new TreeSet<>(IN_ORDER);
+        work.addAll(reparsed);
+        for (int slot = moved.nextSetBit(0); slot >= 0; slot = moved.nextSetBit(slot + 1)) {
+            work.addAll(mentioners.get(slot));
+            if (firstDefiners.get(slot) == null) {
+                arrays.clear(slot);
+            }
+        }
+        stalePrelude |= !work.isEmpty() || !moved.isEmpty();
+        moved.clear();
+        Segment segment;
+        while ((segment = work.pollFirst()) != null) {
+            int[] lengths = new int[segment.definitions.length];
+            for (int i = 0; i < lengths.length; i++) {
+                lengths[i] = symbols.length(segment.definitions[i]);
+            }
+            check(segment);
+            for (int i = 0; i < lengths.length; i++) {
+                int slot = segment.definitions[i];
+                if (firstDefiners.get(slot) == segment) {
+                    arrays.set(slot, symbols.length(slot) > 0);
+                }
+                if (symbols.length(slot) != lengths[i]) {
+                    for (Segment mentioner : mentioners.get(slot)) {
+                        if (mentioner != segment) {
+                            work.add(mentioner);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void check(Segment segment) {
+        definedBefore.segment = segment;
+        errors.clear();
+        diagnostics.reset("<input>");
+        try {
+            symbols.check(segment.ctx, definedBefore, diagnostics);
+        } catch (Diagnostics.LimitReached e) {
+            // The errors so far are in errors.
+        }
+        for (int slot : segment.definitions) {
+            definedBefore.here.clear(slot);
+        }
+        segment.errors = errors.isEmpty() ? Collections.emptyList() : new ArrayList<>(errors);
+        if (errors.isEmpty()) {
+            failing.remove(segment);
+        } else {
+            failing.add(segment);
+        }
+        pending.add(segment);
+    }
+
+    /**
+     * Generates the code of the pending statements and of those after them
+     * whose loops are numbered differently now, in program order, and
+     * splices it into the output. A statement with symbol errors, or that
+     * the generator rejects, is left out, and the others are generated as
+     * usual, so their code can be shown while the program has errors.
+     */
+    private void generate() {
+        Segment pass = aggregates.isEmpty() ? null : Collections.min(aggregates, IN_ORDER);
+        if (pass != aggregatePass) {
+            if (!options.fastIo && (pass == null) != (aggregatePass == null)) {
+                // Aggregates read the input through the fast I/O buffer, which changes every READ.
+                pending.addAll(segments);
+            } else {
+                pending.add(pass);
+                if (aggregates.contains(aggregatePass)) {
+                    pending.add(aggregatePass);
+                }
+            }
+            aggregatePass = pass;
+            stalePrelude = true;
+        }
+        if (renumber) {
+            renumberStrings();
+        }
+        compiler.program(symbols, pass != null ? pass.ctx : null, arrayNames(), strings);
+        if (!pending.isEmpty()) {
+            generatePending();
+        }
+        if (stalePrelude) {
+            String updated = compiler.prelude();
+            if (!updated.equals(prelude)) {
+                output.replace(0, prelude.length(), updated);
+                prelude = updated;
+            }
+            stalePrelude = false;
+        }
+    }
+
+    private void generatePending() {
+        List<Segment> due = new ArrayList<>(pending);
+        due.sort(IN_ORDER);
+        pending.clear();
+
+        int generated = 0;
+        int next = 0;
+        int index = indexOf(due.get(0));
+        int loop = loopAfter(index - 1);
+        while (index < segments.size()) {
+            Segment segment = segments.get(index);
+            if (next < due.size() && due.get(next) == segment) {
+                next++;
+                segment.firstLoop = loop;
+                generate(segment, index, ++generated <= MAX_SPLICES);
+            } else if (segment.firstLoop != loop) {
+                segment.firstLoop = loop;
+                if (segment.loops > 0) {
+                    generate(segment, index, ++generated <= MAX_SPLICES);
+                }
+            } else if (next == due.size()) {
+                break;
+            } else {
+                // The loops up to the next pending statement are numbered as before.
+                index = indexOf(due.get(next));
+                loop = loopAfter(index - 1);
+                continue;
+            }
+            loop = segment.firstLoop + segment.loops;
+            index++;
+        }
+        if (generated > MAX_SPLICES) {
+            rebuild();
+        }
+        stalePrelude |= generated > 0;
+    }
+
+    /** The number the first loop after statement {@code index} gets. */
+    private int loopAfter(int index) {
+        return index < 0 ? 0 : segments.get(index).firstLoop + segments.get(index).loops;
+    }
+
+    private void generate(Segment segment, int index, boolean splice) {
+        Set<String> redefined = new HashSet<>();
+        for (String id : segment.defines) {
+            if (definedBefore(symbols.slot(id), segment)) {
+                redefined.add(id);
+            }
+        }
+        String locals = "";
+        String fragment = null;
+        int loops = 0;
+        segment.failure = null;
+        rejected.remove(segment);
+        if (!failing.contains(segment)) {
+            try {
+                fragment = compiler.compileStatement(segment.ctx, redefined, segment.firstLoop);
+                locals = compiler.locals();
+                loops = compiler.loops() - segment.firstLoop;
+            } catch (IllegalStateException e) {
+                segment.failure = e.getMessage();
+                rejected.add(segment);
+            }
+        }
+        segment.loops = loops;
+        if (splice) {
+            splice(segment, index, locals, fragment == null ? "" : fragment);
+        }
+        segment.locals = locals;
+        segment.fragment = fragment;
+    }
+
+    /** Replaces the code of statement {@code index} in the output. */
+    private void splice(Segment segment, int index, String locals, String fragment) {
+        String oldFragment = segment.fragment == null ? "" : segment.fragment;
+        int body = prelude.length() + localsLength;
+        output.replace(body + segment.fragmentOffset, body + segment.fragmentOffset + oldFragment.length(), fragment);
+        int localsStart = prelude.length() + segment.localsOffset;
+        output.replace(localsStart, localsStart + segment.locals.length(), locals);
+        int localsDelta = locals.length() - segment.locals.length();
+        int fragmentDelta = fragment.length() - oldFragment.length();
+        if (localsDelta != 0 || fragmentDelta != 0) {
+            for (int i = index + 1; i < segments.size(); i++) {
+                segments.get(i).localsOffset += localsDelta;
+                segments.get(i).fragmentOffset += fragmentDelta;
+            }
+            localsLength += localsDelta;
+        }
+    }
+
+    /** Assembles the output from the code of every statement. */
+    private void rebuild() {
+        output.setLength(0);
+        output.append(prelude);
+        for (Segment segment : segments) {
+            segment.localsOffset = output.length() - prelude.length();
+            output.append(segment.locals);
+        }
+        localsLength = output.length() - prelude.length();
+        for (Segment segment : segments) {
+            segment.fragmentOffset = output.length() - prelude.length() - localsLength;
+            if (segment.fragment != null) {
+                output.append(segment.fragment);
+            }
+        }
+        output.append(Compiler.EPILOGUE);
+    }
+
+    /**
+     * Numbers the string literals in the order of the statements that first
+     * WRITE them, as a full compile does, and has the statements that WRITE
+     * a literal whose number moved generated again.
+     */
+    private void renumberStrings() {
+        List<String> numbered = new ArrayList<>(writers.keySet());
+        Map<String, Segment> first = new HashMap<>();
+        for (String string : numbered) {
+            first.put(string, Collections.min(writers.get(string), IN_ORDER));
+        }
+        numbered.sort(Comparator.<String>comparingInt(string -> first.get(string).start)
+                .thenComparingInt(string -> first.get(string).strings.indexOf(string)));
+        for (int i = 0; i < numbered.size(); i++) {
+            if (i >= strings.size() || !strings.get(i).equals(numbered.get(i))) {
+                pending.addAll(writers.get(numbered.get(i)));
+            }
+        }
+        if (!numbered.equals(strings)) {
+            stalePrelude = true;
+        }
+        strings = numbered;
+        renumber = false;
+    }
+
+    /** The array variables in the order of their first definitions, as a full compile declares them. */
+    private List<String> arrayNames() {
+        List<Integer> slots = new ArrayList<>();
+        for (int slot = arrays.nextSetBit(0); slot >= 0; slot = arrays.nextSetBit(slot + 1)) {
+            slots.add(slot);
+        }
+        slots.sort(Comparator.<Integer>comparingInt(slot -> firstDefiners.get(slot).start)
+                .thenComparingInt(slot -> position(firstDefiners.get(slot).definitions, slot)));
+        List<String> names = new ArrayList<>(slots.size());
+        for (int slot : slots) {
+            names.add(symbols.name(slot));
+        }
+        return names;
+    }
+
+    private static int position(int[] slots, int slot) {
+        int i = 0;
+        while (slots[i] != slot) {
+            i++;
+        }
+        return i;
+    }
+
+    private int indexOf(Segment segment) {
+        int low = 0;
+        int high = segments.size() - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (segments.get(mid).start < segment.start) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int firstEndingAtOrAfter(int offset) {
+        int low = 0;
+        int high = segments.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (segments.get(mid).end < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Parses {@code [start, end)} of the source into the statements without
+     * errors; returns whether the region ends with one, after its errors, so
+     * that what follows parses as it did.
+     */
+    private boolean parseRegion(String source, int start, int end, List<Segment> into, List<Problem> errors) {
+        String text = source.substring(start, end);
+        if (text.trim().isEmpty()) {
+            return true;
+        }
+        int[] charIndexes = charIndexes(text);
+        BaseErrorListener listener = new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                int offset = start;
+                if (offendingSymbol instanceof Token && ((Token) offendingSymbol).getStartIndex() >= 0) {
+                    offset += charIndex(charIndexes, ((Token) offendingSymbol).getStartIndex());
+                } else if (recognizer instanceof Lexer) {
+                    offset += charIndex(charIndexes, ((Lexer) recognizer)._tokenStartCharIndex);
+                }
+                errors.add(new Problem(offset, Math.min(offset + 1, end), msg));
+            }
+        };
+        CustomLangLexer lexer = new CustomLangLexer(CharStreams.fromString(text));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(listener);
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        CustomLangParser parser = new CustomLangParser(tokens);
+        parser.removeErrorListeners();
+        parser.addErrorListener(listener);
+        CustomLangParser.ProgramContext program = parser.program();
+        Token next = tokens.LT(1);
+        if (next.getType() != Token.EOF) {
+            int offset = start + charIndex(charIndexes, next.getStartIndex());
+            errors.add(new Problem(offset, offset + 1, "extraneous input '" + next.getText() + "'"));
+        }
+
+        int lastStart = -1;
+        for (CustomLangParser.StatementContext ctx : program.statement()) {
+            if (hasErrors(ctx)) {
+                lastStart = -1;
+                continue;
+            }
+            int statementStart = start + charIndex(charIndexes, ctx.start.getStartIndex());
+            int statementEnd = start + charIndex(charIndexes, ctx.stop.getStopIndex() + 1);
+            into.add(new Segment(statementStart, statementEnd, ctx, symbols));
+            lastStart = statementStart;
+        }
+        for (Problem error : errors) {
+            if (error.start >= lastStart) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasErrors(ParserRuleContext ctx) {
+        if (ctx.exception != null || ctx.stop == null || ctx.stop.getTokenIndex() < ctx.start.getTokenIndex()) {
+            return true;
+        }
+        for (int i = 0; i < ctx.getChildCount(); i++) {
+            ParseTree child = ctx.getChild(i);
+            if (child instanceof ErrorNode
+                    || child instanceof ParserRuleContext && hasErrors((ParserRuleContext) child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The syntax problems outside the reparsed region {@code [oldStart, oldEnd]}
+     * of the old source, moved by {@code delta}, and those found in it. A
+     * missing ';' is reported at the token after it, so a problem at
+     * {@code oldEnd} belongs to the region.
+     */
+    private List<Problem> shiftProblems(int oldStart, int oldEnd, List<Problem> regionProblems, int delta) {
+        List<Problem> kept = new ArrayList<>();
+        for (Problem problem : syntaxProblems) {
+            if (problem.end <= oldStart) {
+                kept.add(problem);
+            } else if (problem.start > oldEnd) {
+                kept.add(new Problem(problem.start + delta, problem.end + delta, problem.message));
+            }
+        }
+        kept.addAll(regionProblems);
+        return kept;
+    }
+
+    /**
+     * Token offsets count code points, while the source is indexed by chars. The
+     * two only differ when the text has supplementary characters, in which case
+     * this returns a code point to char index table, and {@code null} otherwise.
+     */
+    private static int[] charIndexes(String text) {
+        int codePoints = text.codePointCount(0, text.length());
+        if (codePoints == text.length()) {
+            return null;
+        }
+        int[] indexes = new int[codePoints + 1];
+        for (int i = 0, c = 0; c < codePoints; c++) {
+            indexes[c] = i;
+            i += Character.charCount(text.codePointAt(i));
+        }
+        indexes[codePoints] = text.length();
+        return indexes;
+    }
+
+    private static int charIndex(int[] charIndexes, int codePointIndex) {
+        return charIndexes == null ? codePointIndex : charIndexes[codePointIndex];
+    }
+
+    public String source() {
+        return source;
+    }
+
+    /** The generated C code, which is only copied out on request. */
+    public CharSequence output() {
+        return output;
+    }
+
+    List<Segment> segments() {
+        return segments;
+    }
+
+    List<Problem> problems() {
+        if (problems == null) {
+            problems = new ArrayList<>(syntaxProblems);
+            for (Segment segment : failing) {
+                for (Problem error : segment.errors) {
+                    problems.add(new Problem(segment.start + error.start, segment.start + error.end, error.message));
+                }
+            }
+            for (Segment segment : rejected) {
+                problems.add(new Problem(segment.start, segment.end, segment.failure));
+            }
+            problems.sort(Comparator.comparingInt(problem -> problem.start));
+        }
+        return problems;
+    }
+
+    /** Number of statements reparsed by the last {@link #update}. */
+    public int reparsedStatements() {
+        return reparsedStatements;
+    }
+}
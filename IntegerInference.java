@@ -0,0 +1,169 @@
+import org.antlr.v4.runtime.tree.ParseTreeProperty;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Proves which variables of a program always hold integers that a double
+ * represents exactly, so {@link Compiler} can declare them {@code int64_t}.
+ *
+ * <p>A variable qualifies when it is defined once, by an assignment outside
+ * loops and IFs, is never READ, and its expression uses only integer literals, other qualifying
+ * variables, {@code +}, {@code -} and {@code *}. The range of every such
+ * expression is tracked and must stay within 2^53 at every step, where double
+ * arithmetic is exact, so the int64 program computes the same values. A
+ * product that could be -0.0 in double arithmetic disqualifies it, because
+ * an integer zero has no sign. Such variables are converted to double where
+ * they meet a double operand and at WRITE, so the output is unchanged.
+ */
+public class IntegerInference extends CustomLangBaseVisitor<IntegerInference.Range> {
+
+    /** Doubles represent every integer up to this magnitude exactly. */
+    static final long LIMIT = 1L << 53;
+
+    /** The values an integral expression can take. */
+    static class Range {
+        final long min;
+        final long max;
+
+        Range(long min, long max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        boolean contains(long value) {
+            return min <= value && value <= max;
+        }
+    }
+
+    private final ParseTreeProperty<Range> ranges = new ParseTreeProperty<>();
+    private final ParseTreeProperty<Boolean> literalOnly = new ParseTreeProperty<>();
+    private final Map<String, Integer> definitions = new HashMap<>();
+    private final Map<String, Range> variables = new HashMap<>();
+
+    static IntegerInference analyze(CustomLangParser.ProgramContext program) {
+        IntegerInference inference = new IntegerInference();
+        inference.count(program.statement(), 1);
+        inference.visit(program);
+        return inference;
+    }
+
+    /**
+     * Counts the definitions of every variable. A READ, or a definition in a
+     * loop or an IF, counts twice: the variable may then hold a value that is
+     * not the one of its expression, so it stays double.
+     */
+    private void count(List<CustomLangParser.StatementContext> statements, int weight) {
+        for (CustomLangParser.StatementContext statement : statements) {
+            if (statement.declaration() != null) {
+                definitions.merge(statement.declaration().ID().getText(), weight, Integer::sum);
+            } else if (statement.assignment() != null) {
+                definitions.merge(statement.assignment().ID().getText(), weight, Integer::sum);
+            } else if (statement.scanStmt() != null) {
+                definitions.merge(statement.scanStmt().ID().getText(), 2, Integer::sum);
+            } else if (statement.whileStmt() != null) {
+                count(statement.whileStmt().block().statement(), 2);
+            } else if (statement.repeatStmt() != null) {
+                count(statement.repeatStmt().block().statement(), 2);
+            } else if (statement.ifStmt() != null) {
+                CustomLangParser.IfStmtContext ifStmt = statement.ifStmt();
+                for (; ifStmt != null; ifStmt = ifStmt.ifStmt()) {
+                    for (CustomLangParser.BlockContext block : ifStmt.block()) {
+                        count(block.statement(), 2);
+                    }
+                }
+            }
+        }
+    }
+
+    boolean isIntegral(String id) {
+        return variables.containsKey(id);
+    }
+
+    /**
+     * Whether an expression is integral and mentions an integral variable.
+     * Expressions of literals only are left to C, which already evaluates
+     * them in {@code int}.
+     */
+    boolean isIntegral(CustomLangParser.ExprContext expr) {
+        return ranges.get(expr) != null && !literalOnly.get(expr);
+    }
+
+    @Override
+    public Range visitAssignment(CustomLangParser.AssignmentContext ctx) {
+        Range range = visit(ctx.expr());
+        String id = ctx.ID().getText();
+        if (range != null && definitions.get(id) == 1) {
+            variables.put(id, range);
+        }
+        return null;
+    }
+
+    @Override
+    public Range visitExpr(CustomLangParser.ExprContext ctx) {
+        Range range = range(ctx);
+        ranges.put(ctx, range);
+        boolean literal = ctx.NUMBER() != null;
+        if (ctx.op != null) {
+            literal = literalOnly.get(ctx.expr(0)) && literalOnly.get(ctx.expr(1));
+        } else if (ctx.expr().size() == 1) {
+            literal = literalOnly.get(ctx.expr(0));
+        }
+        literalOnly.put(ctx, literal);
+        return range;
+    }
+
+    private Range range(CustomLangParser.ExprContext ctx) {
+        if (ctx.NUMBER() != null) {
+            BigDecimal value = new BigDecimal(ctx.NUMBER().getText());
+            if (value.stripTrailingZeros().scale() > 0 || value.compareTo(BigDecimal.valueOf(LIMIT)) > 0) {
+                return null;
+            }
+            return new Range(value.longValue(), value.longValue());
+        } else if (ctx.ID() != null) {
+            return variables.get(ctx.ID().getText());
+        } else if (ctx.aggregate != null) {
+            return null;
+        } else if (ctx.op == null) {
+            return visit(ctx.expr(0));
+        }
+
+        Range left = visit(ctx.expr(0));
+        Range right = visit(ctx.expr(1));
+        if (left == null || right == null) {
+            return null;
+        }
+        switch (ctx.op.getText()) {
+            case "+":
+                return bounded(left.min + right.min, left.max + right.max);
+            case "-":
+                return bounded(left.min - right.max, left.max - right.min);
+            case "*":
+                // 0 * -1 is -0.0 in double arithmetic.
+                if (left.contains(0) && right.min < 0 || right.contains(0) && left.min < 0) {
+                    return null;
+                }
+                try {
+                    long a = Math.multiplyExact(left.min, right.min);
+                    long b = Math.multiplyExact(left.min, right.max);
+                    long c = Math.multiplyExact(left.max, right.min);
+                    long d = Math.multiplyExact(left.max, right.max);
+                    return bounded(Math.min(Math.min(a, b), Math.min(c, d)), Math.max(Math.max(a, b), Math.max(c, d)));
+                } catch (ArithmeticException e) {
+                    return null;
+                }
+            default:
+                return null;
+        }
+    }
+
+    /** Operands are within 2^53, so their sums cannot overflow a long. */
+    private static Range bounded(long min, long max) {
+        if (min < -LIMIT || max > LIMIT) {
+            return null;
+        }
+        return new Range(min, max);
+    }
+}
@@ -0,0 +1,503 @@
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.tree.ParseTree;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Language Server Protocol server for CustomLang over stdin/stdout.
+ *
+ * <p>Every document is backed by an {@link IncrementalCompiler}, so an edit only
+ * reparses the statements it touches. Document work runs on a single worker
+ * thread: requests queued behind an edit can be cancelled with
+ * {@code $/cancelRequest}. An edit only updates the text; the document is
+ * compiled once edits have been quiet for {@link #DIAGNOSTICS_DELAY_MS}, when
+ * its diagnostics are published, or when a request needs it.
+ *
+ * <pre>java LanguageServer</pre>
+ */
+public class LanguageServer {
+
+    static final long DIAGNOSTICS_DELAY_MS = 150;
+
+    private static final int REQUEST_CANCELLED = -32800;
+    private static final int METHOD_NOT_FOUND = -32601;
+    private static final int INTERNAL_ERROR = -32603;
+
+    /** An open document and the line index used to convert LSP positions. */
+    static class Document {
+        private final IncrementalCompiler compiler = new IncrementalCompiler();
+        final StringBuilder text = new StringBuilder();
+        /** Whether the text changed since it was compiled. */
+        boolean edited;
+        int[] lineStarts = {0};
+        ScheduledFuture<?> pendingDiagnostics;
+
+        void edit(int start, int end, String text) {
+            int firstLine = lineOf(start);
+            int lastLine = lineOf(end);
+            int delta = text.length() - (end - start);
+
+            List<Integer> inserted = new ArrayList<>();
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) == '\n') {
+                    inserted.add(start + i + 1);
+                }
+            }
+            int tail = lineStarts.length - lastLine - 1;
+            int[] updated = new int[firstLine + 1 + inserted.size() + tail];
+            System.arraycopy(lineStarts, 0, updated, 0, firstLine + 1);
+            for (int i = 0; i < inserted.size(); i++) {
+                updated[firstLine + 1 + i] = inserted.get(i);
+            }
+            for (int i = 0; i < tail; i++) {
+                updated[firstLine + 1 + inserted.size() + i] = lineStarts[lastLine + 1 + i] + delta;
+            }
+            lineStarts = updated;
+            this.text.replace(start, end, text);
+            edited = true;
+        }
+
+        void replace(String text) {
+            List<Integer> starts = new ArrayList<>();
+            starts.add(0);
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) == '\n') {
+                    starts.add(i + 1);
+                }
+            }
+            lineStarts = starts.stream().mapToInt(Integer::intValue).toArray();
+            this.text.setLength(0);
+            this.text.append(text);
+            edited = true;
+        }
+
+        /** The compiler, brought up to date with the edits so far. */
+        IncrementalCompiler compiler() {
+            if (edited) {
+                compiler.update(text.toString());
+                edited = false;
+            }
+            return compiler;
+        }
+
+        int lineOf(int offset) {
+            int index = Arrays.binarySearch(lineStarts, offset);
+            return index >= 0 ? index : -index - 2;
+        }
+
+        int offsetOf(Map<?, ?> position) {
+            int line = ((Number) position.get("line")).intValue();
+            int character = ((Number) position.get("character")).intValue();
+            int length = text.length();
+            if (line >= lineStarts.length) {
+                return length;
+            }
+            return Math.min(lineStarts[line] + character, length);
+        }
+
+        Map<String, Object> positionOf(int offset) {
+            int line = lineOf(offset);
+            Map<String, Object> position = new LinkedHashMap<>();
+            position.put("line", line);
+            position.put("character", offset - lineStarts[line]);
+            return position;
+        }
+
+        Map<String, Object> rangeOf(int start, int end) {
+            Map<String, Object> range = new LinkedHashMap<>();
+            range.put("start", positionOf(start));
+            range.put("end", positionOf(end));
+            return range;
+        }
+
+        /** The statement containing {@code offset}, or -1. */
+        int segmentAt(int offset) {
+            List<IncrementalCompiler.Segment> segments = compiler().segments();
+            int low = 0;
+            int high = segments.size() - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                IncrementalCompiler.Segment segment = segments.get(mid);
+                if (offset < segment.start) {
+                    high = mid - 1;
+                } else if (offset > segment.end) {
+                    low = mid + 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        /** The offsets in the document of a token of a statement, as {start, end}. */
+        int[] rangeIn(IncrementalCompiler.Segment segment, Token token) {
+            String source = compiler().source();
+            int start = source.offsetByCodePoints(segment.start,
+                    token.getStartIndex() - segment.ctx.start.getStartIndex());
+            return new int[] {start, source.offsetByCodePoints(start, token.getStopIndex() + 1 - token.getStartIndex())};
+        }
+
+        /** Tokens of a statement with their offsets in the document, as {start, end, type}. */
+        List<int[]> tokens(IncrementalCompiler.Segment segment) {
+            String text = compiler().source().substring(segment.start, segment.end);
+            CustomLangLexer lexer = new CustomLangLexer(CharStreams.fromString(text));
+            lexer.removeErrorListeners();
+            List<int[]> tokens = new ArrayList<>();
+            boolean bmp = text.length() == text.codePointCount(0, text.length());
+            for (Token token = lexer.nextToken(); token.getType() != Token.EOF; token = lexer.nextToken()) {
+                int start = token.getStartIndex();
+                int end = token.getStopIndex() + 1;
+                if (!bmp) {
+                    start = text.offsetByCodePoints(0, start);
+                    end = text.offsetByCodePoints(0, end);
+                }
+                tokens.add(new int[] {segment.start + start, segment.start + end, token.getType()});
+            }
+            return tokens;
+        }
+    }
+
+    private final Map<String, Document> documents = new HashMap<>();
+    private final Map<Object, Future<?>> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor();
+    private final OutputStream out;
+    private boolean shutdown;
+
+    LanguageServer(OutputStream out) {
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LanguageServer server = new LanguageServer(new BufferedOutputStream(System.out));
+        server.run(new BufferedInputStream(System.in));
+    }
+
+    void run(InputStream in) throws IOException {
+        String message;
+        while ((message = readMessage(in)) != null) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> request = (Map<String, Object>) Json.parse(message);
+            String method = (String) request.get("method");
+            if ("exit".equals(method)) {
+                break;
+            }
+            dispatch(request);
+        }
+        worker.shutdownNow();
+        System.exit(shutdown ? 0 : 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void dispatch(Map<String, Object> request) {
+        Object id = request.get("id");
+        String method = (String) request.get("method");
+        Map<String, Object> params = (Map<String, Object>) request.get("params");
+        if (method == null) {
+            return;
+        }
+        switch (method) {
+            case "initialize":
+                respond(id, capabilities(), null);
+                return;
+            case "shutdown":
+                shutdown = true;
+                respond(id, null, null);
+                return;
+            case "$/cancelRequest":
+                cancel(params.get("id"));
+                return;
+            case "textDocument/didOpen":
+            case "textDocument/didChange":
+            case "textDocument/didClose":
+                // Edits are applied in order on the worker, ahead of any later request.
+                worker.execute(() -> {
+                    try {
+                        documentChanged(method, params);
+                    } catch (RuntimeException e) {
+                        log("Failed to apply " + method + ": " + e);
+                    }
+                });
+                return;
+            case "textDocument/hover":
+            case "textDocument/definition":
+                FutureTask<Void> task = new FutureTask<>(() -> {
+                    try {
+                        Object result = "textDocument/hover".equals(method) ? hover(params) : definition(params);
+                        if (pending.remove(id) != null) {
+                            respond(id, result, null);
+                        }
+                    } catch (RuntimeException e) {
+                        if (pending.remove(id) != null) {
+                            respond(id, null, error(INTERNAL_ERROR, e.toString()));
+                        }
+                    }
+                }, null);
+                pending.put(id, task);
+                worker.execute(task);
+                return;
+            default:
+                if (id != null) {
+                    respond(id, null, error(METHOD_NOT_FOUND, "Unsupported method " + method));
+                }
+        }
+    }
+
+    private void cancel(Object id) {
+        Future<?> future = pending.remove(id);
+        if (future != null) {
+            future.cancel(false);
+            respond(id, null, error(REQUEST_CANCELLED, "Request cancelled"));
+        }
+    }
+
+    private Map<String, Object> capabilities() {
+        Map<String, Object> sync = new LinkedHashMap<>();
+        sync.put("openClose", true);
+        sync.put("change", 2);
+        Map<String, Object> capabilities = new LinkedHashMap<>();
+        capabilities.put("textDocumentSync", sync);
+        capabilities.put("hoverProvider", true);
+        capabilities.put("definitionProvider", true);
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("name", "customlang");
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("capabilities", capabilities);
+        result.put("serverInfo", info);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void documentChanged(String method, Map<String, Object> params) {
+        Map<String, Object> textDocument = (Map<String, Object>) params.get("textDocument");
+        String uri = (String) textDocument.get("uri");
+        Document document = documents.get(uri);
+
+        if ("textDocument/didClose".equals(method)) {
+            if (document != null && document.pendingDiagnostics != null) {
+                document.pendingDiagnostics.cancel(false);
+            }
+            documents.remove(uri);
+            publishDiagnostics(uri, Collections.emptyList());
+            return;
+        }
+        if ("textDocument/didOpen".equals(method)) {
+            document = new Document();
+            documents.put(uri, document);
+            document.replace((String) textDocument.get("text"));
+        } else if (document != null) {
+            for (Map<String, Object> change : (List<Map<String, Object>>) params.get("contentChanges")) {
+                Map<String, Object> range = (Map<String, Object>) change.get("range");
+                String text = (String) change.get("text");
+                if (range == null) {
+                    document.replace(text);
+                } else {
+                    int start = document.offsetOf((Map<?, ?>) range.get("start"));
+                    int end = document.offsetOf((Map<?, ?>) range.get("end"));
+                    document.edit(start, end, text);
+                }
+            }
+        } else {
+            return;
+        }
+
+        if (document.pendingDiagnostics != null) {
+            document.pendingDiagnostics.cancel(false);
+        }
+        Document current = document;
+        document.pendingDiagnostics = worker.schedule(() -> {
+            if (documents.get(uri) == current) {
+                publishDiagnostics(uri, diagnostics(current));
+            }
+        }, DIAGNOSTICS_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private List<Object> diagnostics(Document document) {
+        List<Object> diagnostics = new ArrayList<>();
+        for (IncrementalCompiler.Problem problem : document.compiler().problems()) {
+            Map<String, Object> diagnostic = new LinkedHashMap<>();
+            diagnostic.put("range", document.rangeOf(problem.start, problem.end));
+            diagnostic.put("severity", 1);
+            diagnostic.put("source", "customlang");
+            diagnostic.put("message", problem.message);
+            diagnostics.add(diagnostic);
+        }
+        return diagnostics;
+    }
+
+    private void publishDiagnostics(String uri, List<Object> diagnostics) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("uri", uri);
+        params.put("diagnostics", diagnostics);
+        Map<String, Object> notification = new LinkedHashMap<>();
+        notification.put("jsonrpc", "2.0");
+        notification.put("method", "textDocument/publishDiagnostics");
+        notification.put("params", params);
+        send(notification);
+    }
+
+    /** Shows the C code generated for the statement under the cursor. */
+    @SuppressWarnings("unchecked")
+    private Object hover(Map<String, Object> params) {
+        Document document = documents.get(((Map<String, Object>) params.get("textDocument")).get("uri"));
+        if (document == null) {
+            return null;
+        }
+        int index = document.segmentAt(document.offsetOf((Map<?, ?>) params.get("position")));
+        if (index < 0) {
+            return null;
+        }
+        IncrementalCompiler.Segment segment = document.compiler().segments().get(index);
+        if (segment.fragment == null) {
+            return null;
+        }
+        Map<String, Object> contents = new LinkedHashMap<>();
+        contents.put("kind", "markdown");
+        contents.put("value", "```c\n" + segment.fragment + "```");
+        Map<String, Object> hover = new LinkedHashMap<>();
+        hover.put("contents", contents);
+        hover.put("range", document.rangeOf(segment.start, segment.end));
+        return hover;
+    }
+
+    /**
+     * Jumps from a variable to the nearest {@code DEF} of it, looking backwards
+     * first, in loops and IFs too.
+     */
+    @SuppressWarnings("unchecked")
+    private Object definition(Map<String, Object> params) {
+        String uri = (String) ((Map<String, Object>) params.get("textDocument")).get("uri");
+        Document document = documents.get(uri);
+        if (document == null) {
+            return null;
+        }
+        int offset = document.offsetOf((Map<?, ?>) params.get("position"));
+        int index = document.segmentAt(offset);
+        if (index < 0) {
+            return null;
+        }
+        IncrementalCompiler compiler = document.compiler();
+        List<IncrementalCompiler.Segment> segments = compiler.segments();
+        String name = null;
+        for (int[] token : document.tokens(segments.get(index))) {
+            if (token[2] == CustomLangLexer.ID && token[0] <= offset && offset <= token[1]) {
+                name = compiler.source().substring(token[0], token[1]);
+            }
+        }
+        if (name == null) {
+            return null;
+        }
+        for (int i = index; i >= 0; i--) {
+            List<Token> definitions = definitions(segments.get(i).ctx, name, new ArrayList<>());
+            for (int j = definitions.size() - 1; j >= 0; j--) {
+                int[] range = document.rangeIn(segments.get(i), definitions.get(j));
+                if (range[0] <= offset) {
+                    return location(document, uri, range);
+                }
+            }
+        }
+        for (int i = index; i < segments.size(); i++) {
+            for (Token definition : definitions(segments.get(i).ctx, name, new ArrayList<>())) {
+                int[] range = document.rangeIn(segments.get(i), definition);
+                if (range[0] > offset) {
+                    return location(document, uri, range);
+                }
+            }
+        }
+        return null;
+    }
+
+    /** Adds the identifiers that {@code DEF name} in {@code tree}, in its blocks too, in source order. */
+    private static List<Token> definitions(ParseTree tree, String name, List<Token> into) {
+        Token id = tree instanceof CustomLangParser.DeclarationContext
+                ? ((CustomLangParser.DeclarationContext) tree).ID().getSymbol()
+                : tree instanceof CustomLangParser.AssignmentContext
+                ? ((CustomLangParser.AssignmentContext) tree).ID().getSymbol()
+                : null;
+        if (id != null && name.equals(id.getText())) {
+            into.add(id);
+        }
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            definitions(tree.getChild(i), name, into);
+        }
+        return into;
+    }
+
+    private static Map<String, Object> location(Document document, String uri, int[] range) {
+        Map<String, Object> location = new LinkedHashMap<>();
+        location.put("uri", uri);
+        location.put("range", document.rangeOf(range[0], range[1]));
+        return location;
+    }
+
+    private static Map<String, Object> error(int code, String message) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("code", code);
+        error.put("message", message);
+        return error;
+    }
+
+    private void respond(Object id, Object result, Map<String, Object> error) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("jsonrpc", "2.0");
+        response.put("id", id);
+        if (error != null) {
+            response.put("error", error);
+        } else {
+            response.put("result", result);
+        }
+        send(response);
+    }
+
+    private synchronized void send(Map<String, Object> message) {
+        try {
+            byte[] body = Json.write(message).getBytes(StandardCharsets.UTF_8);
+            out.write(("Content-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(body);
+            out.flush();
+        } catch (IOException e) {
+            log("Failed to send message: " + e);
+        }
+    }
+
+    private static String readMessage(InputStream in) throws IOException {
+        int length = -1;
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            int c = in.read();
+            if (c < 0) {
+                return null;
+            }
+            if (c == '\n') {
+                String header = line.toString().trim();
+                line.setLength(0);
+                if (header.isEmpty()) {
+                    if (length >= 0) {
+                        break;
+                    }
+                    continue;
+                }
+                if (header.toLowerCase(Locale.ROOT).startsWith("content-length:")) {
+                    length = Integer.parseInt(header.substring("content-length:".length()).trim());
+                }
+            } else {
+                line.append((char) c);
+            }
+        }
+        byte[] body = new byte[length];
+        int read = 0;
+        while (read < length) {
+            int n = in.read(body, read, length - read);
+            if (n < 0) {
+                return null;
+            }
+            read += n;
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private static void log(String message) {
+        System.err.println(message);
+    }
+}
@@ -0,0 +1,384 @@
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Emits textual LLVM IR instead of C, so the output can go straight to
+ * {@code llc} or {@code clang -c} without the C front end.
+ *
+ * <p>In straight-line code every variable is an SSA value: a {@code DEF}
+ * binds the name to the value of its expression and only {@code READ} targets
+ * get a stack slot, because {@code scanf} needs an address. A program with
+ * {@code WHILE}, {@code REPEAT} or {@code IF} keeps every variable in a
+ * zero-initialized stack slot instead, which avoids building phi nodes.
+ */
+public class LlvmBackend extends CustomLangBaseVisitor<String> {
+
+    private static final String INPUT_ERROR = "Error: Invalid input. Expected a decimal number.\n";
+
+    private final CompilerOptions options;
+    private final StringBuilder globals = new StringBuilder();
+    private final StringBuilder allocas = new StringBuilder();
+    private final StringBuilder body = new StringBuilder();
+    private final Map<String, String> constants = new HashMap<>();
+    private final Map<String, String> values = new HashMap<>();
+    private final Map<String, String> slots = new LinkedHashMap<>();
+    private int temporaries;
+    private int labels;
+    private boolean memory;
+    private boolean reads;
+
+    public LlvmBackend() {
+        this(new CompilerOptions());
+    }
+
+    public LlvmBackend(CompilerOptions options) {
+        this.options = options;
+    }
+
+    @Override
+    public String visitProgram(CustomLangParser.ProgramContext ctx) {
+        for (CustomLangParser.StatementContext statement : ctx.statement()) {
+            memory |= statement.whileStmt() != null || statement.repeatStmt() != null || statement.ifStmt() != null;
+        }
+        visitChildren(ctx);
+        String inputError = !reads ? null : constant(INPUT_ERROR.getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder ir = new StringBuilder();
+        ir.append("; ModuleID = 'customlang'\n");
+        ir.append("source_filename = \"customlang\"\n\n");
+        ir.append(globals);
+        ir.append("@stdout = external global ptr\n");
+        ir.append("@stderr = external global ptr\n\n");
+        ir.append("declare i32 @printf(ptr, ...)\n");
+        ir.append("declare i32 @scanf(ptr, ...)\n");
+        ir.append("declare i32 @fprintf(ptr, ptr, ...)\n");
+        ir.append("declare i64 @fwrite(ptr, i64, i64, ptr)\n");
+        ir.append("declare void @exit(i32) noreturn\n\n");
+        ir.append("define i32 @main() {\n");
+        ir.append("entry:\n");
+        ir.append(allocas);
+        ir.append(body);
+        ir.append("  ret i32 0\n");
+        if (inputError != null) {
+            ir.append("\ninput.error:\n");
+            ir.append("  %stderr = load ptr, ptr @stderr\n");
+            ir.append("  call i32 (ptr, ptr, ...) @fprintf(ptr %stderr, ptr ").append(inputError).append(")\n");
+            ir.append("  call void @exit(i32 1)\n");
+            ir.append("  unreachable\n");
+        }
+        ir.append("}\n");
+        return ir.toString();
+    }
+
+    @Override
+    public String visitDeclaration(CustomLangParser.DeclarationContext ctx) {
+        if (ctx.NUMBER() != null) {
+            throw new IllegalStateException("line " + ctx.start.getLine() + ": --emit-llvm does not support arrays");
+        }
+        if (memory) {
+            slot(ctx.ID().getText());
+        } else {
+            values.put(ctx.ID().getText(), "0.0");
+        }
+        return null;
+    }
+
+    @Override
+    public String visitAssignment(CustomLangParser.AssignmentContext ctx) {
+        String value = visit(ctx.expr());
+        if (memory) {
+            body.append("  store double ").append(value).append(", ptr ").append(slot(ctx.ID().getText())).append("\n");
+        } else {
+            values.put(ctx.ID().getText(), value);
+        }
+        return null;
+    }
+
+    /** The stack slot of a variable, allocated on first use. */
+    private String slot(String id) {
+        String slot = slots.get(id);
+        if (slot == null) {
+            slot = "%" + id + ".addr";
+            slots.put(id, slot);
+            allocas.append("  ").append(slot).append(" = alloca double\n");
+            if (memory) {
+                allocas.append("  store double 0.0, ptr ").append(slot).append("\n");
+            }
+        }
+        return slot;
+    }
+
+    @Override
+    public String visitWhileStmt(CustomLangParser.WhileStmtContext ctx) {
+        int loop = labels++;
+        body.append("  br label %while.cond").append(loop).append("\n\n");
+        body.append("while.cond").append(loop).append(":\n");
+        String condition = visit(ctx.condition());
+        body.append("  br i1 ").append(condition).append(", label %while.body").append(loop)
+                .append(", label %while.end").append(loop).append("\n\n");
+        body.append("while.body").append(loop).append(":\n");
+        visit(ctx.block());
+        body.append("  br label %while.cond").append(loop).append("\n\n");
+        body.append("while.end").append(loop).append(":\n");
+        return null;
+    }
+
+    /** Like the C backend: the count is rounded down, and NaN or less than 1 runs the block zero times. */
+    @Override
+    public String visitRepeatStmt(CustomLangParser.RepeatStmtContext ctx) {
+        int loop = labels++;
+        String value = visit(ctx.expr());
+        String counter = "%repeat" + loop + ".addr";
+        allocas.append("  ").append(counter).append(" = alloca i64\n");
+        String positive = temporary();
+        String huge = temporary();
+        String truncated = temporary();
+        String saturated = temporary();
+        String count = temporary();
+        body.append("  ").append(positive).append(" = fcmp oge double ").append(value).append(", 1.0\n");
+        body.append("  ").append(huge).append(" = fcmp oge double ").append(value).append(", 9.0e18\n");
+        body.append("  ").append(truncated).append(" = fptosi double ").append(value).append(" to i64\n");
+        body.append("  ").append(saturated).append(" = select i1 ").append(huge)
+                .append(", i64 9000000000000000000, i64 ").append(truncated).append("\n");
+        body.append("  ").append(count).append(" = select i1 ").append(positive).append(", i64 ")
+                .append(saturated).append(", i64 0\n");
+        body.append("  store i64 0, ptr ").append(counter).append("\n");
+        body.append("  br label %repeat.cond").append(loop).append("\n\n");
+        body.append("repeat.cond").append(loop).append(":\n");
+        String index = temporary();
+        String more = temporary();
+        body.append("  ").append(index).append(" = load i64, ptr ").append(counter).append("\n");
+        body.append("  ").append(more).append(" = icmp slt i64 ").append(index).append(", ").append(count).append("\n");
+        body.append("  br i1 ").append(more).append(", label %repeat.body").append(loop)
+                .append(", label %repeat.end").append(loop).append("\n\n");
+        body.append("repeat.body").append(loop).append(":\n");
+        visit(ctx.block());
+        String current = temporary();
+        String next = temporary();
+        body.append("  ").append(current).append(" = load i64, ptr ").append(counter).append("\n");
+        body.append("  ").append(next).append(" = add i64 ").append(current).append(", 1\n");
+        body.append("  store i64 ").append(next).append(", ptr ").append(counter).append("\n");
+        body.append("  br label %repeat.cond").append(loop).append("\n\n");
+        body.append("repeat.end").append(loop).append(":\n");
+        return null;
+    }
+
+    @Override
+    public String visitIfStmt(CustomLangParser.IfStmtContext ctx) {
+        int branch = labels++;
+        String end = "if.end" + branch;
+        boolean otherwise = ctx.block().size() > 1 || ctx.ifStmt() != null;
+        String condition = visit(ctx.condition());
+        body.append("  br i1 ").append(condition).append(", label %if.then").append(branch)
+                .append(", label %").append(otherwise ? "if.else" + branch : end).append("\n\n");
+        body.append("if.then").append(branch).append(":\n");
+        visit(ctx.block(0));
+        body.append("  br label %").append(end).append("\n\n");
+        if (otherwise) {
+            body.append("if.else").append(branch).append(":\n");
+            visit(ctx.block().size() > 1 ? ctx.block(1) : ctx.ifStmt());
+            body.append("  br label %").append(end).append("\n\n");
+        }
+        body.append(end).append(":\n");
+        return null;
+    }
+
+    /** Ordered comparisons, except {@code !=}, so that NaN compares like it does in C. */
+    @Override
+    public String visitCondition(CustomLangParser.ConditionContext ctx) {
+        String left = visit(ctx.expr(0));
+        String right = visit(ctx.expr(1));
+        String predicate;
+        switch (ctx.op.getText()) {
+            case "<": predicate = "olt"; break;
+            case "<=": predicate = "ole"; break;
+            case ">": predicate = "ogt"; break;
+            case ">=": predicate = "oge"; break;
+            case "==": predicate = "oeq"; break;
+            default: predicate = "une"; break;
+        }
+        String result = temporary();
+        body.append("  ").append(result).append(" = fcmp ").append(predicate).append(" double ")
+                .append(left).append(", ").append(right).append("\n");
+        return result;
+    }
+
+    @Override
+    public String visitPrintStmt(CustomLangParser.PrintStmtContext ctx) {
+        byte[] message = unescape(ctx.STRING().getText());
+        if (message.length > 0) {
+            String stdout = temporary();
+            body.append("  ").append(stdout).append(" = load ptr, ptr @stdout\n");
+            body.append("  call i64 @fwrite(ptr ").append(constant(message)).append(", i64 1, i64 ")
+                    .append(message.length).append(", ptr ").append(stdout).append(")\n");
+        }
+        if (ctx.expr() != null) {
+            String value = visit(ctx.expr());
+            String format = constant("%lf\n".getBytes(StandardCharsets.US_ASCII));
+            body.append("  call i32 (ptr, ...) @printf(ptr ").append(format)
+                    .append(", double ").append(value).append(")\n");
+        }
+        return null;
+    }
+
+    @Override
+    public String visitScanStmt(CustomLangParser.ScanStmtContext ctx) {
+        String id = ctx.ID().getText();
+        String slot = slot(id);
+        reads = true;
+        String format = constant("%lf".getBytes(StandardCharsets.US_ASCII));
+        String count = temporary();
+        String ok = temporary();
+        String next = "read" + labels++;
+        body.append("  ").append(count).append(" = call i32 (ptr, ...) @scanf(ptr ").append(format)
+                .append(", ptr ").append(slot).append(")\n");
+        body.append("  ").append(ok).append(" = icmp eq i32 ").append(count).append(", 1\n");
+        body.append("  br i1 ").append(ok).append(", label %").append(next).append(", label %input.error\n\n");
+        body.append(next).append(":\n");
+        if (!memory) {
+            String value = "%" + id + "." + temporaries++;
+            body.append("  ").append(value).append(" = load double, ptr ").append(slot).append("\n");
+            values.put(id, value);
+        }
+        return null;
+    }
+
+    @Override
+    public String visitExpr(CustomLangParser.ExprContext ctx) {
+        if (ctx.op != null) {
+            Reassociation.Terms terms = options.reassociate ? Reassociation.chain(ctx) : null;
+            if (terms != null) {
+                String instruction = terms.op.equals("*") ? "fmul" : "fadd";
+                String positive = Reassociation.balance(values(terms.positive), (a, b) -> binary(instruction, a, b));
+                if (terms.negative.isEmpty()) {
+                    return positive;
+                }
+                String negative = Reassociation.balance(values(terms.negative), (a, b) -> binary("fadd", a, b));
+                return binary("fsub", positive, negative);
+            }
+            String left = visit(ctx.expr(0));
+            String right = visit(ctx.expr(1));
+            String instruction;
+            switch (ctx.op.getText()) {
+                case "+": instruction = "fadd"; break;
+                case "-": instruction = "fsub"; break;
+                case "*": instruction = "fmul"; break;
+                default: instruction = "fdiv"; break;
+            }
+            return binary(instruction, left, right);
+        } else if (ctx.NUMBER() != null) {
+            double value = Double.parseDouble(ctx.NUMBER().getText());
+            return String.format("0x%016X", Double.doubleToRawLongBits(value));
+        } else if (ctx.ID() != null && memory) {
+            String value = temporary();
+            body.append("  ").append(value).append(" = load double, ptr ").append(slot(ctx.ID().getText())).append("\n");
+            return value;
+        } else if (ctx.ID() != null) {
+            String value = values.get(ctx.ID().getText());
+            if (value == null) {
+                throw new IllegalStateException("line " + ctx.start.getLine() + ": variable '"
+                        + ctx.ID().getText() + "' is used before it is defined");
+            }
+            return value;
+        } else if (ctx.aggregate != null) {
+            throw new IllegalStateException("line " + ctx.start.getLine() + ": --emit-llvm does not support "
+                    + ctx.aggregate.getText() + "(INPUT)");
+        } else {
+            return visit(ctx.expr(0));
+        }
+    }
+
+    private List<String> values(List<CustomLangParser.ExprContext> terms) {
+        List<String> result = new ArrayList<>(terms.size());
+        for (CustomLangParser.ExprContext term : terms) {
+            result.add(visit(term));
+        }
+        return result;
+    }
+
+    /** With {@code --reassociate}, {@code contract} lets llc fuse a multiply and an add into an FMA. */
+    private String binary(String instruction, String left, String right) {
+        String result = temporary();
+        body.append("  ").append(result).append(" = ").append(instruction)
+                .append(options.reassociate ? " contract double " : " double ")
+                .append(left).append(", ").append(right).append("\n");
+        return result;
+    }
+
+    private String temporary() {
+        return "%t" + temporaries++;
+    }
+
+    /** Interns a NUL-terminated byte string as a private global. */
+    private String constant(byte[] bytes) {
+        String key = new String(bytes, StandardCharsets.ISO_8859_1);
+        String name = constants.get(key);
+        if (name == null) {
+            name = "@.str." + constants.size();
+            constants.put(key, name);
+            globals.append(name).append(" = private unnamed_addr constant [").append(bytes.length + 1)
+                    .append(" x i8] c\"");
+            for (byte b : bytes) {
+                int c = b & 0xff;
+                if (c >= 0x20 && c < 0x7f && c != '"' && c != '\\') {
+                    globals.append((char) c);
+                } else {
+                    globals.append('\\').append(String.format("%02X", c));
+                }
+            }
+            globals.append("\\00\"\n");
+        }
+        return name;
+    }
+
+    /** Decodes a {@code STRING} token the way a C compiler reads the same literal. */
+    static byte[] unescape(String literal) {
+        String text = literal.substring(1, literal.length() - 1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c != '\\' || i + 1 == text.length()) {
+                int end = Character.isHighSurrogate(c) && i + 1 < text.length() ? i + 2 : i + 1;
+                byte[] bytes = text.substring(i, end).getBytes(StandardCharsets.UTF_8);
+                out.write(bytes, 0, bytes.length);
+                i = end - 1;
+                continue;
+            }
+            char escape = text.charAt(++i);
+            switch (escape) {
+                case 'n': out.write('\n'); break;
+                case 't': out.write('\t'); break;
+                case 'r': out.write('\r'); break;
+                case 'a': out.write(7); break;
+                case 'b': out.write('\b'); break;
+                case 'f': out.write('\f'); break;
+                case 'v': out.write(11); break;
+                case 'x': {
+                    int value = 0;
+                    while (i + 1 < text.length() && Character.digit(text.charAt(i + 1), 16) >= 0) {
+                        value = value * 16 + Character.digit(text.charAt(++i), 16);
+                    }
+                    out.write(value);
+                    break;
+                }
+                default:
+                    if (escape >= '0' && escape <= '7') {
+                        int value = escape - '0';
+                        for (int digits = 1; digits < 3 && i + 1 < text.length()
+                                && text.charAt(i + 1) >= '0' && text.charAt(i + 1) <= '7'; digits++) {
+                            value = value * 8 + (text.charAt(++i) - '0');
+                        }
+                        out.write(value);
+                    } else {
+                        out.write(escape);
+                    }
+            }
+        }
+        return out.toByteArray();
+    }
+}
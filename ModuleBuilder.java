@@ -0,0 +1,351 @@
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Separate compilation of programs split into modules. {@code IMPORT util;}
+ * at the top of a file runs the statements of {@code util.customlang}, next
+ * to it, once before its own, and makes the variables util EXPORTs readable
+ * in it, but not assignable. Every module becomes its own translation unit
+ * {@code util.c}, with a header {@code util.h} that declares its exports and
+ * its initializer, and the program builds with {@code gcc output.c util.c}.
+ *
+ * <p>Both files start with the module's key: a hash of its source, the
+ * options that change the generated code, the grammar and the classes that
+ * generate the code, and the keys of the modules it imports, so editing a
+ * module changes the key of every module that depends on it and nothing
+ * else, and a new compiler regenerates them all. A module whose files
+ * already carry its key is not even parsed again. Modules are generated in
+ * parallel, each once the modules it imports are. With {@code --native},
+ * {@link NativeBuilder} caches objects by the hash of their translation
+ * unit, so only the regenerated units go through gcc, in parallel, before
+ * everything is linked.
+ */
+public class ModuleBuilder {
+
+    /** The classes whose code decides the C a module compiles to. */
+    private static final String[] GENERATOR_CLASSES = {
+        "Compiler", "SymbolTable", "Reassociation", "IntegerInference", "PartialEvaluation", "ModuleBuilder",
+    };
+
+    private static String generatorHash;
+
+    /** A source file of a modular build. */
+    static final class Module {
+        final String name;
+        final Path source;
+        final String text;
+        final boolean main;
+        /** The names in its IMPORTs, in order. */
+        final List<Token> imports = new ArrayList<>();
+        final List<Module> dependencies = new ArrayList<>();
+        String key;
+        List<String> exports;
+        /** The translation unit and whether this build wrote it. */
+        Path unit;
+        boolean generated;
+
+        Module(String name, Path source, String text, boolean main) {
+            this.name = name;
+            this.source = source;
+            this.text = text;
+            this.main = main;
+        }
+    }
+
+    private final CompilerOptions options;
+    private final Path directory;
+    private final String mainUnit;
+    private final Map<Path, Module> modules = new LinkedHashMap<>();
+    private final List<Module> order = new ArrayList<>();
+
+    /** Writes the translation units into {@code directory}, the main program's as {@code mainUnit}. */
+    ModuleBuilder(CompilerOptions options, Path directory, String mainUnit) {
+        this.options = options;
+        this.directory = directory;
+        this.mainUnit = mainUnit;
+    }
+
+    /** Whether a program IMPORTs modules, and so has to be built by a ModuleBuilder. */
+    static boolean imports(Path source) throws IOException {
+        if (PrecompiledProgram.isPrecompiled(source)) {
+            return false;
+        }
+        return !importTokens(new String(Files.readAllBytes(source), StandardCharsets.UTF_8)).isEmpty();
+    }
+
+    /** The C name of a variable a module exports. */
+    static String symbol(String module, String id) {
+        return "cl_" + module + "__" + id;
+    }
+
+    /** The C function that runs the statements of a module. */
+    static String initializer(String module) {
+        return "cl_module_" + module;
+    }
+
+    /** The variables a program EXPORTs, in order of first export. */
+    static List<String> exports(CustomLangParser.ProgramContext program) {
+        Set<String> exports = new LinkedHashSet<>();
+        for (CustomLangParser.StatementContext statement : program.statement()) {
+            if (statement.exportStmt() != null) {
+                for (TerminalNode id : statement.exportStmt().ID()) {
+                    exports.add(id.getText());
+                }
+            }
+        }
+        return new ArrayList<>(exports);
+    }
+
+    /**
+     * Generates the translation units of {@code main} and of every module it
+     * imports, directly or not, where they are out of date. Returns the
+     * modules with the ones they import first and the main program last.
+     */
+    List<Module> generate(Path main) throws IOException {
+        if (options.emitLlvm || options.columnar || options.batch || options.fastIo || options.profile
+                || !options.bindings.isEmpty()) {
+            throw new IllegalStateException("Programs with IMPORT compile to C with stdio; "
+                    + "--emit-llvm, --columnar, --batch, --threads, --fast-io, --profile and --bind are not supported");
+        }
+        Path source = main.toAbsolutePath().normalize();
+        load(source, baseName(source), true, new ArrayList<>());
+        Files.createDirectories(directory);
+        int threads = Math.min(order.size(), Runtime.getRuntime().availableProcessors());
+        if (threads == 1) {
+            for (Module module : order) {
+                generate(module);
+            }
+            return order;
+        }
+        // A module waits for the modules it imports, which come before it in order. The pool
+        // takes the tasks in that order, so what a task waits for has been started already.
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Map<Module, Future<?>> tasks = new HashMap<>();
+        try {
+            for (Module module : order) {
+                List<Future<?>> dependencies = new ArrayList<>();
+                for (Module dependency : module.dependencies) {
+                    dependencies.add(tasks.get(dependency));
+                }
+                tasks.put(module, executor.submit(() -> {
+                    for (Future<?> dependency : dependencies) {
+                        dependency.get();
+                    }
+                    generate(module);
+                    return null;
+                }));
+            }
+            for (Module module : order) {
+                tasks.get(module).get();
+            }
+        } catch (ExecutionException e) {
+            // The first module to fail, in order, is one whose dependencies were all generated.
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while generating modules", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return order;
+    }
+
+    /** Reads a module and, depth first, the modules it imports, which are added to {@link #order} before it. */
+    private Module load(Path source, String name, boolean main, List<Module> importing) throws IOException {
+        String text = new String(Files.readAllBytes(source), StandardCharsets.UTF_8);
+        Module module = new Module(name, source, text, main);
+        module.imports.addAll(importTokens(text));
+        modules.put(source, module);
+        importing.add(module);
+        for (Token id : module.imports) {
+            Path dependencySource = source.resolveSibling(id.getText() + ".customlang");
+            Module dependency = modules.get(dependencySource);
+            if (importing.contains(dependency)) {
+                StringBuilder cycle = new StringBuilder();
+                for (Module m : importing.subList(importing.indexOf(dependency), importing.size())) {
+                    cycle.append(m.name).append(" -> ");
+                }
+                throw error(module, id, "module '" + id.getText() + "' imports itself: " + cycle + id.getText());
+            }
+            if (dependency == null) {
+                if (!Files.isRegularFile(dependencySource)) {
+                    throw error(module, id, "module '" + id.getText() + "' not found: there is no " + dependencySource);
+                }
+                if (mainUnit.equals(id.getText() + ".c")) {
+                    throw error(module, id, "a module cannot be named '" + id.getText() + "'");
+                }
+                dependency = load(dependencySource, id.getText(), false, importing);
+            }
+            if (module.dependencies.contains(dependency)) {
+                throw error(module, id, "module '" + id.getText() + "' is already imported");
+            }
+            module.dependencies.add(dependency);
+        }
+        importing.remove(importing.size() - 1);
+        order.add(module);
+        return module;
+    }
+
+    private void generate(Module module) throws IOException {
+        StringBuilder key = new StringBuilder(String.format("infer-int %b, slots %b, reassociate %b, chunks %d above %d",
+                options.inferInt, options.slots, options.reassociate, options.chunkSize, options.chunkAbove));
+        key.append("\0").append(generatorHash());
+        key.append("\0").append(module.main ? "main " : "module ").append(module.name).append("\0").append(module.text);
+        for (Module dependency : module.dependencies) {
+            key.append("\0").append(dependency.name).append(" ").append(dependency.key);
+        }
+        module.key = NativeBuilder.hash(key.toString());
+        String stamp = "/* CustomLang module " + module.name + ", key " + module.key + " */";
+        module.unit = directory.resolve(module.main ? mainUnit : module.name + ".c");
+        Path header = directory.resolve(module.name + ".h");
+        if (stamp.equals(firstLine(module.unit)) && (module.main || stamp.equals(firstLine(header)))) {
+            List<String> lines = module.main ? Collections.emptyList() : Files.readAllLines(header);
+            String exports = lines.size() > 1 ? lines.get(1).replaceAll("^/\\* exports:|\\*/$", "").trim() : "";
+            module.exports = exports.isEmpty() ? Collections.emptyList() : Arrays.asList(exports.split(" "));
+            return;
+        }
+
+        Diagnostics diagnostics = new Diagnostics(module.source.toString(), options.maxErrors, options.strict);
+        CustomLangParser.ProgramContext tree = diagnostics.parse(CharStreams.fromString(module.text, module.source.toString()));
+        String code = null;
+        try {
+            if (tree != null) {
+                Map<String, String> imported = new LinkedHashMap<>();
+                List<String> imports = new ArrayList<>();
+                for (int i = 0; i < module.dependencies.size(); i++) {
+                    Module dependency = module.dependencies.get(i);
+                    for (String id : dependency.exports) {
+                        String other = imported.putIfAbsent(id, dependency.name);
+                        if (other != null) {
+                            diagnostics.error("modules", module.imports.get(i), "variable '" + id
+                                    + "' is exported by both module '" + other + "' and module '" + dependency.name + "'");
+                        }
+                    }
+                    imports.add(dependency.name);
+                }
+                if (!diagnostics.hasErrors()) {
+                    code = new Compiler(options, diagnostics)
+                            .module(module.main ? null : module.name, imports, imported).visit(tree);
+                }
+            }
+        } catch (Diagnostics.LimitReached e) {
+            // The errors so far are in diagnostics.
+        } catch (IllegalStateException e) {
+            if (!diagnostics.hasErrors() && !options.jsonDiagnostics) {
+                throw new IllegalStateException(module.source + ": " + e.getMessage(), e);
+            } else if (!diagnostics.hasErrors()) {
+                diagnostics.generatorError(e.getMessage());
+            }
+        }
+        if (diagnostics.hasErrors()) {
+            throw new IllegalStateException(options.jsonDiagnostics ? diagnostics.toJson() : diagnostics.toText().trim());
+        }
+        module.exports = exports(tree);
+        module.generated = true;
+        Files.write(module.unit, (stamp + "\n" + code + "\n").getBytes(StandardCharsets.UTF_8));
+        if (!module.main) {
+            Files.write(header, header(module, stamp).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * A hash of the grammar and of the class files of {@link #GENERATOR_CLASSES},
+     * as loaded. Where the class files cannot be read, as in a native image,
+     * the grammar and the class names are hashed.
+     */
+    private static synchronized String generatorHash() throws IOException {
+        if (generatorHash == null) {
+            MessageDigest digest = NativeBuilder.sha256();
+            digest.update((CustomLangLexer._serializedATN + "\0" + CustomLangParser._serializedATN)
+                    .getBytes(StandardCharsets.UTF_8));
+            for (String name : GENERATOR_CLASSES) {
+                digest.update(("\0" + name + "\0").getBytes(StandardCharsets.UTF_8));
+                try (InputStream in = ModuleBuilder.class.getResourceAsStream("/" + name + ".class")) {
+                    if (in != null) {
+                        digest.update(in.readAllBytes());
+                    }
+                }
+            }
+            generatorHash = NativeBuilder.hex(digest.digest());
+        }
+        return generatorHash;
+    }
+
+    /** Declares the exports and the initializer; the exports are also listed for builds that skip the module. */
+    private static String header(Module module, String stamp) {
+        StringBuilder header = new StringBuilder(stamp).append("\n");
+        header.append("/* exports: ").append(String.join(" ", module.exports)).append(" */\n");
+        String guard = "CL_MODULE_" + module.name + "_H";
+        header.append("#ifndef ").append(guard).append("\n#define ").append(guard).append("\n\n");
+        for (String id : module.exports) {
+            header.append("extern double ").append(symbol(module.name, id)).append(";\n");
+        }
+        header.append("\nvoid ").append(initializer(module.name)).append("(void);\n\n#endif\n");
+        return header.toString();
+    }
+
+    /** The names in the IMPORTs at the start of a source, found by lexing alone. */
+    private static List<Token> importTokens(String text) {
+        CustomLangLexer lexer = new CustomLangLexer(CharStreams.fromString(text));
+        lexer.removeErrorListeners();
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        List<Token> imports = new ArrayList<>();
+        for (int i = 1; tokens.LT(i).getText().equals("IMPORT") && tokens.LT(i + 1).getType() == CustomLangLexer.ID
+                && tokens.LT(i + 2).getText().equals(";"); i += 3) {
+            imports.add(tokens.LT(i + 1));
+        }
+        return imports;
+    }
+
+    private IllegalStateException error(Module module, Token token, String message) {
+        Diagnostics diagnostics = new Diagnostics(module.source.toString(), options.maxErrors, options.strict);
+        try {
+            diagnostics.error("modules", token, message);
+        } catch (Diagnostics.LimitReached e) {
+            // A single error.
+        }
+        return new IllegalStateException(options.jsonDiagnostics ? diagnostics.toJson() : diagnostics.toText().trim());
+    }
+
+    private static String firstLine(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            return reader.readLine();
+        }
+    }
+
+    static String baseName(Path source) {
+        return source.getFileName().toString().replaceFirst("\\.[^.]*$", "");
+    }
+}
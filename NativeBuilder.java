@@ -0,0 +1,382 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds native binaries from generated C without temporary source files: the
+ * C code is streamed into {@code gcc -x c -}. Objects and binaries are cached
+ * under {@link #cacheDirectory()}, {@code $CUSTOMLANG_CACHE} or
+ * {@code .customlang-cache}, keyed by a hash of the C code, the compiler
+ * version and the flags, so rebuilding an unchanged program is a file copy.
+ */
+public class NativeBuilder {
+
+    static final String CC = System.getenv().getOrDefault("CC", "gcc");
+
+    private static String compilerVersion;
+
+    private final List<String> cflags;
+    private final List<String> ldflags;
+    private final Path cache;
+
+    /** Timings and cache outcome of one build, in milliseconds. */
+    static class Report {
+        /** Whether the build used a profile, was given a cached one, and how long training took. */
+        boolean profiled;
+        boolean profileHit;
+        double trainMs;
+        boolean objectHit;
+        boolean binaryHit;
+        int objects;
+        int objectHits;
+        double objectMs;
+        double linkMs;
+
+        @Override
+        public String toString() {
+            String object = objects > 1 ? String.format("objects %d/%d hit", objectHits, objects)
+                    : "object " + (objectHit ? "hit" : "miss");
+            String profile = profiled ? String.format("profile %s %.1f ms, ", profileHit ? "hit" : "miss", trainMs) : "";
+            return String.format("%s%s %.1f ms, link %s %.1f ms", profile, object, objectMs,
+                    binaryHit ? "hit" : "miss", linkMs);
+        }
+    }
+
+    public NativeBuilder(List<String> cflags, List<String> ldflags) {
+        this.cflags = cflags;
+        this.ldflags = ldflags;
+        this.cache = cacheDirectory();
+    }
+
+    static Path cacheDirectory() {
+        String directory = System.getenv("CUSTOMLANG_CACHE");
+        return Paths.get(directory != null ? directory : ".customlang-cache");
+    }
+
+    /** Compiles {@code cCode} and links it into {@code binary}. */
+    public Report build(String cCode, Path binary) throws IOException, InterruptedException {
+        return build(Collections.singletonList(cCode), null, binary);
+    }
+
+    /**
+     * Compiles translation units, in parallel, and links them into
+     * {@code binary}. They may include headers from {@code includes}; an
+     * object is keyed by its unit alone, so a unit has to change whenever a
+     * header it includes does, as {@link ModuleBuilder}'s keys make sure.
+     */
+    public Report build(List<String> units, Path includes, Path binary) throws IOException, InterruptedException {
+        Report report = new Report();
+        long start = System.nanoTime();
+        report.objects = units.size();
+        List<String> objectKeys = new ArrayList<>();
+        if (units.size() == 1) {
+            objectKeys.add(object(units.get(0), includes, report));
+        } else {
+            int threads = Math.min(units.size(), Runtime.getRuntime().availableProcessors());
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<String>> keys = new ArrayList<>();
+                for (String unit : units) {
+                    keys.add(executor.submit(() -> object(unit, includes, report)));
+                }
+                for (Future<String> key : keys) {
+                    objectKeys.add(key.get());
+                }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        report.objectHit = report.objectHits == report.objects;
+        report.objectMs = (System.nanoTime() - start) / 1e6;
+        link(objectKeys, binary, report);
+        return report;
+    }
+
+    /**
+     * Builds {@code cCode} with profile-guided optimization. An instrumented
+     * binary is run on every training input, and the profile it writes is
+     * cached by the same hash as an object of the C code and a hash of the
+     * training inputs' contents, so a program whose C code and inputs have
+     * not changed is not trained again. gcc only accepts a profile
+     * for the code it was recorded on, which the compiler keeps stable by
+     * generating the same C for the same program and options.
+     */
+    public Report buildWithProfile(String cCode, List<Path> training, Path binary)
+            throws IOException, InterruptedException {
+        Report report = new Report();
+        report.profiled = true;
+        report.objects = 1;
+        long start = System.nanoTime();
+        String profileKey = hash(compilerVersion() + "\0" + String.join(" ", cflags) + "\0" + hash(training)
+                + "\0" + cCode);
+        Path profile = cache.resolve("profiles").resolve(profileKey + ".gcda");
+        report.profileHit = Files.exists(profile);
+        if (!report.profileHit) {
+            train(cCode, training, profile);
+        }
+        report.trainMs = (System.nanoTime() - start) / 1e6;
+
+        start = System.nanoTime();
+        String objectKey = hash(compilerVersion() + "\0" + String.join(" ", cflags) + " -fprofile-use " + profileKey
+                + "\0" + cCode);
+        Path object = cache.resolve("objects").resolve(objectKey + ".o");
+        report.objectHit = Files.exists(object);
+        if (report.objectHit) {
+            report.objectHits++;
+        } else {
+            Path work = Files.createTempDirectory("customlang-pgo");
+            try {
+                Path source = writeSource(work, cCode);
+                Files.copy(profile, work.resolve("program.gcda"));
+                // Code the training inputs never ran is optimized as without a profile.
+                compileProfiled(work, source, "-fprofile-use", "-fprofile-partial-training");
+                Path temporary = temporaryFile(object);
+                Files.move(work.resolve("program.o"), temporary, StandardCopyOption.REPLACE_EXISTING);
+                publish(temporary, object);
+            } finally {
+                delete(work);
+            }
+        }
+        report.objectMs = (System.nanoTime() - start) / 1e6;
+        link(Collections.singletonList(objectKey), binary, report);
+        return report;
+    }
+
+    /** Runs an instrumented build of {@code cCode} on the training inputs and caches the profile it writes. */
+    private void train(String cCode, List<Path> training, Path profile) throws IOException, InterruptedException {
+        Path work = Files.createTempDirectory("customlang-pgo");
+        try {
+            Path source = writeSource(work, cCode);
+            List<String> generate = new ArrayList<>();
+            generate.add("-fprofile-generate");
+            if (ldflags.contains("-pthread")) {
+                // Threaded programs would lose counts to races.
+                generate.add("-fprofile-update=prefer-atomic");
+            }
+            compileProfiled(work, source, generate.toArray(new String[0]));
+            Path instrumented = work.resolve("instrumented");
+            List<String> command = new ArrayList<>();
+            command.add(CC);
+            command.add(work.resolve("program.o").toString());
+            command.addAll(generate);
+            command.add("-o");
+            command.add(instrumented.toString());
+            command.addAll(ldflags);
+            run(command, null, instrumented);
+            for (Path input : training) {
+                Process process = new ProcessBuilder(instrumented.toString())
+                        .redirectInput(input.toFile())
+                        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                        .redirectError(ProcessBuilder.Redirect.DISCARD)
+                        .start();
+                int status = process.waitFor();
+                if (status != 0) {
+                    throw new IOException("The training run on " + input + " failed with exit status " + status);
+                }
+            }
+            // gcc names the profile after the object, in the object's directory.
+            Path temporary = temporaryFile(profile);
+            Files.move(work.resolve("program.gcda"), temporary, StandardCopyOption.REPLACE_EXISTING);
+            publish(temporary, profile);
+        } finally {
+            delete(work);
+        }
+    }
+
+    /** Writes the C code to a file in {@code work}; the profile is tied to the names of the source and the object. */
+    private static Path writeSource(Path work, String cCode) throws IOException {
+        Path source = work.resolve("program.c");
+        Files.write(source, cCode.getBytes(StandardCharsets.UTF_8));
+        return source;
+    }
+
+    /**
+     * Compiles the source in {@code work} to {@code program.o} next to it.
+     * gcc checks a profile against the source file name as well, so both
+     * are named relative to {@code work}, whichever directory it is.
+     */
+    private void compileProfiled(Path work, Path source, String... flags) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(CC);
+        command.addAll(cflags);
+        command.addAll(Arrays.asList(flags));
+        command.add("-c");
+        command.add(source.getFileName().toString());
+        command.add("-o");
+        command.add("program.o");
+        run(command, null, work.resolve("program.o"), work);
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /** Links cached objects into {@code binary}, through the binary cache. */
+    private void link(List<String> objectKeys, Path binary, Report report) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        String binaryKey = hash(String.join("\0", objectKeys) + "\0" + String.join(" ", ldflags));
+        Path cached = cache.resolve("bin").resolve(binaryKey);
+        report.binaryHit = Files.exists(cached);
+        if (!report.binaryHit) {
+            List<String> command = new ArrayList<>();
+            command.add(CC);
+            for (String objectKey : objectKeys) {
+                command.add(cache.resolve("objects").resolve(objectKey + ".o").toString());
+            }
+            command.add("-o");
+            Path temporary = temporaryFile(cached);
+            command.add(temporary.toString());
+            command.addAll(ldflags);
+            run(command, null, temporary);
+            publish(temporary, cached);
+        }
+        Files.copy(cached, binary, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        report.linkMs = (System.nanoTime() - start) / 1e6;
+    }
+
+    /** Compiles a translation unit unless its object is cached; returns the object's key. */
+    private String object(String cCode, Path includes, Report report) throws IOException, InterruptedException {
+        String objectKey = hash(compilerVersion() + "\0" + String.join(" ", cflags) + "\0" + cCode);
+        Path object = cache.resolve("objects").resolve(objectKey + ".o");
+        if (Files.exists(object)) {
+            synchronized (report) {
+                report.objectHits++;
+            }
+        } else {
+            List<String> command = new ArrayList<>();
+            command.add(CC);
+            command.addAll(cflags);
+            if (includes != null) {
+                command.add("-I" + includes);
+            }
+            command.add("-x");
+            command.add("c");
+            command.add("-c");
+            command.add("-");
+            command.add("-o");
+            Path temporary = temporaryFile(object);
+            command.add(temporary.toString());
+            run(command, cCode, temporary);
+            publish(temporary, object);
+        }
+        return objectKey;
+    }
+
+    private static void run(List<String> command, String stdin, Path output) throws IOException, InterruptedException {
+        run(command, stdin, output, null);
+    }
+
+    private static void run(List<String> command, String stdin, Path output, Path directory)
+            throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(command);
+        if (directory != null) {
+            builder.directory(directory.toFile());
+        }
+        builder.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        Process process = builder.start();
+        try (Writer writer = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8)) {
+            if (stdin != null) {
+                writer.write(stdin);
+            }
+        }
+        int status = process.waitFor();
+        if (status != 0) {
+            Files.deleteIfExists(output);
+            throw new IOException(String.join(" ", command) + " failed with exit status " + status);
+        }
+    }
+
+    private static Path temporaryFile(Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        return Files.createTempFile(target.getParent(), "tmp", ".part");
+    }
+
+    /** Moves a finished file into the cache, so concurrent builds never see it half written. */
+    private static void publish(Path temporary, Path target) throws IOException {
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static synchronized String compilerVersion() throws IOException, InterruptedException {
+        if (compilerVersion == null) {
+            Process process = new ProcessBuilder(CC, "-dumpfullversion", "-dumpversion")
+                    .redirectErrorStream(true).start();
+            process.getOutputStream().close();
+            byte[] output = readAll(process.getInputStream());
+            process.waitFor();
+            compilerVersion = CC + " " + new String(output, StandardCharsets.UTF_8).trim();
+        }
+        return compilerVersion;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    static String hash(String text) {
+        MessageDigest digest = sha256();
+        return hex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /** Hashes the contents of files, in order, each prefixed by its length. */
+    static String hash(List<Path> files) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[1 << 16];
+        for (Path file : files) {
+            digest.update((Files.size(file) + "\0").getBytes(StandardCharsets.UTF_8));
+            try (InputStream in = Files.newInputStream(file)) {
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    digest.update(buffer, 0, n);
+                }
+            }
+        }
+        return hex(digest.digest());
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String hex(byte[] digest) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,309 @@
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTreeProperty;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Partial evaluation for {@code --bind}: a READ of a bound variable yields
+ * its bound value, which is propagated in program order through every
+ * expression that depends only on constants, so {@link Compiler} can emit a
+ * residual program that computes only what still depends on the input.
+ *
+ * <p>Constants are evaluated the way C evaluates the original code. Integer
+ * literals and their arithmetic are C {@code int} arithmetic, so
+ * {@code 7 / 2} is 3; everything else is double arithmetic, which Java and C
+ * round alike. What C would not compute the same way (int overflow, integer
+ * division by zero, NaN and infinities) is left to the program.
+ *
+ * <p>A variable assigned in a loop, or in a branch of an IF whose condition
+ * is not constant, is not constant after the statement. Its constant
+ * definitions may not have been emitted, so its value is assigned to it
+ * before the statement (see {@link #materialized}).
+ *
+ * <p>{@code --bind-file} holds one {@code name=value} per line, with
+ * {@code #} comments. Top-level definitions of constant variables are left
+ * out, and a WRITE of a constant is printed into its message at compile
+ * time, so a fully bound program is a series of {@code fwrite}s.
+ */
+public class PartialEvaluation {
+
+    /** A constant expression, with the C type of the expression it replaces. */
+    static final class Constant {
+        final double value;
+        /** Whether C evaluates the expression as an {@code int}. */
+        final boolean integer;
+
+        Constant(double value, boolean integer) {
+            this.value = value;
+            this.integer = integer;
+        }
+
+        /** A C literal of the same type and value; Double.toString gives digits that read back exactly. */
+        String toC() {
+            String literal = integer ? Long.toString((long) value) : Double.toString(value);
+            return Double.doubleToRawLongBits(value) < 0 ? "(" + literal + ")" : literal;
+        }
+    }
+
+    private final Map<String, Double> bindings;
+    private final SymbolTable symbols;
+    private final boolean reassociate;
+    private final ParseTreeProperty<Constant> constants = new ParseTreeProperty<>();
+    private final ParseTreeProperty<Boolean> conditions = new ParseTreeProperty<>();
+    private final ParseTreeProperty<Map<String, Double>> materialized = new ParseTreeProperty<>();
+    private final Set<String> read = new HashSet<>();
+    private Map<String, Double> known = new HashMap<>();
+
+    private PartialEvaluation(Map<String, Double> bindings, SymbolTable symbols, boolean reassociate) {
+        this.bindings = bindings;
+        this.symbols = symbols;
+        this.reassociate = reassociate;
+    }
+
+    static PartialEvaluation analyze(CustomLangParser.ProgramContext program, Map<String, Double> bindings,
+                                     SymbolTable symbols, boolean reassociate) {
+        PartialEvaluation evaluation = new PartialEvaluation(bindings, symbols, reassociate);
+        evaluation.statements(program.statement());
+        for (String name : bindings.keySet()) {
+            if (!evaluation.read.contains(name)) {
+                throw new IllegalStateException("--bind " + name + ": the program never READs '" + name + "'");
+            }
+            if (symbols.length(name) > 0) {
+                throw new IllegalStateException("--bind " + name + ": '" + name + "' is an array");
+            }
+        }
+        return evaluation;
+    }
+
+    /** The value of an expression, or null if it depends on the input. */
+    Constant constant(CustomLangParser.ExprContext expr) {
+        return constants.get(expr);
+    }
+
+    /** Whether a condition is always true or always false, or null if it depends on the input. */
+    Boolean taken(CustomLangParser.ConditionContext condition) {
+        return conditions.get(condition);
+    }
+
+    /** The variables to assign their constant values to before a loop or an IF. */
+    Map<String, Double> materialized(ParserRuleContext statement) {
+        Map<String, Double> values = materialized.get(statement);
+        return values != null ? values : Collections.emptyMap();
+    }
+
+    boolean bound(String id) {
+        return bindings.containsKey(id);
+    }
+
+    /** A double as {@code printf("%lf")} prints it: the exact binary value rounded half to even. */
+    static String format(double value) {
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "inf" : "-inf";
+        }
+        BigDecimal rounded = new BigDecimal(value).setScale(6, RoundingMode.HALF_EVEN);
+        String text = rounded.toPlainString();
+        // BigDecimal has no negative zero, printf keeps the sign of -0.0 and of what rounds to it.
+        return Double.doubleToRawLongBits(value) < 0 && rounded.signum() == 0 ? "-" + text : text;
+    }
+
+    private void statements(List<CustomLangParser.StatementContext> statements) {
+        for (CustomLangParser.StatementContext statement : statements) {
+            statement(statement);
+        }
+    }
+
+    private void statement(CustomLangParser.StatementContext statement) {
+        if (statement.declaration() != null) {
+            known.remove(statement.declaration().ID().getText());
+        } else if (statement.assignment() != null) {
+            String id = statement.assignment().ID().getText();
+            Constant value = expr(statement.assignment().expr());
+            if (value != null && symbols.length(id) == 0) {
+                known.put(id, value.value);
+            } else {
+                known.remove(id);
+            }
+        } else if (statement.scanStmt() != null) {
+            String id = statement.scanStmt().ID().getText();
+            read.add(id);
+            if (bound(id) && symbols.length(id) == 0) {
+                known.put(id, bindings.get(id));
+            } else {
+                known.remove(id);
+            }
+        } else if (statement.printStmt() != null) {
+            if (statement.printStmt().expr() != null) {
+                expr(statement.printStmt().expr());
+            }
+        } else if (statement.whileStmt() != null) {
+            loop(statement.whileStmt(), statement.whileStmt().condition(), statement.whileStmt().block());
+        } else if (statement.repeatStmt() != null) {
+            // The count is evaluated once, before the loop.
+            expr(statement.repeatStmt().expr());
+            loop(statement.repeatStmt(), null, statement.repeatStmt().block());
+        } else if (statement.ifStmt() != null) {
+            ifStmt(statement.ifStmt());
+        } else if (statement.expr() != null) {
+            expr(statement.expr());
+        }
+    }
+
+    private void loop(ParserRuleContext loop, CustomLangParser.ConditionContext condition,
+                      CustomLangParser.BlockContext block) {
+        Set<String> defined = materialize(loop);
+        if (condition != null) {
+            condition(condition);
+        }
+        statements(block.statement());
+        known.keySet().removeAll(defined);
+    }
+
+    private void ifStmt(CustomLangParser.IfStmtContext ifStmt) {
+        Boolean taken = condition(ifStmt.condition());
+        if (taken == null) {
+            Set<String> defined = materialize(ifStmt);
+            Map<String, Double> before = known;
+            for (CustomLangParser.BlockContext block : ifStmt.block()) {
+                known = new HashMap<>(before);
+                statements(block.statement());
+            }
+            if (ifStmt.ifStmt() != null) {
+                known = new HashMap<>(before);
+                ifStmt(ifStmt.ifStmt());
+            }
+            known = before;
+            known.keySet().removeAll(defined);
+        } else if (taken) {
+            statements(ifStmt.block(0).statement());
+        } else if (ifStmt.block().size() > 1) {
+            statements(ifStmt.block(1).statement());
+        } else if (ifStmt.ifStmt() != null) {
+            ifStmt(ifStmt.ifStmt());
+        }
+    }
+
+    /** Forgets the variables a statement defines and records their constant values. */
+    private Set<String> materialize(ParserRuleContext statement) {
+        Set<String> defined = new HashSet<>();
+        Compiler.definitions(statement, defined);
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (String id : defined) {
+            Double value = known.remove(id);
+            if (value != null) {
+                values.put(id, value);
+            }
+        }
+        materialized.put(statement, values);
+        return defined;
+    }
+
+    private Boolean condition(CustomLangParser.ConditionContext condition) {
+        Constant left = expr(condition.expr(0));
+        Constant right = expr(condition.expr(1));
+        if (left == null || right == null) {
+            return null;
+        }
+        double a = left.value;
+        double b = right.value;
+        boolean taken;
+        switch (condition.op.getText()) {
+            case "<": taken = a < b; break;
+            case "<=": taken = a <= b; break;
+            case ">": taken = a > b; break;
+            case ">=": taken = a >= b; break;
+            case "==": taken = a == b; break;
+            default: taken = a != b; break;
+        }
+        conditions.put(condition, taken);
+        return taken;
+    }
+
+    private Constant expr(CustomLangParser.ExprContext ctx) {
+        Constant result = null;
+        if (ctx.op != null) {
+            Constant left = expr(ctx.expr(0));
+            Constant right = expr(ctx.expr(1));
+            Reassociation.Terms terms = reassociate ? Reassociation.chain(ctx) : null;
+            result = terms != null ? chain(terms) : apply(ctx.op.getText(), left, right);
+        } else if (ctx.NUMBER() != null) {
+            result = literal(ctx.NUMBER().getText());
+        } else if (ctx.ID() != null) {
+            Double value = known.get(ctx.ID().getText());
+            result = value != null ? new Constant(value, false) : null;
+        } else if (ctx.aggregate == null && ctx.expr().size() == 1) {
+            result = expr(ctx.expr(0));
+        }
+        if (result != null) {
+            constants.put(ctx, result);
+        }
+        return result;
+    }
+
+    /** A chain is folded in the balanced order {@link Reassociation} emits it in. */
+    private Constant chain(Reassociation.Terms terms) {
+        Constant positive = Reassociation.balance(values(terms.positive), (a, b) -> apply(terms.op, a, b));
+        if (terms.negative.isEmpty()) {
+            return positive;
+        }
+        return apply("-", positive, Reassociation.balance(values(terms.negative), (a, b) -> apply("+", a, b)));
+    }
+
+    private List<Constant> values(List<CustomLangParser.ExprContext> terms) {
+        List<Constant> values = new ArrayList<>(terms.size());
+        for (CustomLangParser.ExprContext term : terms) {
+            values.add(constants.get(term));
+        }
+        return values;
+    }
+
+    private static Constant literal(String text) {
+        if (text.indexOf('.') >= 0) {
+            return new Constant(Double.parseDouble(text), false);
+        }
+        BigDecimal value = new BigDecimal(text);
+        // Larger literals are long in C; they are left alone.
+        return value.compareTo(BigDecimal.valueOf(Integer.MAX_VALUE)) <= 0 ? new Constant(value.intValue(), true) : null;
+    }
+
+    private static Constant apply(String op, Constant left, Constant right) {
+        if (left == null || right == null) {
+            return null;
+        }
+        if (left.integer && right.integer) {
+            long a = (long) left.value;
+            long b = (long) right.value;
+            long result;
+            switch (op) {
+                case "+": result = a + b; break;
+                case "-": result = a - b; break;
+                case "*": result = a * b; break;
+                default:
+                    if (b == 0) {
+                        return null;
+                    }
+                    result = a / b;
+                    break;
+            }
+            return result >= Integer.MIN_VALUE && result <= Integer.MAX_VALUE ? new Constant(result, true) : null;
+        }
+        double a = left.value;
+        double b = right.value;
+        double result;
+        switch (op) {
+            case "+": result = a + b; break;
+            case "-": result = a - b; break;
+            case "*": result = a * b; break;
+            default: result = a / b; break;
+        }
+        return Double.isFinite(result) ? new Constant(result, false) : null;
+    }
+}
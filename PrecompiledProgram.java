@@ -0,0 +1,405 @@
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.misc.Pair;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.antlr.v4.runtime.tree.TerminalNodeImpl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * The binary format of {@code --precompile}: a parsed and checked program
+ * that {@link Compiler} loads in place of its source, without running the
+ * lexer and the parser. The file is memory mapped and decoded straight from
+ * the mapping.
+ *
+ * <pre>
+ * magic "CLPC", u16 version, u16 reserved, 8 bytes grammar hash,
+ * u32 payload length, u32 CRC32C of the payload, payload:
+ *   symbols:  count, then the name of every identifier, in order of first use
+ *   literals: count, then every distinct NUMBER and STRING
+ *   tokens:   count, then per token 4k + s, k its kind: 0, 1 and 2 for ID,
+ *             NUMBER and STRING, the token type + 2 for the others; s its
+ *             spacing: 0 and 1 for 0 and 1 columns after the previous token,
+ *             2 for column 0 of the next line, 3 for the lines since the
+ *             previous token and the column, which follow; then for ID,
+ *             NUMBER and STRING the index of its symbol or literal
+ *   nodes:    the parse tree in preorder; 0 is the next token, r + 1 a
+ *             context of rule r with the next token as its only child and
+ *             16c + r + 1 one with c children, which follow
+ * </pre>
+ *
+ * Counts and numbers in the payload are unsigned LEB128 varints, strings a
+ * varint length and UTF-8. The grammar hash identifies the rule and token
+ * numbering, so a file is only read by a compiler with the same grammar.
+ *
+ * <p>Loaded tokens read from a text that places them at their original line
+ * and column, without comments, so symbol interning, positions in errors
+ * and statement texts in profiles work as they do on parsed source. Every
+ * mode accepts a {@code .clpc} file in place of its source and generates the
+ * same code from it; a file of another version or grammar, or a damaged
+ * one, is an error asking to precompile again.
+ */
+public final class PrecompiledProgram {
+
+    static final int VERSION = 1;
+    private static final byte[] MAGIC = {'C', 'L', 'P', 'C'};
+    private static final int HEADER = 24;
+    private static byte[] grammarHash;
+
+    private PrecompiledProgram() {
+    }
+
+    /** Whether a file starts with the magic of a precompiled program. */
+    static boolean isPrecompiled(Path file) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read = 0;
+            for (int n; read < magic.length && (n = in.read(magic, read, magic.length - read)) > 0; ) {
+                read += n;
+            }
+            return read == magic.length && Arrays.equals(magic, MAGIC);
+        }
+    }
+
+    /** Writes a program the parser and the symbol checks accepted. */
+    public static void write(CustomLangParser.ProgramContext program, OutputStream out) throws IOException {
+        if (CustomLangParser.ruleNames.length > 15) {
+            throw new IllegalStateException("format version " + VERSION + " numbers at most 15 rules");
+        }
+        List<Token> tokens = new ArrayList<>();
+        ByteArrayOutputStream nodes = new ByteArrayOutputStream();
+        nodes(program, tokens, nodes);
+
+        Map<String, Integer> symbols = new LinkedHashMap<>();
+        Map<String, Integer> literals = new LinkedHashMap<>();
+        ByteArrayOutputStream tokenRecords = new ByteArrayOutputStream();
+        // The line and column where the previous token ends.
+        int line = 1;
+        int column = 0;
+        for (Token token : tokens) {
+            int type = token.getType();
+            int kind = type >= CustomLangParser.ID ? type - CustomLangParser.ID : type + 2;
+            boolean sameLine = token.getLine() == line;
+            int gap = token.getCharPositionInLine() - column;
+            int spacing = sameLine && gap == 0 ? 0 : sameLine && gap == 1 ? 1
+                    : token.getLine() == line + 1 && token.getCharPositionInLine() == 0 ? 2 : 3;
+            varint(tokenRecords, kind << 2 | spacing);
+            if (spacing == 3) {
+                varint(tokenRecords, token.getLine() - line);
+                varint(tokenRecords, token.getCharPositionInLine());
+            }
+            if (type == CustomLangParser.ID) {
+                varint(tokenRecords, symbols.computeIfAbsent(token.getText(), k -> symbols.size()));
+            } else if (pooled(type)) {
+                varint(tokenRecords, literals.computeIfAbsent(token.getText(), k -> literals.size()));
+            }
+            line = token.getLine() + newlines(token.getText());
+            column = end(token.getText(), token.getCharPositionInLine());
+        }
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        strings(payload, symbols);
+        strings(payload, literals);
+        varint(payload, tokens.size());
+        tokenRecords.writeTo(payload);
+        nodes.writeTo(payload);
+
+        CRC32C crc = new CRC32C();
+        crc.update(payload.toByteArray());
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        header.put(MAGIC).putShort((short) VERSION).putShort((short) 0).put(grammarHash())
+                .putInt(payload.size()).putInt((int) crc.getValue());
+        out.write(header.array());
+        payload.writeTo(out);
+    }
+
+    /**
+     * Maps and loads a precompiled program. A file of another version or
+     * grammar, or whose checksum does not match, is reported as an
+     * IllegalStateException.
+     */
+    public static CustomLangParser.ProgramContext load(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            return load(buffer, file.toString());
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalStateException("the file is truncated or corrupt");
+        }
+    }
+
+    /** Loads a precompiled program from a buffer; {@code name} is the source name of its tokens. */
+    static CustomLangParser.ProgramContext load(ByteBuffer buffer, String name) {
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IllegalStateException("not a precompiled CustomLang program");
+        }
+        int version = buffer.getShort() & 0xffff;
+        if (version != VERSION) {
+            throw new IllegalStateException("precompiled with format version " + version + ", this compiler reads version "
+                    + VERSION + "; precompile it again");
+        }
+        buffer.getShort();
+        byte[] hash = new byte[8];
+        buffer.get(hash);
+        if (!Arrays.equals(hash, grammarHash())) {
+            throw new IllegalStateException("precompiled for another version of the grammar; precompile it again");
+        }
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+        ByteBuffer payload = buffer.slice(HEADER, length);
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            throw new IllegalStateException("the file is corrupt: its checksum does not match");
+        }
+
+        String[] symbols = strings(payload);
+        String[] literals = strings(payload);
+        int count = varint(payload);
+        // The tokens are laid out in a text at their line and column, so they can be read back from it.
+        StringBuilder text = new StringBuilder();
+        int[] types = new int[count];
+        String[] texts = new String[count];
+        int[] lines = new int[count];
+        int[] columns = new int[count];
+        int[] starts = new int[count];
+        // The line and column where the text ends, and its length in code points.
+        int line = 1;
+        int column = 0;
+        int index = 0;
+        for (int i = 0; i < count; i++) {
+            int record = varint(payload);
+            int kind = record >>> 2;
+            int spacing = record & 3;
+            types[i] = kind < 3 ? kind + CustomLangParser.ID : kind - 2;
+            lines[i] = line + (spacing < 2 ? 0 : spacing == 2 ? 1 : varint(payload));
+            columns[i] = spacing < 2 ? column + spacing : spacing == 2 ? 0 : varint(payload);
+            texts[i] = types[i] == CustomLangParser.ID ? symbols[varint(payload)]
+                    : pooled(types[i]) ? literals[varint(payload)] : literal(types[i]);
+            if (lines[i] > line) {
+                index += lines[i] - line;
+                for (; line < lines[i]; line++) {
+                    text.append('\n');
+                }
+                column = 0;
+            }
+            int padding = Math.max(columns[i] - column, 0);
+            for (int n = 0; n < padding; n++) {
+                text.append(' ');
+            }
+            starts[i] = index + padding;
+            text.append(texts[i]);
+            index = starts[i] + texts[i].codePointCount(0, texts[i].length());
+            line += newlines(texts[i]);
+            column = end(texts[i], columns[i]);
+        }
+        CharStream stream = CharStreams.fromString(text.toString(), name);
+        Pair<TokenSource, CharStream> source = new Pair<>(null, stream);
+        Token[] tokens = new Token[count];
+        for (int i = 0; i < count; i++) {
+            int codePoints = texts[i].codePointCount(0, texts[i].length());
+            CommonToken token = new CommonToken(source, types[i], Token.DEFAULT_CHANNEL, starts[i],
+                    starts[i] + codePoints - 1);
+            token.setText(texts[i]);
+            token.setLine(lines[i]);
+            token.setCharPositionInLine(columns[i]);
+            token.setTokenIndex(i);
+            tokens[i] = token;
+        }
+
+        int[] next = {0};
+        ParseTree tree = node(payload, null, tokens, next);
+        if (!(tree instanceof CustomLangParser.ProgramContext) || next[0] != count || payload.hasRemaining()) {
+            throw new IllegalStateException("the file is corrupt: its tree does not match its tokens");
+        }
+        return (CustomLangParser.ProgramContext) tree;
+    }
+
+    private static void nodes(ParseTree tree, List<Token> tokens, ByteArrayOutputStream out) {
+        if (tree instanceof TerminalNode) {
+            tokens.add(((TerminalNode) tree).getSymbol());
+            varint(out, 0);
+            return;
+        }
+        ParserRuleContext ctx = (ParserRuleContext) tree;
+        if (ctx.getChildCount() == 1 && ctx.getChild(0) instanceof TerminalNode) {
+            tokens.add(((TerminalNode) ctx.getChild(0)).getSymbol());
+            varint(out, ctx.getRuleIndex() + 1);
+            return;
+        }
+        varint(out, ctx.getChildCount() << 4 | ctx.getRuleIndex() + 1);
+        for (int i = 0; i < ctx.getChildCount(); i++) {
+            nodes(ctx.getChild(i), tokens, out);
+        }
+    }
+
+    private static ParseTree node(ByteBuffer in, ParserRuleContext parent, Token[] tokens, int[] next) {
+        int tag = varint(in);
+        if (tag == 0) {
+            return terminal(parent, tokens, next);
+        }
+        ParserRuleContext ctx = context((tag & 15) - 1, parent);
+        int children = tag >>> 4;
+        // Every child has a token of its own.
+        if (children > tokens.length - next[0]) {
+            throw new IllegalStateException("the file is corrupt: its tree does not match its tokens");
+        }
+        int first = next[0];
+        ctx.children = new ArrayList<>(Math.max(children, 1));
+        if (children == 0) {
+            ctx.children.add(terminal(ctx, tokens, next));
+        }
+        for (int i = 0; i < children; i++) {
+            ctx.children.add(node(in, ctx, tokens, next));
+        }
+        ctx.start = tokens[first];
+        ctx.stop = tokens[next[0] - 1];
+        labels(ctx);
+        return ctx;
+    }
+
+    private static TerminalNode terminal(ParserRuleContext parent, Token[] tokens, int[] next) {
+        TerminalNodeImpl terminal = new TerminalNodeImpl(tokens[next[0]++]);
+        terminal.setParent(parent);
+        return terminal;
+    }
+
+    private static ParserRuleContext context(int rule, ParserRuleContext parent) {
+        switch (rule) {
+            case CustomLangParser.RULE_program: return new CustomLangParser.ProgramContext(parent, -1);
+            case CustomLangParser.RULE_importStmt: return new CustomLangParser.ImportStmtContext(parent, -1);
+            case CustomLangParser.RULE_statement: return new CustomLangParser.StatementContext(parent, -1);
+            case CustomLangParser.RULE_declaration: return new CustomLangParser.DeclarationContext(parent, -1);
+            case CustomLangParser.RULE_assignment: return new CustomLangParser.AssignmentContext(parent, -1);
+            case CustomLangParser.RULE_printStmt: return new CustomLangParser.PrintStmtContext(parent, -1);
+            case CustomLangParser.RULE_scanStmt: return new CustomLangParser.ScanStmtContext(parent, -1);
+            case CustomLangParser.RULE_exportStmt: return new CustomLangParser.ExportStmtContext(parent, -1);
+            case CustomLangParser.RULE_block: return new CustomLangParser.BlockContext(parent, -1);
+            case CustomLangParser.RULE_whileStmt: return new CustomLangParser.WhileStmtContext(parent, -1);
+            case CustomLangParser.RULE_repeatStmt: return new CustomLangParser.RepeatStmtContext(parent, -1);
+            case CustomLangParser.RULE_ifStmt: return new CustomLangParser.IfStmtContext(parent, -1);
+            case CustomLangParser.RULE_condition: return new CustomLangParser.ConditionContext(parent, -1);
+            case CustomLangParser.RULE_expr: return new CustomLangParser.ExprContext(parent, -1);
+            default: throw new IllegalStateException("unknown rule " + rule);
+        }
+    }
+
+    /** Sets the labeled tokens the parser would have: the operator of a binary expression or condition, the aggregate. */
+    private static void labels(ParserRuleContext ctx) {
+        if (ctx instanceof CustomLangParser.ConditionContext) {
+            ((CustomLangParser.ConditionContext) ctx).op = ((TerminalNode) ctx.getChild(1)).getSymbol();
+        } else if (ctx instanceof CustomLangParser.ExprContext) {
+            CustomLangParser.ExprContext expr = (CustomLangParser.ExprContext) ctx;
+            if (expr.getChildCount() == 3 && expr.getChild(1) instanceof TerminalNode) {
+                expr.op = ((TerminalNode) expr.getChild(1)).getSymbol();
+            } else if (expr.getChildCount() == 4) {
+                expr.aggregate = ((TerminalNode) expr.getChild(0)).getSymbol();
+            }
+        }
+    }
+
+    private static int newlines(String text) {
+        int newlines = 0;
+        for (int i = text.indexOf('\n'); i >= 0; i = text.indexOf('\n', i + 1)) {
+            newlines++;
+        }
+        return newlines;
+    }
+
+    /** The column after a token text that starts at {@code column}. */
+    private static int end(String text, int column) {
+        int newline = text.lastIndexOf('\n');
+        return newline < 0 ? column + text.codePointCount(0, text.length())
+                : text.codePointCount(newline + 1, text.length());
+    }
+
+    private static boolean pooled(int type) {
+        return type == CustomLangParser.NUMBER || type == CustomLangParser.STRING;
+    }
+
+    /** The text of a keyword or operator token, from the grammar. */
+    private static String literal(int type) {
+        String name = CustomLangParser.VOCABULARY.getLiteralName(type);
+        if (name == null) {
+            throw new IllegalStateException("token type " + type + " has no fixed text");
+        }
+        return name.substring(1, name.length() - 1);
+    }
+
+    /** The first 8 bytes of a SHA-256 of the serialized lexer and parser ATNs. */
+    private static synchronized byte[] grammarHash() {
+        if (grammarHash == null) {
+            String hash = NativeBuilder.hash(CustomLangLexer._serializedATN + "\0" + CustomLangParser._serializedATN);
+            grammarHash = new byte[8];
+            for (int i = 0; i < grammarHash.length; i++) {
+                grammarHash[i] = (byte) Integer.parseInt(hash.substring(2 * i, 2 * i + 2), 16);
+            }
+        }
+        return grammarHash;
+    }
+
+    private static void strings(ByteArrayOutputStream out, Map<String, Integer> strings) {
+        varint(out, strings.size());
+        for (String string : strings.keySet()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            varint(out, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+
+    private static String[] strings(ByteBuffer in) {
+        String[] strings = new String[varint(in)];
+        for (int i = 0; i < strings.length; i++) {
+            int length = varint(in);
+            strings[i] = StandardCharsets.UTF_8.decode(in.slice(in.position(), length)).toString();
+            in.position(in.position() + length);
+        }
+        return strings;
+    }
+
+    private static void varint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int varint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("malformed varint");
+    }
+}
@@ -0,0 +1,119 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Rebalances chains of {@code +}/{@code -} and of {@code *}, for
+ * {@code --reassociate}. The parser builds {@code a + b + c + d} as
+ * {@code ((a + b) + c) + d}, a chain of dependent additions the CPU has to
+ * run one after the other; as {@code (a + b) + (c + d)} the two halves run
+ * in parallel and the depth of the chain is logarithmic in its length.
+ *
+ * <p>A chain stops at parentheses and at operators of another kind, so
+ * {@code /} and explicitly grouped subexpressions keep their evaluation
+ * order. Subtracted terms are summed separately and subtracted once:
+ * {@code a - b + c - d} becomes {@code (a + c) - (b + d)}. Floating-point
+ * addition and multiplication are not associative, so this changes the
+ * rounding of results; the option also lets gcc and LLVM contract
+ * multiply-adds into FMAs.
+ */
+public final class Reassociation {
+
+    private Reassociation() {
+    }
+
+    /** The terms of a chain: {@code positive} are added (or multiplied), {@code negative} subtracted. */
+    static final class Terms {
+        final String op;
+        final List<CustomLangParser.ExprContext> positive = new ArrayList<>();
+        final List<CustomLangParser.ExprContext> negative = new ArrayList<>();
+
+        Terms(String op) {
+            this.op = op;
+        }
+
+        int size() {
+            return positive.size() + negative.size();
+        }
+    }
+
+    /** The terms of the chain rooted at {@code ctx}, or null if it has fewer than three. */
+    static Terms chain(CustomLangParser.ExprContext ctx) {
+        if (ctx.op == null || ctx.op.getText().equals("/")) {
+            return null;
+        }
+        Terms terms = new Terms(ctx.op.getText().equals("*") ? "*" : "+");
+        collect(ctx, false, terms);
+        return terms.size() > 2 ? terms : null;
+    }
+
+    /**
+     * Whether {@code ctx} is an inner node of a chain: {@link #toC} emits the
+     * chain from its terms, so the node itself never appears in the C code.
+     */
+    static boolean inner(CustomLangParser.ExprContext ctx) {
+        if (ctx.op == null || ctx.op.getText().equals("/")
+                || !(ctx.getParent() instanceof CustomLangParser.ExprContext)) {
+            return false;
+        }
+        CustomLangParser.ExprContext parent = (CustomLangParser.ExprContext) ctx.getParent();
+        return parent.op != null && !parent.op.getText().equals("/")
+                && parent.op.getText().equals("*") == ctx.op.getText().equals("*");
+    }
+
+    private static void collect(CustomLangParser.ExprContext ctx, boolean negated, Terms terms) {
+        String op = ctx.op != null ? ctx.op.getText() : null;
+        boolean member = terms.op.equals("*") ? "*".equals(op) : "+".equals(op) || "-".equals(op);
+        if (!member) {
+            (negated ? terms.negative : terms.positive).add(ctx);
+            return;
+        }
+        collect(ctx.expr(0), negated, terms);
+        collect(ctx.expr(1), negated ^ op.equals("-"), terms);
+    }
+
+    /** Combines values pairwise into a tree of depth log2(n). */
+    static <T> T balance(List<T> values, BinaryOperator<T> combine) {
+        if (values.size() == 1) {
+            return values.get(0);
+        }
+        int half = values.size() / 2;
+        return combine.apply(balance(values.subList(0, half), combine),
+                balance(values.subList(half, values.size()), combine));
+    }
+
+    /** The chain as a C expression, with {@code operand} giving the C code of each term. */
+    static String toC(Terms terms, Function<CustomLangParser.ExprContext, String> operand) {
+        String positive = balanced(operands(terms.positive, operand), terms.op);
+        if (terms.negative.isEmpty()) {
+            return positive;
+        }
+        String negative = balanced(operands(terms.negative, operand), "+");
+        return group(positive, terms.positive.size()) + " - " + group(negative, terms.negative.size());
+    }
+
+    private static List<String> operands(List<CustomLangParser.ExprContext> terms,
+                                         Function<CustomLangParser.ExprContext, String> operand) {
+        List<String> result = new ArrayList<>(terms.size());
+        for (CustomLangParser.ExprContext term : terms) {
+            result.add(operand.apply(term));
+        }
+        return result;
+    }
+
+    /** C binds {@code a + b + c} to the left, so every half with two or more terms is parenthesized. */
+    private static String balanced(List<String> operands, String op) {
+        if (operands.size() == 1) {
+            return operands.get(0);
+        }
+        int half = operands.size() / 2;
+        List<String> left = operands.subList(0, half);
+        List<String> right = operands.subList(half, operands.size());
+        return group(balanced(left, op), left.size()) + " " + op + " " + group(balanced(right, op), right.size());
+    }
+
+    private static String group(String expr, int terms) {
+        return terms > 1 ? "(" + expr + ")" : expr;
+    }
+}
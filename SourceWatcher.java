@@ -0,0 +1,193 @@
+import org.antlr.v4.runtime.CharStreams;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watch mode: keeps the compiler warm in one JVM and recompiles every
+ * {@code .customlang} file under the watched directories when it changes,
+ * writing {@code name.c} next to {@code name.customlang}.
+ *
+ * <p>Editors usually save with several writes, so events are coalesced until
+ * the directories have been quiet for {@link #DEBOUNCE_MS}. Each file keeps its
+ * {@link IncrementalCompiler}, so only the statements that changed are reparsed.
+ * The C is what {@code java Compiler} writes with the same options; options
+ * the incremental compiler does not support, and programs split into chunks,
+ * are compiled in full.
+ */
+public class SourceWatcher {
+
+    static final long DEBOUNCE_MS = 50;
+    static final String EXTENSION = ".customlang";
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private final Map<Path, IncrementalCompiler> compilers = new HashMap<>();
+    private final CompilerOptions options;
+
+    public SourceWatcher(List<Path> roots, CompilerOptions options) throws IOException {
+        this.options = options;
+        watchService = FileSystems.getDefault().newWatchService();
+        for (Path root : roots) {
+            registerTree(root);
+        }
+    }
+
+    public void run() throws IOException, InterruptedException {
+        List<Path> sources = new ArrayList<>();
+        for (Path directory : directories.values()) {
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+                entries.forEach(sources::add);
+            }
+        }
+        Collections.sort(sources);
+        for (Path source : sources) {
+            compile(source);
+        }
+        System.out.println("Watching " + directories.size() + " director"
+                + (directories.size() == 1 ? "y" : "ies") + " for changes");
+
+        while (true) {
+            WatchKey key = watchService.take();
+            Set<Path> changed = new TreeSet<>();
+            Set<Path> deleted = new TreeSet<>();
+            while (key != null) {
+                collect(key, changed, deleted);
+                key = watchService.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+            }
+            for (Path source : deleted) {
+                if (!Files.exists(source) && compilers.remove(source) != null) {
+                    System.out.println("Removed " + source);
+                }
+            }
+            for (Path source : changed) {
+                if (Files.isRegularFile(source)) {
+                    compile(source);
+                }
+            }
+        }
+    }
+
+    private void collect(WatchKey key, Set<Path> changed, Set<Path> deleted) throws IOException {
+        Path directory = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                changed.addAll(compilers.keySet());
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                registerTree(path);
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(path, "*" + EXTENSION)) {
+                    entries.forEach(changed::add);
+                }
+            } else if (path.toString().endsWith(EXTENSION)) {
+                if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                    deleted.add(path);
+                } else {
+                    changed.add(path);
+                }
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+    }
+
+    private void compile(Path source) {
+        long start = System.nanoTime();
+        try {
+            String text = new String(Files.readAllBytes(source), StandardCharsets.UTF_8);
+            CharSequence code;
+            String how;
+            IncrementalCompiler compiler = IncrementalCompiler.supports(options)
+                    ? compilers.computeIfAbsent(source, s -> new IncrementalCompiler(options)) : null;
+            if (compiler != null) {
+                compiler.update(text);
+            }
+            if (compiler != null && !compiler.chunked()) {
+                if (!compiler.problems().isEmpty()) {
+                    int[] lineStarts = lineStarts(text);
+                    for (IncrementalCompiler.Problem problem : compiler.problems()) {
+                        System.err.println(source + ":" + lineOf(lineStarts, problem.start) + ": " + problem.message);
+                    }
+                    return;
+                }
+                code = compiler.output();
+                how = compiler.reparsedStatements() + " statements reparsed";
+            } else {
+                code = compileFully(source, text);
+                if (code == null) {
+                    return;
+                }
+                how = "full compile";
+            }
+            Path target = outputPath(source);
+            try (FileWriter fileWriter = new FileWriter(target.toFile())) {
+                fileWriter.append(code);
+            }
+            System.out.printf("Compiled %s -> %s in %.1f ms (%s)%n",
+                    source, target.getFileName(), (System.nanoTime() - start) / 1e6, how);
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("Failed to compile " + source + ": " + e.getMessage());
+        }
+    }
+
+    /** Compiles the way {@code java Compiler} does, or prints the errors and returns null. */
+    private String compileFully(Path source, String text) {
+        Diagnostics diagnostics = new Diagnostics(source.toString(), options.maxErrors, options.strict);
+        CustomLangParser.ProgramContext tree = diagnostics.parse(CharStreams.fromString(text, source.toString()));
+        String code = null;
+        try {
+            code = Compiler.generate(options, tree, diagnostics);
+        } catch (IllegalStateException e) {
+            if (!diagnostics.hasErrors()) {
+                diagnostics.generatorError(e.getMessage());
+            }
+        }
+        System.err.print(diagnostics.toText());
+        return diagnostics.hasErrors() ? null : code;
+    }
+
+    static Path outputPath(Path source) {
+        String name = source.getFileName().toString();
+        return source.resolveSibling(name.substring(0, name.length() - EXTENSION.length()) + ".c");
+    }
+
+    private static int[] lineStarts(String text) {
+        int[] starts = new int[16];
+        int count = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                }
+                starts[count++] = i + 1;
+            }
+        }
+        return Arrays.copyOf(starts, count);
+    }
+
+    /** The 1-based line of {@code offset}, found among the starts of the lines. */
+    private static int lineOf(int[] lineStarts, int offset) {
+        int index = Arrays.binarySearch(lineStarts, offset);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private void registerTree(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                directories.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
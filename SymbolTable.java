@@ -0,0 +1,485 @@
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interned identifiers of a program, each mapped to a dense slot in order of
+ * first appearance. Names are kept in one character pool and looked up by
+ * hashing the characters of a token straight from its input stream, so
+ * resolving an identifier allocates nothing. Each slot also records whether
+ * the variable is a number or an array, and of which length.
+ *
+ * <p>The checks report a second {@code DEF x;} and uses or READs of
+ * undefined variables before any C is written; {@code DEF x <- e;} of an
+ * existing variable assigns it.
+ */
+public class SymbolTable {
+
+    /** Arrays are static C arrays indexed by an {@code int}; this keeps them within 2 GiB. */
+    static final int MAX_LENGTH = 1 << 28;
+
+    private char[] pool = new char[1024];
+    private int poolSize;
+    private int[] offsets = new int[64];
+    private int[] lengths = new int[64];
+    private int[] hashes = new int[64];
+    /** The length of every array variable, 0 for numbers. */
+    private int[] arrays = new int[64];
+    private int size;
+    /** Open addressing, slot + 1 per entry, 0 when empty. */
+    private int[] table = new int[128];
+    private int shift = 32 - 7;
+    /**
+     * The variables the program IMPORTs, in a table of their own so they get
+     * no slots here, or null; {@code modules} has the module of each.
+     */
+    private SymbolTable imports;
+    private String[] modules;
+    private int depth;
+
+    /** Number of distinct identifiers. */
+    int size() {
+        return size;
+    }
+
+    String name(int slot) {
+        return new String(pool, offsets[slot], lengths[slot]);
+    }
+
+    /** The length of the array in {@code slot}, or 0 if it holds a number. */
+    int length(int slot) {
+        return arrays[slot];
+    }
+
+    /** The length of array variable {@code name}, or 0 if it is a number or unknown. */
+    int length(CharSequence name) {
+        int slot = slot(name);
+        return slot < 0 ? 0 : arrays[slot];
+    }
+
+    /**
+     * The length of the arrays an expression combines elementwise, or 0 if it
+     * is a number. {@link #check} has made sure the lengths agree.
+     */
+    int length(CustomLangParser.ExprContext expr) {
+        if (expr.ID() != null) {
+            return length(expr.ID().getText());
+        }
+        int length = 0;
+        for (CustomLangParser.ExprContext operand : expr.expr()) {
+            length = Math.max(length, length(operand));
+        }
+        return length;
+    }
+
+    /** The slot of {@code name}, or -1 if it was never interned. */
+    int slot(CharSequence name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            hash = 31 * hash + name.charAt(i);
+        }
+        for (int i = bucket(hash); table[i] != 0; i = (i + 1) & (table.length - 1)) {
+            int slot = table[i] - 1;
+            if (hashes[slot] == hash && matches(slot, name)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /** The slot of {@code name}, interning it if it is new. */
+    int intern(CharSequence name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            hash = 31 * hash + name.charAt(i);
+        }
+        int i = bucket(hash);
+        for (; table[i] != 0; i = (i + 1) & (table.length - 1)) {
+            int slot = table[i] - 1;
+            if (hashes[slot] == hash && matches(slot, name)) {
+                return slot;
+            }
+        }
+        reserve(name.length());
+        for (int c = 0; c < name.length(); c++) {
+            pool[poolSize + c] = name.charAt(c);
+        }
+        return add(name.length(), hash, i);
+    }
+
+    /** The slot of an identifier token, or -1 if it was never interned. */
+    int slot(Token token) {
+        return find(token, false);
+    }
+
+    /** The slot of an identifier token, interning it if it is new. */
+    int intern(Token token) {
+        return find(token, true);
+    }
+
+    private int find(Token token, boolean add) {
+        CharStream in = token.getInputStream();
+        int start = token.getStartIndex();
+        int length = token.getStopIndex() - start + 1;
+        int index = in.index();
+        in.seek(start);
+        try {
+            int hash = 0;
+            for (int i = 1; i <= length; i++) {
+                hash = 31 * hash + in.LA(i);
+            }
+            int i = bucket(hash);
+            for (; table[i] != 0; i = (i + 1) & (table.length - 1)) {
+                int slot = table[i] - 1;
+                if (hashes[slot] == hash && matches(slot, in, length)) {
+                    return slot;
+                }
+            }
+            if (!add) {
+                return -1;
+            }
+            reserve(length);
+            for (int c = 0; c < length; c++) {
+                pool[poolSize + c] = (char) in.LA(c + 1);
+            }
+            return add(length, hash, i);
+        } finally {
+            in.seek(index);
+        }
+    }
+
+    private boolean matches(int slot, CharSequence name) {
+        if (lengths[slot] != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (pool[offsets[slot] + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matches(int slot, CharStream in, int length) {
+        if (lengths[slot] != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (pool[offsets[slot] + i] != in.LA(i + 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Makes room at the end of the pool for a name of {@code length} chars; IDs are ASCII, one char per code point. */
+    private void reserve(int length) {
+        if (poolSize + length > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + length));
+        }
+    }
+
+    /** Adds the name just written at the end of the pool. */
+    private int add(int length, int hash, int bucket) {
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, size * 2);
+            lengths = Arrays.copyOf(lengths, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+            arrays = Arrays.copyOf(arrays, size * 2);
+        }
+        int slot = size++;
+        offsets[slot] = poolSize;
+        lengths[slot] = length;
+        hashes[slot] = hash;
+        poolSize += length;
+        table[bucket] = slot + 1;
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return slot;
+    }
+
+    /** Fibonacci hashing spreads names like v1, v2, ... whose string hashes are consecutive. */
+    private int bucket(int hash) {
+        return (hash * 0x9E3779B9) >>> shift;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        shift--;
+        for (int slot = 0; slot < size; slot++) {
+            int i = bucket(hashes[slot]);
+            while (table[i] != 0) {
+                i = (i + 1) & (table.length - 1);
+            }
+            table[i] = slot + 1;
+        }
+    }
+
+    /**
+     * Interns every variable of the program and checks, in program order, that
+     * a variable is declared only once and defined before it is used or READ.
+     * {@code DEF x <- e} of a variable that already exists assigns it. Blocks
+     * do not open a scope: a variable defined in a loop or an IF is checked
+     * like one defined at the top level, at the place where it is written.
+     *
+     * <p>{@code DEF v[N];} declares an array. Expressions over arrays are
+     * elementwise, so their arrays must have the same length, and a number
+     * in them applies to every element. Assigning such an expression to a
+     * new variable makes it an array of that length; a number cannot be
+     * assigned an array, nor can conditions and REPEAT counts use one.
+     */
+    void check(CustomLangParser.ProgramContext program, Diagnostics errors) {
+        check(program, Collections.emptyMap(), errors);
+    }
+
+    /**
+     * Checks a module of a modular build. The variables it imports are
+     * defined from the start and cannot be defined again; EXPORT is a
+     * top-level statement that lists numbers defined before it.
+     */
+    void check(CustomLangParser.ProgramContext program, Map<String, String> imported, Diagnostics errors) {
+        imports = null;
+        if (!imported.isEmpty()) {
+            imports = new SymbolTable();
+            modules = new String[imported.size()];
+            for (Map.Entry<String, String> variable : imported.entrySet()) {
+                modules[imports.intern(variable.getKey())] = variable.getValue();
+            }
+        }
+        check(program.statement(), bits(new BitSet()), errors);
+    }
+
+    /**
+     * Checks one top-level statement of a program that is checked a statement
+     * at a time: {@code defined} tells which variables are defined before it
+     * and is told the ones it defines.
+     */
+    void check(CustomLangParser.StatementContext statement, Defined defined, Diagnostics errors) {
+        imports = null;
+        depth = 0;
+        check(Collections.singletonList(statement), defined, errors);
+    }
+
+    /** Which variables are defined at the place being checked. */
+    interface Defined {
+        boolean get(int slot);
+
+        void set(int slot);
+    }
+
+    private static Defined bits(BitSet bits) {
+        return new Defined() {
+            @Override
+            public boolean get(int slot) {
+                return bits.get(slot);
+            }
+
+            @Override
+            public void set(int slot) {
+                bits.set(slot);
+            }
+        };
+    }
+
+    /** The module an identifier is imported from, or null. */
+    private String module(Token id) {
+        int slot = imports != null ? imports.slot(id) : -1;
+        return slot < 0 ? null : modules[slot];
+    }
+
+    private void check(List<CustomLangParser.StatementContext> statements, Defined defined, Diagnostics errors) {
+        for (CustomLangParser.StatementContext statement : statements) {
+            if (statement.declaration() != null) {
+                Token id = token(statement.declaration().ID());
+                if (id != null && checkDefinable(id, errors)) {
+                    int slot = intern(id);
+                    if (defined.get(slot)) {
+                        errors.error("symbols", id, "variable '" + id.getText() + "' is already defined");
+                    } else {
+                        arrays[slot] = arrayLength(token(statement.declaration().NUMBER()), errors);
+                    }
+                    defined.set(slot);
+                }
+            } else if (statement.assignment() != null) {
+                checkUses(statement.assignment().expr(), defined, errors);
+                int length = checkLengths(statement.assignment().expr(), errors);
+                Token id = token(statement.assignment().ID());
+                if (id != null && checkDefinable(id, errors)) {
+                    int slot = intern(id);
+                    if (!defined.get(slot)) {
+                        arrays[slot] = length;
+                    } else if (length > 0 && arrays[slot] == 0) {
+                        errors.error("symbols", id, "variable '" + id.getText()
+                                + "' is a number and cannot be assigned an array of length " + length);
+                    } else if (length > 0 && arrays[slot] != length) {
+                        errors.error("symbols", id, "array '" + id.getText() + "' has length " + arrays[slot]
+                                + " and cannot be assigned an array of length " + length);
+                    }
+                    defined.set(slot);
+                }
+            } else if (statement.scanStmt() != null) {
+                Token id = token(statement.scanStmt().ID());
+                if (id != null && checkDefinable(id, errors)) {
+                    checkUse(id, defined, errors);
+                }
+            } else if (statement.exportStmt() != null) {
+                checkExport(statement.exportStmt(), defined, errors);
+            } else if (statement.whileStmt() != null) {
+                checkUses(statement.whileStmt().condition(), defined, errors);
+                checkNumbers(statement.whileStmt().condition(), errors);
+                check(statement.whileStmt().block(), defined, errors);
+            } else if (statement.repeatStmt() != null) {
+                checkUses(statement.repeatStmt().expr(), defined, errors);
+                checkNumbers(statement.repeatStmt().expr(), errors);
+                check(statement.repeatStmt().block(), defined, errors);
+            } else if (statement.ifStmt() != null) {
+                check(statement.ifStmt(), defined, errors);
+            } else {
+                checkUses(statement, defined, errors);
+                CustomLangParser.ExprContext expr = statement.printStmt() != null
+                        ? statement.printStmt().expr() : statement.expr();
+                if (expr != null) {
+                    checkLengths(expr, errors);
+                }
+            }
+        }
+    }
+
+    private void check(CustomLangParser.IfStmtContext ifStmt, Defined defined, Diagnostics errors) {
+        checkUses(ifStmt.condition(), defined, errors);
+        checkNumbers(ifStmt.condition(), errors);
+        for (CustomLangParser.BlockContext block : ifStmt.block()) {
+            check(block, defined, errors);
+        }
+        if (ifStmt.ifStmt() != null) {
+            check(ifStmt.ifStmt(), defined, errors);
+        }
+    }
+
+    private void check(CustomLangParser.BlockContext block, Defined defined, Diagnostics errors) {
+        if (block != null) {
+            depth++;
+            check(block.statement(), defined, errors);
+            depth--;
+        }
+    }
+
+    /** Reports a definition of an imported variable; returns whether {@code id} may be defined. */
+    private boolean checkDefinable(Token id, Diagnostics errors) {
+        String module = module(id);
+        if (module != null) {
+            errors.error("symbols", id, "variable '" + id.getText() + "' is imported from module '" + module
+                    + "' and cannot be defined again");
+            return false;
+        }
+        return true;
+    }
+
+    private void checkExport(CustomLangParser.ExportStmtContext export, Defined defined, Diagnostics errors) {
+        if (depth > 0) {
+            errors.error("symbols", export.start, "EXPORT must be at the top level, not in a loop or an IF");
+            return;
+        }
+        for (TerminalNode node : export.ID()) {
+            Token id = token(node);
+            if (id == null) {
+                continue;
+            }
+            int slot = slot(id);
+            String module = module(id);
+            if (module != null) {
+                errors.error("symbols", id, "variable '" + id.getText() + "' is imported from module '"
+                        + module + "'; only variables defined in this module can be exported");
+            } else if (slot < 0 || !defined.get(slot)) {
+                errors.error("symbols", id, "variable '" + id.getText() + "' is exported before it is defined");
+            } else if (arrays[slot] > 0) {
+                errors.error("symbols", id, "array '" + id.getText() + "' cannot be exported; only numbers can");
+            }
+        }
+    }
+
+    private void checkUses(ParseTree tree, Defined defined, Diagnostics errors) {
+        if (tree instanceof TerminalNode) {
+            if (((TerminalNode) tree).getSymbol().getType() == CustomLangParser.ID) {
+                checkUse(token((TerminalNode) tree), defined, errors);
+            }
+            return;
+        }
+        for (int i = 0; tree != null && i < tree.getChildCount(); i++) {
+            checkUses(tree.getChild(i), defined, errors);
+        }
+    }
+
+    private void checkUse(Token id, Defined defined, Diagnostics errors) {
+        if (id == null) {
+            return;
+        }
+        int slot = slot(id);
+        if ((slot < 0 || !defined.get(slot)) && module(id) == null) {
+            errors.error("symbols", id, "variable '" + id.getText() + "' is used before it is defined");
+        }
+    }
+
+    private static int arrayLength(Token number, Diagnostics errors) {
+        if (number == null) {
+            return 0;
+        }
+        BigDecimal length = new BigDecimal(number.getText());
+        if (length.stripTrailingZeros().scale() > 0 || length.signum() <= 0
+                || length.compareTo(BigDecimal.valueOf(MAX_LENGTH)) > 0) {
+            errors.error("symbols", number, "array length must be a whole number from 1 to " + MAX_LENGTH);
+            return 0;
+        }
+        return length.intValue();
+    }
+
+    /** Reports arrays of different lengths combined in {@code expr}; returns its length. */
+    private int checkLengths(CustomLangParser.ExprContext expr, Diagnostics errors) {
+        if (expr.ID() != null) {
+            Token id = token(expr.ID());
+            int slot = id != null ? slot(id) : -1;
+            return slot < 0 ? 0 : arrays[slot];
+        }
+        if (expr.op == null) {
+            return expr.expr().isEmpty() ? 0 : checkLengths(expr.expr(0), errors);
+        }
+        int left = checkLengths(expr.expr(0), errors);
+        int right = checkLengths(expr.expr(1), errors);
+        if (left > 0 && right > 0 && left != right) {
+            errors.error("symbols", expr.op, "arrays of length " + left + " and " + right + " cannot be combined");
+        }
+        return Math.max(left, right);
+    }
+
+    /** Reports arrays where a single number is needed. */
+    private void checkNumbers(ParseTree tree, Diagnostics errors) {
+        if (tree instanceof TerminalNode) {
+            Token id = ((TerminalNode) tree).getSymbol().getType() == CustomLangParser.ID ? token((TerminalNode) tree) : null;
+            int slot = id != null ? slot(id) : -1;
+            if (slot >= 0 && arrays[slot] > 0) {
+                errors.error("symbols", id, "array '" + id.getText() + "' is used where a single number is needed");
+            }
+            return;
+        }
+        for (int i = 0; tree != null && i < tree.getChildCount(); i++) {
+            checkNumbers(tree.getChild(i), errors);
+        }
+    }
+
+    /** The token of an identifier, or null where the parser recovered from a missing one. */
+    private static Token token(TerminalNode node) {
+        if (node == null || node.getSymbol().getStartIndex() < 0) {
+            return null;
+        }
+        return node.getSymbol();
+    }
+}
@@ -0,0 +1,87 @@
+import org.antlr.v4.runtime.CharStreams;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that {@link IncrementalCompiler} gives the same C as a full compile
+ * through {@link CompilerSession} after every edit of a scripted session
+ * that redefines variables, defines them in loops, adds arrays and
+ * aggregates of INPUT, and WRITEs a message ahead of the others, and,
+ * given a PROGRAM, after typing it one line at a time. A version with
+ * errors only has to be accepted. Exits with 1 on the first difference.
+ *   java bench/IncrementalCheck.java [PROGRAM]
+ */
+public class IncrementalCheck {
+
+    private static final String LOOPS = "DEF i <- 0;\nREAD(i);\nREPEAT 2 { DEF z <- i; }\nWHILE (i < 3) { DEF i <- i + 1; DEF y <- i * 2; }\n";
+    private static final String REDEFINED = "DEF x <- 1;\nDEF x <- x + 1;\nWRITE(\"x \", x);\n";
+
+    private static final String[] SESSION = {
+        "DEF x <- 1;\n",
+        REDEFINED,
+        "DEF i <- 0;\nREAD(i);\nWHILE (i < 3) { DEF i <- i + 1; DEF y <- i * 2; }\n" + REDEFINED,
+        "DEF y <- 5;\nDEF i <- 0;\nREAD(i);\nWHILE (i < 3) { DEF i <- i + 1; DEF y <- i * 2; }\n" + REDEFINED,
+        "DEF i <- 0;\nREAD(i);\nWHILE (i < 3) { DEF i <- i + 1; DEF y <- i * 2; }\n" + REDEFINED,
+        LOOPS + REDEFINED,
+        LOOPS + REDEFINED + "DEF v[4];\nDEF v <- v + x;\nDEF w <- v * 2;\n",
+        LOOPS + REDEFINED + "DEF v[8];\nDEF v <- v + x;\nDEF w <- v * 2;\n",
+        LOOPS + REDEFINED + "DEF v[8];\nDEF v <- v + q;\nDEF w <- v * 2;\n",
+        LOOPS + REDEFINED + "DEF v[8];\nDEF v <- v + x;\nDEF w <- v * 2;\nDEF s <- SUM(INPUT);\nWRITE(\"s \", s);\n",
+        LOOPS + "DEF m <- MAX(INPUT);\n" + REDEFINED
+                + "DEF v[8];\nDEF v <- v + x;\nDEF w <- v * 2;\nDEF s <- SUM(INPUT);\nWRITE(\"s \", s);\n",
+        LOOPS + REDEFINED + "DEF v[8];\nDEF v <- v + x;\nDEF w <- v * 2;\nDEF s <- SUM(INPUT);\nWRITE(\"s \", s);\n",
+        LOOPS + "WRITE(\"s \", i);\n" + REDEFINED + "DEF v[8];\nDEF v <- v + x;\nDEF w <- v * 2;\nDEF s <- SUM(INPUT);\nWRITE(\"s \", s);\n",
+        LOOPS + REDEFINED + "DEF v[8];\nDEF v <- v + x;\nDEF w <- v * 2;\nDEF s <- SUM(INPUT);\nWRITE(\"s \", s);\n",
+    };
+
+    public static void main(String[] args) throws Exception {
+        List<String> versions = new ArrayList<>(List.of(SESSION));
+        if (args.length > 0) {
+            StringBuilder typed = new StringBuilder();
+            for (String line : Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+                versions.add(typed.append(line).append('\n').toString());
+            }
+        }
+        IncrementalCompiler incremental = new IncrementalCompiler();
+        CompilerSession session = new CompilerSession();
+        int compared = 0;
+        for (int i = 0; i < versions.size(); i++) {
+            if (i == SESSION.length) {
+                incremental = new IncrementalCompiler();
+            }
+            String version = versions.get(i);
+            incremental.update(version);
+            String expected;
+            try {
+                expected = session.toC(CharStreams.fromString(version), "<input>");
+            } catch (CompilerSession.CompileException e) {
+                continue;
+            }
+            String actual = incremental.output().toString();
+            if (!expected.equals(actual)) {
+                System.err.println("version " + (i + 1) + " differs from a full compile:\n" + version);
+                System.err.println(firstDifference(expected, actual));
+                System.exit(1);
+            }
+            compared++;
+        }
+        System.out.println(compared + " of " + versions.size() + " versions compiled incrementally as in full");
+    }
+
+    private static String firstDifference(String expected, String actual) {
+        String[] left = expected.split("\n", -1);
+        String[] right = actual.split("\n", -1);
+        for (int i = 0; i < Math.max(left.length, right.length); i++) {
+            String a = i < left.length ? left[i] : "<end>";
+            String b = i < right.length ? right[i] : "<end>";
+            if (!a.equals(b)) {
+                return "line " + (i + 1) + ": expected " + a + "\n" + "line " + (i + 1) + ":   actual " + b;
+            }
+        }
+        return "";
+    }
+}
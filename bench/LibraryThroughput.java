@@ -0,0 +1,65 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compiles one program repeatedly from THREADS threads, through the
+ * per-thread sessions of {@link CompilerSession} and through a new session
+ * per call, checks that every result equals a
+ * single-threaded reference and prints compilations per second.
+ *   java bench/LibraryThroughput.java PROGRAM [THREADS] [SECONDS]
+ */
+public class LibraryThroughput {
+
+    public static void main(String[] args) throws Exception {
+        String source = new String(Files.readAllBytes(Paths.get(args[0])), StandardCharsets.UTF_8);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 5;
+        ByteBuffer reference = CompilerSession.compile(source);
+
+        run("warm-up", threads, seconds, () -> CompilerSession.compile(source), reference);
+        run("session", threads, seconds, () -> CompilerSession.compile(source), reference);
+        run("fresh", threads, seconds, () -> new CompilerSession().toBytes(source), reference);
+    }
+
+    interface Compilation {
+        ByteBuffer compile() throws Exception;
+    }
+
+    private static void run(String name, int threads, double seconds, Compilation compilation, ByteBuffer reference)
+            throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long deadline = System.nanoTime() + (long) (seconds * 1e9);
+        long started = System.nanoTime();
+        List<Future<Long>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(pool.submit(() -> {
+                long count = 0;
+                while (System.nanoTime() < deadline) {
+                    ByteBuffer output = compilation.compile();
+                    if (!output.equals(reference)) {
+                        throw new IllegalStateException(name + ": output differs from the reference");
+                    }
+                    count++;
+                }
+                return count;
+            }));
+        }
+        long total = 0;
+        try {
+            for (Future<Long> result : results) {
+                total += result.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        double elapsed = (System.nanoTime() - started) / 1e9;
+        System.out.printf("%-8s %2d threads: %7d compilations, %9.1f/s%n", name, threads, total, total / elapsed);
+    }
+}
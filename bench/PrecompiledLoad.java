@@ -0,0 +1,70 @@
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Times getting the parse tree of a program by lexing and parsing its
+ * source against loading it with {@link PrecompiledProgram}, and compiling
+ * it to C from either through {@link CompilerSession}, which must give the
+ * same C. Prints microseconds per operation and the file sizes.
+ *   java bench/PrecompiledLoad.java PROGRAM PRECOMPILED [SECONDS]
+ */
+public class PrecompiledLoad {
+
+    public static void main(String[] args) throws Exception {
+        Path source = Paths.get(args[0]);
+        Path precompiled = Paths.get(args[1]);
+        double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 3;
+        CompilerSession session = new CompilerSession();
+        ByteBuffer reference = CompilerSession.compile(source);
+        if (!reference.equals(CompilerSession.compile(precompiled))) {
+            throw new IllegalStateException("the precompiled program compiles to different C");
+        }
+
+        System.out.printf("source %d bytes, precompiled %d bytes%n", Files.size(source), Files.size(precompiled));
+        run("warm-up", seconds, () -> parse(source));
+        run("warm-up", seconds, () -> PrecompiledProgram.load(precompiled));
+        run("warm-up", seconds, () -> session.toBytes(source));
+        run("warm-up", seconds, () -> session.toBytes(precompiled));
+        double parse = run("parse", seconds, () -> parse(source));
+        double load = run("load", seconds, () -> PrecompiledProgram.load(precompiled));
+        double fromSource = run("compile source", seconds, () -> session.toBytes(source));
+        double fromPrecompiled = run("compile precompiled", seconds, () -> session.toBytes(precompiled));
+        System.out.printf("load: %.1fx faster than parse, compile: %.2fx faster%n",
+                parse / load, fromSource / fromPrecompiled);
+    }
+
+    interface Operation {
+        Object run() throws Exception;
+    }
+
+    private static CustomLangParser.ProgramContext parse(Path source) throws Exception {
+        CustomLangLexer lexer = new CustomLangLexer(CharStreams.fromPath(source));
+        CustomLangParser parser = new CustomLangParser(new CommonTokenStream(lexer));
+        lexer.removeErrorListeners();
+        parser.removeErrorListeners();
+        return parser.program();
+    }
+
+    /** Runs an operation for a number of seconds and returns its mean time in microseconds. */
+    private static double run(String name, double seconds, Operation operation) throws Exception {
+        long deadline = System.nanoTime() + (long) (seconds * 1e9);
+        long started = System.nanoTime();
+        long count = 0;
+        while (System.nanoTime() < deadline) {
+            if (operation.run() == null) {
+                throw new IllegalStateException(name + " failed");
+            }
+            count++;
+        }
+        double micros = (System.nanoTime() - started) / 1e3 / count;
+        if (!name.equals("warm-up")) {
+            System.out.printf("%-20s %8d runs, %10.1f us%n", name, count, micros);
+        }
+        return micros;
+    }
+}
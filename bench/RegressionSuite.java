@@ -0,0 +1,411 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * End-to-end performance regression suite. Generates programs of fixed
+ * shapes, sizes and seeds with their inputs, and for each one measures
+ * compiling it to C as {@code java Compiler} does, in a new
+ * {@link CompilerSession} every time, with the heap a compile takes at its
+ * peak and the bytes it allocates, the size of the C, building it with
+ * {@code gcc -O2} and running the binary on its input. Times are medians of
+ * REPEATS runs. Every metric is compared with a baseline and fails when it
+ * is above the baseline by more than its threshold, both as a ratio and by
+ * an absolute margin that keeps small values from tripping on noise. A
+ * program that exceeds a threshold is measured once more before it fails,
+ * and a program whose output changed fails as well. {@code --record} writes the
+ * measurements as the new baseline instead.
+ *   java bench/RegressionSuite.java [--record] [--baseline FILE] [--repeats N]
+ *       [--threshold METRIC=RATIO]... [--only PREFIX]
+ */
+public class RegressionSuite {
+
+    enum Metric {
+        COMPILE_MS("compile_ms", 1.25, 5),
+        PEAK_HEAP_MB("peak_heap_mb", 1.20, 4),
+        ALLOC_MB("alloc_mb", 1.20, 4),
+        C_KB("c_kb", 1.05, 1),
+        GCC_MS("gcc_ms", 1.25, 20),
+        RUN_MS("run_ms", 1.25, 5);
+
+        final String key;
+        final double threshold;
+        final double margin;
+
+        Metric(String key, double threshold, double margin) {
+            this.key = key;
+            this.threshold = threshold;
+            this.margin = margin;
+        }
+    }
+
+    /** A generated program and the input it runs on. */
+    static final class Program {
+        final String name;
+        final String source;
+        final String input;
+
+        Program(String name, String source, String input) {
+            this.name = name;
+            this.source = source;
+            this.input = input;
+        }
+    }
+
+    static final String CC = System.getenv().getOrDefault("CC", "gcc");
+
+    public static void main(String[] args) throws Exception {
+        boolean record = false;
+        Path baselineFile = Paths.get("bench/regression-baseline.properties");
+        int repeats = 5;
+        String only = "";
+        Map<Metric, Double> thresholds = new LinkedHashMap<>();
+        for (Metric metric : Metric.values()) {
+            thresholds.put(metric, metric.threshold);
+        }
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--record": record = true; break;
+                case "--baseline": baselineFile = Paths.get(args[++i]); break;
+                case "--repeats": repeats = Integer.parseInt(args[++i]); break;
+                case "--only": only = args[++i]; break;
+                case "--threshold": {
+                    String[] setting = args[++i].split("=", 2);
+                    double threshold = Double.parseDouble(setting[1]);
+                    if (threshold < 1) {
+                        throw new IllegalArgumentException("A threshold is a ratio of at least 1: " + args[i]);
+                    }
+                    thresholds.put(metric(setting[0]), threshold);
+                    break;
+                }
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        List<Program> programs = new ArrayList<>();
+        programs.add(straight("straight-1000", 1000, 11));
+        programs.add(straight("straight-5000", 5000, 12));
+        programs.add(loops("loops-60", 60, 13));
+        programs.add(records("records-120", 120, 14));
+        String prefix = only;
+        programs.removeIf(program -> !program.name.startsWith(prefix));
+
+        Properties baseline = new Properties();
+        if (!record) {
+            if (!Files.isRegularFile(baselineFile)) {
+                throw new IllegalStateException("No baseline at " + baselineFile + "; run with --record first");
+            }
+            try (Reader reader = Files.newBufferedReader(baselineFile)) {
+                baseline.load(reader);
+            }
+            if (!machine().equals(baseline.getProperty("machine"))) {
+                System.out.println("warning: the baseline was recorded on " + baseline.getProperty("machine")
+                        + ", this is " + machine() + "; thresholds assume the same machine");
+            }
+        }
+
+        Path work = Files.createTempDirectory("customlang-suite");
+        Map<String, String> measured = new LinkedHashMap<>();
+        int failures = 0;
+        try {
+            System.out.printf("%-14s %-13s %10s %10s %7s%n", "program", "metric", "baseline", "value", "ratio");
+            for (Program program : programs) {
+                Map<Metric, Double> values = new LinkedHashMap<>();
+                String output = measure(program, work, repeats, values);
+                if (!record && regressed(program, values, baseline, thresholds)) {
+                    // Timings on a busy machine are noisy, so a program that seems to have regressed is
+                    // measured again and keeps the better result of each metric.
+                    Map<Metric, Double> again = new LinkedHashMap<>();
+                    measure(program, work, repeats, again);
+                    again.forEach((metric, value) -> values.merge(metric, value, Math::min));
+                }
+                measured.put(program.name + ".output", output);
+                for (Map.Entry<Metric, Double> value : values.entrySet()) {
+                    Metric metric = value.getKey();
+                    String key = program.name + "." + metric.key;
+                    measured.put(key, String.format(Locale.ROOT, "%.1f", value.getValue()));
+                    String expected = baseline.getProperty(key);
+                    String status = "";
+                    String ratio = "";
+                    if (!record && expected == null) {
+                        status = "new";
+                    } else if (!record) {
+                        double base = Double.parseDouble(expected);
+                        double current = value.getValue();
+                        ratio = base > 0 ? String.format("%.2f", current / base) : "";
+                        if (exceeds(metric, current, base, thresholds.get(metric))) {
+                            status = "REGRESSED";
+                            failures++;
+                        } else if (current < base / thresholds.get(metric) && base - current > metric.margin) {
+                            status = "improved";
+                        } else {
+                            status = "ok";
+                        }
+                    }
+                    System.out.printf("%-14s %-13s %10s %10.1f %7s  %s%n", program.name, metric.key,
+                            expected == null ? "-" : expected, value.getValue(), ratio, status);
+                }
+                String expectedOutput = baseline.getProperty(program.name + ".output");
+                if (!record && expectedOutput != null && !expectedOutput.equals(output)) {
+                    System.out.printf("%-14s output changed: crc %s, baseline %s  REGRESSED%n",
+                            program.name, output, expectedOutput);
+                    failures++;
+                }
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(work)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+
+        if (record) {
+            try (Writer writer = Files.newBufferedWriter(baselineFile)) {
+                writer.write("# Written by bench/regression.sh --record; see bench/RegressionSuite.java.\n");
+                writer.write("machine=" + machine() + "\n");
+                for (Map.Entry<String, String> value : measured.entrySet()) {
+                    writer.write(value.getKey() + "=" + value.getValue() + "\n");
+                }
+            }
+            System.out.println("baseline written to " + baselineFile);
+        } else if (failures > 0) {
+            System.out.println(failures + " regression" + (failures == 1 ? "" : "s"));
+            System.exit(1);
+        } else {
+            System.out.println("no regressions");
+        }
+    }
+
+    private static boolean regressed(Program program, Map<Metric, Double> values, Properties baseline,
+                                     Map<Metric, Double> thresholds) {
+        for (Map.Entry<Metric, Double> value : values.entrySet()) {
+            String expected = baseline.getProperty(program.name + "." + value.getKey().key);
+            if (expected != null && exceeds(value.getKey(), value.getValue(), Double.parseDouble(expected),
+                    thresholds.get(value.getKey()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean exceeds(Metric metric, double current, double base, double threshold) {
+        return current > base * threshold && current - base > metric.margin;
+    }
+
+    /** Measures one program into {@code values} and returns the CRC of its output. */
+    private static String measure(Program program, Path work, int repeats, Map<Metric, Double> values)
+            throws Exception {
+        Path source = work.resolve(program.name + ".customlang");
+        Path input = work.resolve(program.name + ".in");
+        Path c = work.resolve(program.name + ".c");
+        Path binary = work.resolve(program.name);
+        Path output = work.resolve(program.name + ".out");
+        Files.write(source, program.source.getBytes(StandardCharsets.UTF_8));
+        Files.write(input, program.input.getBytes(StandardCharsets.UTF_8));
+
+        // Warms up the JIT on this program before timing it.
+        for (int i = 0; i < 3; i++) {
+            compile(source);
+        }
+        double[] compiles = new double[repeats];
+        byte[] code = null;
+        for (int i = 0; i < repeats; i++) {
+            long start = System.nanoTime();
+            code = compile(source);
+            compiles[i] = (System.nanoTime() - start) / 1e6;
+        }
+        values.put(Metric.COMPILE_MS, median(compiles));
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        List<MemoryPoolMXBean> heap = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heap.add(pool);
+            }
+        }
+        // The peak is taken above what is in use after a collection, so it does not depend on the programs before.
+        System.gc();
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heap) {
+            pool.resetPeakUsage();
+            peak -= pool.getUsage().getUsed();
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        compile(source);
+        allocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+        for (MemoryPoolMXBean pool : heap) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        values.put(Metric.PEAK_HEAP_MB, peak / 1048576.0);
+        values.put(Metric.ALLOC_MB, allocated / 1048576.0);
+        values.put(Metric.C_KB, code.length / 1024.0);
+
+        Files.write(c, code);
+        double[] builds = new double[repeats];
+        for (int i = 0; i < repeats; i++) {
+            long start = System.nanoTime();
+            run(new ProcessBuilder(CC, "-O2", c.toString(), "-o", binary.toString()), program.name + ": gcc");
+            builds[i] = (System.nanoTime() - start) / 1e6;
+        }
+        values.put(Metric.GCC_MS, median(builds));
+
+        double[] runs = new double[repeats];
+        for (int i = 0; i < repeats; i++) {
+            ProcessBuilder process = new ProcessBuilder(binary.toString())
+                    .redirectInput(input.toFile()).redirectOutput(output.toFile());
+            long start = System.nanoTime();
+            run(process, program.name);
+            runs[i] = (System.nanoTime() - start) / 1e6;
+        }
+        values.put(Metric.RUN_MS, median(runs));
+
+        CRC32 crc = new CRC32();
+        crc.update(Files.readAllBytes(output));
+        return String.format("%08x", crc.getValue());
+    }
+
+    /** Compiles a source to C in a new session, as {@code java Compiler} does. */
+    private static byte[] compile(Path source) throws IOException {
+        ByteBuffer code = new CompilerSession().toBytes(source);
+        byte[] bytes = new byte[code.remaining()];
+        code.get(bytes);
+        return bytes;
+    }
+
+    private static void run(ProcessBuilder process, String name) throws IOException, InterruptedException {
+        if (process.redirectOutput() == ProcessBuilder.Redirect.PIPE) {
+            process.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        }
+        int status = process.redirectError(ProcessBuilder.Redirect.INHERIT).start().waitFor();
+        if (status != 0) {
+            throw new IllegalStateException(name + " failed with exit status " + status);
+        }
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    private static Metric metric(String key) {
+        for (Metric metric : Metric.values()) {
+            if (metric.key.equals(key)) {
+                return metric;
+            }
+        }
+        throw new IllegalArgumentException("Unknown metric " + key);
+    }
+
+    /** The JVM, C compiler and processors the measurements depend on. */
+    private static String machine() throws IOException {
+        Process process = new ProcessBuilder(CC, "--version").redirectErrorStream(true).start();
+        String cc;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            cc = reader.readLine();
+        }
+        return "java " + System.getProperty("java.version") + ", " + cc + ", "
+                + Runtime.getRuntime().availableProcessors() + " cpus";
+    }
+
+    /**
+     * Straight-line arithmetic over four inputs, WRITEing every 16th
+     * result: mostly measures the compiler and gcc.
+     */
+    static Program straight(String name, int statements, long seed) {
+        Random random = new Random(seed);
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 4; i++) {
+            source.append("DEF r").append(i).append(";\nREAD(r").append(i).append(");\n");
+        }
+        String[] ops = {"+", "-", "*", "+"};
+        for (int i = 0; i < statements; i++) {
+            String a = i == 0 ? "r0" : "v" + random.nextInt(i);
+            source.append(String.format("DEF v%d <- %s %s r%d %s %d.5;%n", i, a, ops[random.nextInt(4)],
+                    random.nextInt(4), ops[random.nextInt(4)], 1 + random.nextInt(9)));
+            if (i % 16 == 0) {
+                source.append(String.format("WRITE(\"v%d = \", v%d);%n", i, i));
+            }
+        }
+        return new Program(name, source.toString(), "1.5 2.25 3 4.75\n");
+    }
+
+    /**
+     * A WHILE loop, run as many times as the input says, over a body of
+     * arithmetic and IFs on eight variables that stay positive and bounded:
+     * mostly measures the generated code.
+     */
+    static Program loops(String name, int statements, long seed) {
+        Random random = new Random(seed);
+        StringBuilder source = new StringBuilder("DEF iterations;\nREAD(iterations);\n");
+        for (int x = 0; x < 8; x++) {
+            source.append(String.format("DEF x%d <- %d.5;%n", x, x + 1));
+        }
+        source.append("DEF i <- 0;\nWHILE (i < iterations) {\n");
+        for (int s = 0; s < statements; s++) {
+            int a = random.nextInt(8);
+            int b = random.nextInt(8);
+            int c = random.nextInt(8);
+            switch (random.nextInt(3)) {
+                case 0:
+                    source.append(String.format("    DEF x%d <- x%d * 0.5 + x%d * 0.25 + %d.5;%n", a, b, c, random.nextInt(4)));
+                    break;
+                case 1:
+                    source.append(String.format("    DEF x%d <- x%d / (x%d + 2.5) + 0.75;%n", a, b, c));
+                    break;
+                default:
+                    source.append(String.format("    IF (x%d > x%d) {%n        DEF x%d <- x%d - x%d * 0.5;%n    } ELSE {%n"
+                            + "        DEF x%d <- x%d * 0.75 + 1;%n    }%n", a, b, a, a, b, b, b));
+            }
+        }
+        source.append("    DEF i <- i + 1;\n}\n");
+        for (int x = 0; x < 8; x++) {
+            source.append(String.format("WRITE(\"x%d \", x%d);%n", x, x));
+        }
+        return new Program(name, source.toString(), "3000000\n");
+    }
+
+    /**
+     * Reads records of a kind and an amount and classifies each through a
+     * chain of IFs on the kind: measures input and branches.
+     */
+    static Program records(String name, int branches, long seed) {
+        Random random = new Random(seed);
+        StringBuilder source = new StringBuilder(
+                "DEF n;\nREAD(n);\nDEF kind;\nDEF amount;\nDEF total <- 0;\nWHILE (n > 0) {\n"
+                        + "    READ(kind);\n    READ(amount);\n");
+        for (int b = 0; b < branches; b++) {
+            source.append(b == 0 ? "    " : " ELSE ").append(String.format("IF (kind < %d) {%n"
+                    + "        DEF total <- total + amount * %d.5 - %d;%n    }", b + 1, 1 + random.nextInt(7), b));
+        }
+        source.append(" ELSE {\n        DEF total <- total + amount;\n    }\n    DEF n <- n - 1;\n}\n"
+                + "WRITE(\"total \", total);\n");
+        int records = 200000;
+        StringBuilder input = new StringBuilder().append(records).append('\n');
+        for (int i = 0; i < records; i++) {
+            input.append(random.nextInt(branches + 1)).append(' ').append(random.nextInt(100000) / 100.0).append('\n');
+        }
+        return new Program(name, source.toString(), input.toString());
+    }
+}
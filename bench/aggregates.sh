@@ -0,0 +1,67 @@
+#!/bin/sh
+# Aggregates VALUES numbers with SUM, MIN, MAX, AVG and COUNT of INPUT in one
+# pass, and compares the compensated SUM with the exact sum and with the
+# naive running sum awk computes. For scale, also times the program one READ
+# per value would need, for the first READS values only.
+#   bench/aggregates.sh [VALUES] [READS]
+set -e
+VALUES=${1:-100000000}
+READS=${2:-100000}
+CC=${CC:-gcc}
+BENCH=$(cd "$(dirname "$0")" && pwd)
+ROOT=$(dirname "$BENCH")
+CLASSPATH=${CLASSPATH:-.}:$ROOT
+export CLASSPATH
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+cat > "$WORK/aggregates.customlang" <<'PROGRAM'
+WRITE("count ", COUNT(INPUT));
+WRITE("sum ", SUM(INPUT));
+WRITE("min ", MIN(INPUT));
+WRITE("max ", MAX(INPUT));
+WRITE("avg ", AVG(INPUT));
+PROGRAM
+# Values in thousandths, so their exact sum is an integer awk can keep.
+awk -v n="$VALUES" 'BEGIN {
+    srand(3);
+    for (i = 0; i < n; i++) {
+        v = int(rand() * 2000000);
+        printf "%d.%03d\n", v / 1000, v % 1000;
+    }
+}' > "$WORK/values.txt"
+awk -v n="$READS" 'BEGIN {
+    print "DEF sum <- 0;\nDEF x;";
+    for (i = 0; i < n; i++) print "READ(x);\nDEF sum <- sum + x;";
+    print "WRITE(\"sum \", sum);";
+}' > "$WORK/reads.customlang"
+
+seconds() {
+    start=$(date +%s.%N)
+    "$@"
+    end=$(date +%s.%N)
+    awk -v s="$start" -v e="$end" 'BEGIN { printf "%.3f", e - s }'
+}
+
+mkdir "$WORK/aggregates" "$WORK/reads"
+echo "values: $VALUES ($(wc -c < "$WORK/values.txt") bytes)"
+java_s=$(seconds sh -c "cd '$WORK/aggregates' && java Compiler ../aggregates.customlang")
+gcc_s=$(seconds "$CC" -O2 "$WORK/aggregates/output.c" -o "$WORK/aggregates/program")
+run_s=$(seconds sh -c "'$WORK/aggregates/program' < '$WORK/values.txt' > '$WORK/aggregates.txt'")
+awk -v j="$java_s" -v g="$gcc_s" -v r="$run_s" -v n="$VALUES" \
+    'BEGIN { printf "aggregates: java %ss, gcc %ss, run %ss (%.1f M values/s)\n", j, g, r, (r > 0 ? n / r / 1e6 : 0) }'
+sed 's/^/  /' "$WORK/aggregates.txt"
+
+awk_s=$(seconds sh -c "awk '{ s += \$1; split(\$1, p, \".\"); t += p[1] * 1000 + p[2] }
+    END { w = int(t / 1000); printf \"%.6f %.0f.%03d\\n\", s, w, t - w * 1000 }' '$WORK/values.txt' > '$WORK/awk.txt'")
+read naive exact < "$WORK/awk.txt"
+sum=$(awk '$1 == "sum" { print $2 }' "$WORK/aggregates.txt")
+awk -v s="$sum" -v n="$naive" -v e="$exact" -v t="$awk_s" \
+    'BEGIN { printf "exact sum %s: SUM(INPUT) off by %.6f, naive awk sum off by %.6f (awk: %ss)\n", e, s - e, n - e, t }'
+
+head -n "$READS" "$WORK/values.txt" > "$WORK/reads.txt"
+java_s=$(seconds sh -c "cd '$WORK/reads' && java Compiler --fast-io ../reads.customlang")
+gcc_s=$(seconds "$CC" -O2 "$WORK/reads/output.c" -o "$WORK/reads/program")
+run_s=$(seconds sh -c "'$WORK/reads/program' < '$WORK/reads.txt' > /dev/null")
+echo "one READ per value, $READS values: java ${java_s}s, gcc ${gcc_s}s, run ${run_s}s," \
+    "$(wc -c < "$WORK/reads/output.c") bytes of C"
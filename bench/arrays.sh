@@ -0,0 +1,65 @@
+#!/bin/sh
+# Compares elementwise array statements with the same program expanded into
+# one scalar variable per element: LENGTH elements, updated ITERATIONS times
+# in a REPEAT loop. Prints source and C size, Java compile time, gcc time and
+# run time for both, and checks that they print the same.
+#   bench/arrays.sh [LENGTH] [ITERATIONS]
+set -e
+LENGTH=${1:-1024}
+ITERATIONS=${2:-1000000}
+CC=${CC:-gcc}
+CFLAGS=${CFLAGS:--O3}
+BENCH=$(cd "$(dirname "$0")" && pwd)
+ROOT=$(dirname "$BENCH")
+CLASSPATH=${CLASSPATH:-.}:$ROOT
+export CLASSPATH
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+cat > "$WORK/arrays.customlang" <<PROGRAM
+DEF a[$LENGTH];
+DEF b[$LENGTH];
+DEF c[$LENGTH];
+READ(a);
+READ(b);
+REPEAT $ITERATIONS {
+DEF c <- c * 0.5 + a * b - a / 4;
+}
+WRITE("c ", c);
+PROGRAM
+awk -v n="$LENGTH" -v iterations="$ITERATIONS" 'BEGIN {
+    for (i = 0; i < n; i++) printf "DEF a%d;\nDEF b%d;\nDEF c%d <- 0;\n", i, i, i;
+    for (i = 0; i < n; i++) printf "READ(a%d);\n", i;
+    for (i = 0; i < n; i++) printf "READ(b%d);\n", i;
+    printf "REPEAT %d {\n", iterations;
+    for (i = 0; i < n; i++) printf "DEF c%d <- c%d * 0.5 + a%d * b%d - a%d / 4;\n", i, i, i, i, i;
+    printf "}\n";
+    for (i = 0; i < n; i++) printf "WRITE(\"%s\", c%d);\n", (i == 0 ? "c " : ""), i;
+}' > "$WORK/scalars.customlang"
+awk -v n="$LENGTH" 'BEGIN {
+    srand(5);
+    for (i = 0; i < 2 * n; i++) printf "%.3f\n", rand() * 2;
+}' > "$WORK/input.txt"
+
+seconds() {
+    start=$(date +%s.%N)
+    "$@"
+    end=$(date +%s.%N)
+    awk -v s="$start" -v e="$end" 'BEGIN { printf "%.3f", e - s }'
+}
+
+echo "length: $LENGTH, iterations: $ITERATIONS, $CC $CFLAGS"
+for name in scalars arrays; do
+    mkdir "$WORK/$name"
+    java_s=$(seconds sh -c "cd '$WORK/$name' && java Compiler ../$name.customlang > /dev/null")
+    gcc_s=$(seconds "$CC" $CFLAGS "$WORK/$name/output.c" -o "$WORK/$name/program")
+    run_s=$(seconds sh -c "'$WORK/$name/program' < '$WORK/input.txt' > '$WORK/$name.txt'")
+    printf '%-8s source: %8d bytes  C: %8d bytes  java: %ss  gcc: %ss  run: %ss\n' "$name" \
+        "$(wc -c < "$WORK/$name.customlang")" "$(wc -c < "$WORK/$name/output.c")" "$java_s" "$gcc_s" "$run_s"
+done
+if cmp -s "$WORK/scalars.txt" "$WORK/arrays.txt"; then
+    echo "outputs: identical"
+else
+    echo "outputs: DIFFERENT"
+    exit 1
+fi
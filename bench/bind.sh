@@ -0,0 +1,89 @@
+#!/bin/sh
+# A batch program that READs PARAMS configuration values and one data value
+# per record, derives DERIVED constants from the configuration and combines
+# them with the data. Compiled as is, every record carries and recomputes the
+# configuration; with --bind-file the residual program only reads the data.
+# Prints C size, gcc time and throughput for both and checks their output,
+# then checks that constants written after a message ending in an escape, or
+# defined under an IF that --bind decides, print the same and compile
+# without warnings.
+#   bench/bind.sh [DERIVED] [RECORDS] [PARAMS]
+set -e
+DERIVED=${1:-2000}
+RECORDS=${2:-1000000}
+PARAMS=${3:-16}
+CC=${CC:-gcc}
+BENCH=$(cd "$(dirname "$0")" && pwd)
+ROOT=$(dirname "$BENCH")
+CLASSPATH=${CLASSPATH:-.}:$ROOT
+export CLASSPATH
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+awk -v derived="$DERIVED" -v params="$PARAMS" 'BEGIN {
+    srand(13);
+    for (i = 0; i < params; i++) printf "DEF p%d;\nREAD(p%d);\n", i, i;
+    print "DEF x;\nREAD(x);";
+    for (i = 0; i < derived; i++) {
+        a = i < 2 ? "p" int(rand() * params) : "d" int(rand() * i);
+        printf "DEF d%d <- %s * 0.5 + p%d / %d.5;\n", i, a, int(rand() * params), 1 + int(rand() * 9);
+    }
+    printf "WRITE(\"y \", x * d%d + d%d);\n", derived - 1, derived - 2;
+}' > "$WORK/program.customlang"
+awk -v params="$PARAMS" 'BEGIN { srand(17); for (i = 0; i < params; i++) printf "p%d=%.2f\n", i, rand() * 4 }' \
+    > "$WORK/config.txt"
+config=$(awk -F= '{ printf "%s ", $2 }' "$WORK/config.txt")
+awk -v n="$RECORDS" -v config="$config" -v bound="$WORK/bound.txt" 'BEGIN {
+    srand(19);
+    for (i = 0; i < n; i++) {
+        x = sprintf("%.3f", rand());
+        print config x;
+        print x > bound;
+    }
+}' > "$WORK/unbound.txt"
+
+seconds() {
+    start=$(date +%s.%N)
+    "$@"
+    end=$(date +%s.%N)
+    awk -v s="$start" -v e="$end" 'BEGIN { printf "%.3f", e - s }'
+}
+
+echo "derived: $DERIVED, params: $PARAMS, records: $RECORDS"
+for name in unbound bound; do
+    mkdir "$WORK/$name"
+    flags="--batch --fast-io"
+    if [ "$name" = bound ]; then
+        flags="$flags --bind-file $WORK/config.txt"
+    fi
+    (cd "$WORK/$name" && java Compiler $flags ../program.customlang)
+    gcc_s=$(seconds "$CC" -O2 "$WORK/$name/output.c" -o "$WORK/$name/program")
+    run_s=$(seconds sh -c "'$WORK/$name/program' '$WORK/$name.txt' > '$WORK/$name.out' 2>/dev/null")
+    awk -v n="$name" -v c="$(wc -c < "$WORK/$name/output.c")" -v g="$gcc_s" -v r="$run_s" -v records="$RECORDS" \
+        'BEGIN { printf "%-8s C: %8d bytes  gcc: %ss  run: %ss (%.0f records/s)\n", n, c, g, r, (r > 0 ? records / r : 0) }'
+done
+if cmp -s "$WORK/unbound.out" "$WORK/bound.out"; then
+    echo "outputs: identical"
+else
+    echo "outputs: DIFFERENT"
+    exit 1
+fi
+
+printf '%s\n' 'DEF k;' 'READ(k);' 'WRITE("\1", k);' 'WRITE("\x4", k + 1);' \
+    'IF (k > 1) { DEF q <- k * 2; }' 'WRITE("q ", q);' > "$WORK/escapes.customlang"
+for name in escapes_unbound escapes_bound; do
+    mkdir "$WORK/$name"
+    flags=""
+    if [ "$name" = escapes_bound ]; then
+        flags="--bind k=2"
+    fi
+    (cd "$WORK/$name" && java Compiler $flags ../escapes.customlang)
+    "$CC" -Wall -Wextra -Werror "$WORK/$name/output.c" -o "$WORK/$name/program"
+    echo 2 | "$WORK/$name/program" > "$WORK/$name.out"
+done
+if cmp -s "$WORK/escapes_unbound.out" "$WORK/escapes_bound.out"; then
+    echo "escapes: identical"
+else
+    echo "escapes: DIFFERENT"
+    exit 1
+fi
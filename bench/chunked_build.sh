@@ -0,0 +1,32 @@
+#!/bin/sh
+# Times gcc on generated programs of growing size, with main() in one piece
+# (--chunk-size 0) and split into functions of CHUNK statements.
+#   bench/chunked_build.sh [CHUNK] [OPT] [N...]
+set -e
+CHUNK=${1:-2000}
+OPT=${2:--O2}
+[ $# -gt 2 ] && shift 2 || set -- 10000 20000 40000 80000
+CC=${CC:-gcc}
+BENCH=$(cd "$(dirname "$0")" && pwd)
+ROOT=$(dirname "$BENCH")
+CLASSPATH=${CLASSPATH:-.}:$ROOT
+export CLASSPATH
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+seconds() {
+    start=$(date +%s.%N)
+    "$@"
+    end=$(date +%s.%N)
+    awk -v s="$start" -v e="$end" 'BEGIN { printf "%.2f", e - s }'
+}
+
+printf "%10s %14s %14s\n" statements "one main (s)" "chunked (s)"
+for n in "$@"; do
+    "$BENCH/generate.sh" "$n" > "$WORK/program.customlang"
+    (cd "$WORK" && java Compiler --chunk-size 0 program.customlang && mv output.c whole.c)
+    (cd "$WORK" && java Compiler --chunk-size "$CHUNK" program.customlang && mv output.c chunked.c)
+    whole=$(seconds "$CC" "$OPT" -c "$WORK/whole.c" -o "$WORK/whole.o")
+    chunked=$(seconds "$CC" "$OPT" -c "$WORK/chunked.c" -o "$WORK/chunked.o")
+    printf "%10s %14s %14s\n" "$n" "$whole" "$chunked"
+done
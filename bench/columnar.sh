@@ -0,0 +1,53 @@
+#!/bin/sh
+# Compares the scalar --batch build with the --columnar build on RECORDS
+# input records, both at -O3 with --fast-io, for two programs of STATEMENTS
+# statements: bench/generate.sh, which WRITEs every 16th value and is bound
+# by output, and a dependency chain that WRITEs once and is bound by compute.
+#   bench/columnar.sh [STATEMENTS] [RECORDS]
+set -e
+STATEMENTS=${1:-200}
+RECORDS=${2:-1000000}
+CC=${CC:-gcc}
+BENCH=$(cd "$(dirname "$0")" && pwd)
+ROOT=$(dirname "$BENCH")
+CLASSPATH=${CLASSPATH:-.}:$ROOT
+export CLASSPATH
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+"$BENCH/generate.sh" "$STATEMENTS" 4 > "$WORK/output-bound.customlang"
+awk -v n="$STATEMENTS" 'BEGIN {
+    for (i = 0; i < 4; i++) {
+        printf "DEF r%d;\nREAD(r%d);\n", i, i;
+    }
+    printf "DEF v0 <- r0;\n";
+    for (i = 1; i < n; i++) {
+        printf "DEF v%d <- v%d * 0.5 + r%d * 1.5;\n", i, i - 1, i % 4;
+    }
+    printf "WRITE(\"v = \", v%d);\n", n - 1;
+}' > "$WORK/compute-bound.customlang"
+awk -v n="$RECORDS" 'BEGIN {
+    srand(7);
+    for (i = 0; i < n; i++) {
+        printf "%.3f %.3f %.3f %.3f\n", rand(), rand(), rand(), rand();
+    }
+}' > "$WORK/records.txt"
+
+seconds() {
+    start=$(date +%s.%N)
+    "$@"
+    end=$(date +%s.%N)
+    awk -v s="$start" -v e="$end" 'BEGIN { printf "%.3f", e - s }'
+}
+
+echo "statements: $STATEMENTS, records: $RECORDS"
+for program in output-bound compute-bound; do
+    for mode in batch columnar; do
+        (cd "$WORK" && java Compiler "--$mode" --fast-io "$program.customlang" && "$CC" -O3 output.c -o "$mode")
+    done
+    scalar=$(seconds sh -c "'$WORK/batch' '$WORK/records.txt' > '$WORK/batch.txt' 2>/dev/null")
+    columnar=$(seconds sh -c "'$WORK/columnar' '$WORK/records.txt' > '$WORK/columnar.txt' 2>/dev/null")
+    cmp "$WORK/batch.txt" "$WORK/columnar.txt"
+    awk -v p="$program" -v s="$scalar" -v c="$columnar" \
+        'BEGIN { printf "%-14s --batch: %ss  --columnar: %ss  speedup: %.2fx (outputs identical)\n", p, s, c, (c > 0 ? s / c : 0) }'
+done
@@ -0,0 +1,30 @@
+#!/bin/sh
+# Checks that the --fast-io runtime prints and reads doubles exactly like
+# printf("%lf") and scanf("%lf"), and times both on N values.
+#   bench/fast_io.sh [N]
+set -e
+N=${1:-1000000}
+CC=${CC:-gcc}
+BENCH=$(cd "$(dirname "$0")" && pwd)
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+"$CC" -O2 "$BENCH/fast_io_bench.c" -o "$WORK/bench"
+
+seconds() {
+    start=$(date +%s.%N)
+    "$@"
+    end=$(date +%s.%N)
+    awk -v s="$start" -v e="$end" 'BEGIN { printf "%.3f", e - s }'
+}
+
+print_libc=$(seconds sh -c "'$WORK/bench' print-libc $N > '$WORK/libc.txt'")
+print_fast=$(seconds sh -c "'$WORK/bench' print-fast $N > '$WORK/fast.txt'")
+cmp "$WORK/libc.txt" "$WORK/fast.txt"
+read_libc=$(seconds sh -c "'$WORK/bench' read-libc $N < '$WORK/libc.txt' > '$WORK/libc.sum'")
+read_fast=$(seconds sh -c "'$WORK/bench' read-fast $N < '$WORK/libc.txt' > '$WORK/fast.sum'")
+cmp "$WORK/libc.sum" "$WORK/fast.sum"
+
+echo "values: $N (outputs identical)"
+echo "WRITE  printf: ${print_libc}s  fast-io: ${print_fast}s"
+echo "READ   scanf:  ${read_libc}s  fast-io: ${read_fast}s"
@@ -0,0 +1,70 @@
+/* Driver for bench/fast_io.sh: prints or reads N doubles either through the
+ * --fast-io runtime or through printf/scanf, so both outputs can be compared
+ * byte for byte and timed.
+ *   fast_io_bench print-fast|print-libc|read-fast|read-libc N */
+#include <stdio.h>
+#include <stdlib.h>
+#include "../customlang_fast_io.h"
+
+static uint64_t state = 42;
+
+static uint64_t next_random(void) {
+    state ^= state << 13;
+    state ^= state >> 7;
+    state ^= state << 17;
+    return state;
+}
+
+/* A mix of the values programs print: integers, short decimals, exact
+ * rounding ties, arbitrary bit patterns, huge values and signed zeros. */
+static double next_value(void) {
+    uint64_t r = next_random();
+    double value;
+    switch (r % 6) {
+        case 0: value = (double) (int64_t) (r >> 20) / 1000.0; break;
+        case 1: value = (double) (r >> 40); break;
+        case 2: value = (double) (r >> 45) / 128.0; break;
+        case 3: {
+            uint64_t bits = (r >> 12) | ((uint64_t) (1023 - 30 + (r >> 3) % 90) << 52);
+            memcpy(&value, &bits, sizeof value);
+            break;
+        }
+        case 4: value = (double) (r >> 8) * 1e10; break;
+        default: value = (r >> 3) % 7 == 0 ? -0.0 : 1.0 / (double) (r >> 50 | 1); break;
+    }
+    return (r >> 63) ? -value : value;
+}
+
+int main(int argc, char **argv) {
+    if (argc != 3) {
+        fprintf(stderr, "usage: %s print-fast|print-libc|read-fast|read-libc N\n", argv[0]);
+        return 2;
+    }
+    long count = atol(argv[2]);
+    int fast = strstr(argv[1], "fast") != NULL;
+    if (strncmp(argv[1], "print", 5) == 0) {
+        for (long i = 0; i < count; i++) {
+            double value = next_value();
+            if (fast) {
+                cl_print_double(value);
+            } else {
+                printf("%lf\n", value);
+            }
+        }
+        return 0;
+    }
+    uint64_t checksum = 0;
+    for (long i = 0; i < count; i++) {
+        double value;
+        if (fast) {
+            value = cl_read_double();
+        } else if (scanf("%lf", &value) != 1) {
+            cl_input_error();
+        }
+        uint64_t bits;
+        memcpy(&bits, &value, sizeof bits);
+        checksum = checksum * 31 + bits;
+    }
+    printf("%016llx\n", (unsigned long long) checksum);
+    return 0;
+}
@@ -0,0 +1,22 @@
+#!/bin/sh
+# Prints a straight-line CustomLang program with N statements to stdout.
+#   bench/generate.sh N [READS]
+# The first READS statements (default 4) read inputs r0..; the rest chain
+# arithmetic over previously defined variables and WRITE every 16th result.
+N=${1:?usage: generate.sh N [READS]}
+READS=${2:-4}
+awk -v n="$N" -v reads="$READS" 'BEGIN {
+    srand(42);
+    for (i = 0; i < reads && i < n; i++) {
+        printf "DEF r%d;\nREAD(r%d);\n", i, i;
+    }
+    split("+ - * +", ops, " ");
+    for (i = reads; i < n; i++) {
+        a = (i == reads) ? "r0" : "v" int(reads + rand() * (i - reads));
+        b = (reads > 0) ? "r" int(rand() * reads) : "1";
+        printf "DEF v%d <- %s %s %s %s %d.5;\n", i, a, ops[1 + int(rand() * 4)], b, ops[1 + int(rand() * 4)], 1 + int(rand() * 9);
+        if (i % 16 == 0) {
+            printf "WRITE(\"v%d = \", v%d);\n", i, i;
+        }
+    }
+}'
@@ -0,0 +1,16 @@
+#!/bin/sh
+# Checks that incremental recompilation gives the same C as a full compile,
+# through a scripted editing session and by typing a generated program of
+# STATEMENTS statements line by line; see bench/IncrementalCheck.java.
+#   bench/incremental_check.sh [STATEMENTS]
+set -e
+STATEMENTS=${1:-300}
+BENCH=$(cd "$(dirname "$0")" && pwd)
+ROOT=$(dirname "$BENCH")
+CLASSPATH=${CLASSPATH:-.}:$ROOT
+export CLASSPATH
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+"$BENCH/generate.sh" "$STATEMENTS" > "$WORK/program.customlang"
+java "$BENCH/IncrementalCheck.java" "$WORK/program.customlang"
@@ -0,0 +1,17 @@
+#!/bin/sh
+# Measures the embeddable compiler API under concurrent use on a generated
+# program of STATEMENTS statements; see bench/LibraryThroughput.java.
+#   bench/library_throughput.sh [STATEMENTS] [THREADS] [SECONDS]
+set -e
+STATEMENTS=${1:-2000}
+THREADS=${2:-$(nproc)}
+SECONDS_=${3:-5}
+BENCH=$(cd "$(dirname "$0")" && pwd)
+ROOT=$(dirname "$BENCH")
+CLASSPATH=${CLASSPATH:-.}:$ROOT
+export CLASSPATH
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+"$BENCH/generate.sh" "$STATEMENTS" > "$WORK/program.customlang"
+java "$BENCH/LibraryThroughput.java" "$WORK/program.customlang" "$THREADS" "$SECONDS_"
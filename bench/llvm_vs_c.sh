@@ -0,0 +1,39 @@
+#!/bin/sh
+# Compares native build time of the C backend (gcc) against the LLVM IR
+# backend (llc) on a generated straight-line program, and checks that both
+# binaries print the same output.
+#   CLASSPATH=antlr-4.13.2-complete.jar:. bench/llvm_vs_c.sh [N] [OPT]
+# LLC and CC select the tools (default: llc, gcc).
+set -e
+N=${1:-100000}
+OPT=${2:--O2}
+LLC=${LLC:-llc}
+CC=${CC:-gcc}
+BENCH=$(cd "$(dirname "$0")" && pwd)
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+"$BENCH/generate.sh" "$N" > "$WORK/program.customlang"
+cd "$WORK"
+java Compiler program.customlang
+java Compiler --emit-llvm program.customlang
+
+seconds() {
+    start=$(date +%s.%N)
+    "$@"
+    end=$(date +%s.%N)
+    awk -v s="$start" -v e="$end" 'BEGIN { printf "%.2f", e - s }'
+}
+
+c_time=$(seconds "$CC" "$OPT" -c output.c -o c.o)
+ll_time=$(seconds "$LLC" "$OPT" -filetype=obj -relocation-model=pic output.ll -o ll.o)
+"$CC" c.o -o c.bin
+"$CC" ll.o -o ll.bin
+
+echo "1.5 2.5 3.5 4.5" | ./c.bin > c.out
+echo "1.5 2.5 3.5 4.5" | ./ll.bin > ll.out
+cmp -s c.out ll.out || { echo "outputs differ"; exit 1; }
+
+echo "statements: $N ($OPT)"
+echo "C backend    ($CC -c):  ${c_time}s"
+echo "LLVM backend ($LLC):    ${ll_time}s"
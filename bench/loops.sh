@@ -0,0 +1,50 @@
+#!/bin/sh
+# Compares a loop body unrolled ITERATIONS times, as a straight-line program
+# must spell it, with the same body in a REPEAT loop: source and C size,
+# Java compile time, gcc -O2 time and run time, and that both print the same.
+#   bench/loops.sh [ITERATIONS]
+set -e
+ITERATIONS=${1:-20000}
+CC=${CC:-gcc}
+BENCH=$(cd "$(dirname "$0")" && pwd)
+ROOT=$(dirname "$BENCH")
+CLASSPATH=${CLASSPATH:-.}:$ROOT
+export CLASSPATH
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+BODY='DEF x <- x * 0.999 + r * k;
+DEF s <- s + x / (k + 1);'
+{
+    printf 'DEF r;\nREAD(r);\nDEF k <- 3;\nDEF x <- 1;\nDEF s <- 0;\n'
+    awk -v n="$ITERATIONS" -v body="$BODY" 'BEGIN { for (i = 0; i < n; i++) print body }'
+    printf 'WRITE("x = ", x);\nWRITE("s = ", s);\n'
+} > "$WORK/unrolled.customlang"
+{
+    printf 'DEF r;\nREAD(r);\nDEF k <- 3;\nDEF x <- 1;\nDEF s <- 0;\n'
+    printf 'REPEAT %d {\n%s\n}\n' "$ITERATIONS" "$BODY"
+    printf 'WRITE("x = ", x);\nWRITE("s = ", s);\n'
+} > "$WORK/loop.customlang"
+
+seconds() {
+    start=$(date +%s.%N)
+    "$@"
+    end=$(date +%s.%N)
+    awk -v s="$start" -v e="$end" 'BEGIN { printf "%.3f", e - s }'
+}
+
+echo "iterations: $ITERATIONS"
+for name in unrolled loop; do
+    mkdir "$WORK/$name"
+    java_s=$(seconds sh -c "cd '$WORK/$name' && java Compiler ../$name.customlang > /dev/null")
+    gcc_s=$(seconds "$CC" -O2 "$WORK/$name/output.c" -o "$WORK/$name/program")
+    run_s=$(seconds sh -c "echo 0.5 | '$WORK/$name/program' > '$WORK/$name.txt'")
+    printf '%-9s source: %9d bytes  C: %9d bytes  java: %ss  gcc: %ss  run: %ss\n' "$name" \
+        "$(wc -c < "$WORK/$name.customlang")" "$(wc -c < "$WORK/$name/output.c")" "$java_s" "$gcc_s" "$run_s"
+done
+if cmp -s "$WORK/unrolled.txt" "$WORK/loop.txt"; then
+    echo "outputs: identical"
+else
+    echo "outputs: DIFFERENT"
+    exit 1
+fi
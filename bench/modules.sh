@@ -0,0 +1,78 @@
+#!/bin/sh
+# A program split into MODULES modules of STATEMENTS statements each, which
+# the main program IMPORTs, against the same statements in a single file.
+# Times --native builds from an empty cache, again without changes and after
+# an edit to one module, which rebuilds only that module and the main
+# program; the single file is rebuilt whole. Checks that outputs agree.
+#   bench/modules.sh [MODULES] [STATEMENTS]
+set -e
+MODULES=${1:-16}
+STATEMENTS=${2:-1500}
+BENCH=$(cd "$(dirname "$0")" && pwd)
+ROOT=$(dirname "$BENCH")
+CLASSPATH=${CLASSPATH:-.}:$ROOT
+export CLASSPATH
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+CUSTOMLANG_CACHE=$WORK/cache
+export CUSTOMLANG_CACHE
+
+mkdir "$WORK/modular" "$WORK/single"
+awk -v modules="$MODULES" -v statements="$STATEMENTS" -v dir="$WORK/modular" 'BEGIN {
+    srand(23);
+    for (m = 0; m < modules; m++) {
+        file = dir "/m" m ".customlang";
+        printf "DEF m%d_v0 <- %d.5;\n", m, m + 1 > file;
+        for (i = 1; i < statements; i++) {
+            printf "DEF m%d_v%d <- m%d_v%d * 0.5 + m%d_v%d / %d.25;\n", m, i, m, i - 1, m, int(rand() * i), 1 + int(rand() * 9) > file;
+        }
+        printf "EXPORT m%d_v%d;\n", m, statements - 1 > file;
+        close(file);
+        printf "IMPORT m%d;\n", m > dir "/main.customlang";
+    }
+    print "DEF x;\nREAD(x);" > dir "/main.customlang";
+    for (m = 0; m < modules; m++) {
+        printf "DEF x <- x + m%d_v%d;\n", m, statements - 1 > dir "/main.customlang";
+    }
+    print "WRITE(\"x \", x);" > dir "/main.customlang";
+}'
+
+single() {
+    for m in $(seq 0 $((MODULES - 1))); do
+        grep -v '^EXPORT' "$WORK/modular/m$m.customlang"
+    done > "$WORK/single/main.customlang"
+    grep -v '^IMPORT' "$WORK/modular/main.customlang" >> "$WORK/single/main.customlang"
+}
+
+seconds() {
+    start=$(date +%s.%N)
+    "$@" > "$WORK/report.txt"
+    end=$(date +%s.%N)
+    awk -v s="$start" -v e="$end" 'BEGIN { printf "%.3f", e - s }'
+}
+
+build() {
+    s=$(cd "$WORK/$1" && seconds java Compiler --native main.customlang)
+    detail=$(sed -e 's/^[^:]*: //' -e 's/ -> output$//' "$WORK/report.txt")
+    printf "%-8s %-9s %6ss  %s\n" "$1" "$2" "$s" "$detail"
+    echo 7 | "$WORK/$1/output" > "$WORK/$1.out"
+}
+
+echo "modules: $MODULES, statements per module: $STATEMENTS, cpus: $(getconf _NPROCESSORS_ONLN)"
+single
+build modular cold
+build single cold
+build modular unchanged
+build single unchanged
+# Edit the first constant of one module.
+edited=$WORK/modular/m$((MODULES / 2)).customlang
+sed '1s/\.5;/.75;/' "$edited" > "$WORK/edited" && mv "$WORK/edited" "$edited"
+single
+build modular edited
+build single edited
+if cmp -s "$WORK/modular.out" "$WORK/single.out"; then
+    echo "outputs: identical"
+else
+    echo "outputs: DIFFERENT"
+    exit 1
+fi
@@ -0,0 +1,72 @@
+#!/bin/sh
+# A record-processing batch program that classifies every record through
+# BRANCHES chained IFs, of which the data takes the last few most often,
+# and iterates a WHILE loop whose trip count depends on the record. Builds
+# it with --native and with --pgo on a training set of a tenth of the
+# records, then with --pgo again (the profile is reused from the cache),
+# and compares throughput on the full set and the outputs.
+#   bench/pgo.sh [BRANCHES] [RECORDS]
+set -e
+BRANCHES=${1:-256}
+RECORDS=${2:-2000000}
+BENCH=$(cd "$(dirname "$0")" && pwd)
+ROOT=$(dirname "$BENCH")
+CLASSPATH=${CLASSPATH:-.}:$ROOT
+export CLASSPATH
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+CUSTOMLANG_CACHE=$WORK/cache
+export CUSTOMLANG_CACHE
+
+awk -v branches="$BRANCHES" 'BEGIN {
+    print "DEF kind;\nREAD(kind);\nDEF amount;\nREAD(amount);\nDEF score <- 0;";
+    for (b = 0; b < branches; b++) {
+        printf "%sIF (kind < %d) {\n    DEF score <- amount * %d.5 - %d;\n}", b ? " ELSE " : "", b + 1, b % 7 + 1, b;
+    }
+    print " ELSE {\n    DEF score <- amount;\n}";
+    print "DEF steps <- 0;\nWHILE (amount > 1) {\n    DEF amount <- amount / 2;\n    DEF steps <- steps + 1;\n}";
+    print "WRITE(\"r \", score + steps);";
+}' > "$WORK/program.customlang"
+# Kinds are skewed towards the last branches.
+awk -v n="$RECORDS" -v branches="$BRANCHES" -v training="$WORK/training.txt" 'BEGIN {
+    srand(29);
+    for (i = 0; i < n; i++) {
+        r = rand();
+        line = sprintf("%d %.2f", int(branches * (1 - r * r * r)), rand() * 1000);
+        print line;
+        if (i % 10 == 0) print line > training;
+    }
+}' > "$WORK/records.txt"
+
+seconds() {
+    start=$(date +%s.%N)
+    "$@"
+    end=$(date +%s.%N)
+    awk -v s="$start" -v e="$end" 'BEGIN { printf "%.3f", e - s }'
+}
+
+run() {
+    name=$1
+    shift
+    mkdir -p "$WORK/$name"
+    (cd "$WORK/$name" && java Compiler --batch --fast-io "$@" ../program.customlang > ../build.txt)
+    detail=$(sed -e 's/^[^:]*: //' -e 's/ -> output$//' "$WORK/build.txt")
+    run_s=$(seconds sh -c "'$WORK/$name/output' '$WORK/records.txt' > '$WORK/$name.out' 2>/dev/null")
+    awk -v n="$name" -v r="$run_s" -v records="$RECORDS" -v d="$detail" \
+        'BEGIN { printf "%-10s run: %ss (%.0f records/s)  %s\n", n, r, records / r, d }'
+    last=$run_s
+}
+
+echo "branches: $BRANCHES, records: $RECORDS, training records: $(wc -l < "$WORK/training.txt")"
+run plain --native
+plain_s=$last
+run pgo --pgo "$WORK/training.txt"
+pgo_s=$last
+run pgo-again --pgo "$WORK/training.txt"
+awk -v p="$plain_s" -v g="$pgo_s" 'BEGIN { printf "speedup: %.2fx\n", p / g }'
+if cmp -s "$WORK/plain.out" "$WORK/pgo.out" && cmp -s "$WORK/plain.out" "$WORK/pgo-again.out"; then
+    echo "outputs: identical"
+else
+    echo "outputs: DIFFERENT"
+    exit 1
+fi
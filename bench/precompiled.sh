@@ -0,0 +1,18 @@
+#!/bin/sh
+# Precompiles a generated program of STATEMENTS statements with --precompile
+# and compares loading it against parsing the source; see
+# bench/PrecompiledLoad.java.
+#   bench/precompiled.sh [STATEMENTS] [SECONDS]
+set -e
+STATEMENTS=${1:-5000}
+SECONDS_=${2:-3}
+BENCH=$(cd "$(dirname "$0")" && pwd)
+ROOT=$(dirname "$BENCH")
+CLASSPATH=${CLASSPATH:-.}:$ROOT
+export CLASSPATH
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+"$BENCH/generate.sh" "$STATEMENTS" > "$WORK/program.customlang"
+(cd "$WORK" && java Compiler --precompile program.customlang)
+java "$BENCH/PrecompiledLoad.java" "$WORK/program.customlang" "$WORK/output.clpc" "$SECONDS_"
@@ -0,0 +1,41 @@
+#!/bin/sh
+# Measures the overhead of --profile: builds bench/generate.sh's program of
+# STATEMENTS statements with --batch --fast-io at -O2, with and without
+# --profile, runs both on RECORDS input records and checks that their
+# output is identical. Prints the hottest statements of the profile.
+#   bench/profile.sh [STATEMENTS] [RECORDS]
+set -e
+STATEMENTS=${1:-200}
+RECORDS=${2:-1000000}
+CC=${CC:-gcc}
+BENCH=$(cd "$(dirname "$0")" && pwd)
+ROOT=$(dirname "$BENCH")
+CLASSPATH=${CLASSPATH:-.}:$ROOT
+export CLASSPATH
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+"$BENCH/generate.sh" "$STATEMENTS" 4 > "$WORK/program.customlang"
+awk -v n="$RECORDS" 'BEGIN {
+    srand(7);
+    for (i = 0; i < n; i++) {
+        printf "%.3f %.3f %.3f %.3f\n", rand(), rand(), rand(), rand();
+    }
+}' > "$WORK/records.txt"
+
+seconds() {
+    start=$(date +%s.%N)
+    "$@"
+    end=$(date +%s.%N)
+    awk -v s="$start" -v e="$end" 'BEGIN { printf "%.3f", e - s }'
+}
+
+(cd "$WORK" && java Compiler --batch --fast-io program.customlang && "$CC" -O2 output.c -o plain)
+(cd "$WORK" && java Compiler --batch --fast-io --profile program.customlang && "$CC" -O2 output.c -o profiled)
+plain=$(seconds sh -c "'$WORK/plain' '$WORK/records.txt' > '$WORK/plain.txt' 2>/dev/null")
+profiled=$(seconds sh -c "CUSTOMLANG_PROFILE='$WORK/program.prof' '$WORK/profiled' '$WORK/records.txt' > '$WORK/profiled.txt' 2>/dev/null")
+cmp "$WORK/plain.txt" "$WORK/profiled.txt"
+echo "statements: $STATEMENTS, records: $RECORDS"
+awk -v p="$plain" -v q="$profiled" \
+    'BEGIN { printf "plain: %ss  --profile: %ss  overhead: %.1f%% (outputs identical)\n", p, q, (p > 0 ? 100 * (q - p) / p : 0) }'
+head -n 7 "$WORK/program.prof"
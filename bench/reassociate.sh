@@ -0,0 +1,62 @@
+#!/bin/sh
+# Times --reassociate on SUMS sums of TERMS terms each, over RECORDS input
+# records of 8 values, with --batch --fast-io at -O2 and at -O2
+# -march=native (where gcc may fuse multiply-adds into FMAs). Results are
+# rounded differently, so the number of differing output lines is printed.
+#   bench/reassociate.sh [TERMS] [SUMS] [RECORDS]
+set -e
+TERMS=${1:-256}
+SUMS=${2:-4}
+RECORDS=${3:-1000000}
+CC=${CC:-gcc}
+BENCH=$(cd "$(dirname "$0")" && pwd)
+ROOT=$(dirname "$BENCH")
+CLASSPATH=${CLASSPATH:-.}:$ROOT
+export CLASSPATH
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+awk -v terms="$TERMS" -v sums="$SUMS" 'BEGIN {
+    srand(11);
+    for (i = 0; i < 8; i++) {
+        printf "DEF r%d;\nREAD(r%d);\n", i, i;
+    }
+    for (s = 0; s < sums; s++) {
+        printf "DEF s%d <- r0", s;
+        for (i = 1; i < terms; i++) {
+            if (i % 2) {
+                printf " + r%d * %d.%d", int(rand() * 8), 1 + int(rand() * 9), int(rand() * 10);
+            } else {
+                printf " + r%d", int(rand() * 8);
+            }
+        }
+        printf ";\nWRITE(\"s%d = \", s%d);\n", s, s;
+    }
+}' > "$WORK/sums.customlang"
+awk -v n="$RECORDS" 'BEGIN {
+    srand(7);
+    for (i = 0; i < n; i++) {
+        for (j = 0; j < 8; j++) {
+            printf "%.3f%s", rand(), (j < 7 ? " " : "\n");
+        }
+    }
+}' > "$WORK/records.txt"
+
+seconds() {
+    start=$(date +%s.%N)
+    "$@"
+    end=$(date +%s.%N)
+    awk -v s="$start" -v e="$end" 'BEGIN { printf "%.3f", e - s }'
+}
+
+echo "sums: $SUMS of $TERMS terms, records: $RECORDS"
+for flags in "-O2" "-O2 -march=native"; do
+    (cd "$WORK" && java Compiler --batch --fast-io sums.customlang && "$CC" $flags output.c -o chain)
+    (cd "$WORK" && java Compiler --batch --fast-io --reassociate sums.customlang \
+        && "$CC" $flags -ffp-contract=fast output.c -o balanced)
+    chain=$(seconds sh -c "'$WORK/chain' '$WORK/records.txt' > '$WORK/chain.txt' 2>/dev/null")
+    balanced=$(seconds sh -c "'$WORK/balanced' '$WORK/records.txt' > '$WORK/balanced.txt' 2>/dev/null")
+    differing=$(cmp -l "$WORK/chain.txt" "$WORK/balanced.txt" 2>/dev/null | wc -l || true)
+    awk -v f="$flags" -v c="$chain" -v b="$balanced" -v d="$differing" \
+        'BEGIN { printf "%-18s chain: %ss  --reassociate: %ss  speedup: %.2fx (%d bytes differ)\n", f, c, b, (b > 0 ? c / b : 0), d }'
+done
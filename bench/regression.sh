@@ -0,0 +1,14 @@
+#!/bin/sh
+# Runs the end-to-end performance regression suite against
+# bench/regression-baseline.properties, with a fixed heap so that peak heap
+# figures compare; see bench/RegressionSuite.java. --record rewrites the
+# baseline.
+#   bench/regression.sh [--record] [--repeats N] [--threshold METRIC=RATIO]... [--only PREFIX]
+set -e
+BENCH=$(cd "$(dirname "$0")" && pwd)
+ROOT=$(dirname "$BENCH")
+CLASSPATH=${CLASSPATH:-.}:$ROOT
+export CLASSPATH
+
+java -Xms512m -Xmx512m -XX:+UseSerialGC "$BENCH/RegressionSuite.java" \
+    --baseline "$BENCH/regression-baseline.properties" "$@"
@@ -0,0 +1,58 @@
+#!/bin/sh
+# Cold-start time of one-shot compiles of CustomLang_input.customlang, the
+# mean of RUNS runs: from class directories, from jars, from jars with the
+# AppCDS archive of dist/build.sh, through the customlangc launcher and, if
+# native-image was available, the native executable. Checks that every
+# variant writes the same C.
+#   bench/startup.sh [RUNS]
+set -e
+RUNS=${1:-20}
+BENCH=$(cd "$(dirname "$0")" && pwd)
+ROOT=$(dirname "$BENCH")
+CLASSPATH=${CLASSPATH:-.}:$ROOT
+export CLASSPATH
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+"$ROOT/dist/build.sh" "$WORK/dist" 2> "$WORK/build.log" || { cat "$WORK/build.log" >&2; exit 1; }
+mkdir "$WORK/build"
+javac -nowarn -d "$WORK/build" "$ROOT"/*.java
+DIST=$WORK/dist
+JARS=$DIST/antlr.jar:$DIST/customlang.jar
+INPUT=$ROOT/CustomLang_input.customlang
+
+mean_ms() {
+    start=$(date +%s.%N)
+    i=0
+    while [ $i -lt "$RUNS" ]; do
+        "$@" > /dev/null
+        i=$((i + 1))
+    done
+    end=$(date +%s.%N)
+    awk -v s="$start" -v e="$end" -v n="$RUNS" 'BEGIN { printf "%.0f", (e - s) * 1000 / n }'
+}
+
+variant() {
+    name=$1
+    shift
+    mkdir "$WORK/$name"
+    ms=$(cd "$WORK/$name" && mean_ms "$@")
+    printf "%-10s %5s ms\n" "$name" "$ms"
+    if [ -n "$reference" ] && ! cmp -s "$WORK/$name/output.c" "$reference"; then
+        echo "$name: output differs" >&2
+        exit 1
+    fi
+    reference=$WORK/$name/output.c
+}
+
+echo "runs: $RUNS, $(java -version 2>&1 | head -n 1)"
+reference=
+variant classes java -cp "$WORK/build:$CLASSPATH" Compiler "$INPUT"
+variant jars java -cp "$JARS" Compiler "$INPUT"
+variant appcds java -XX:SharedArchiveFile="$DIST/customlang.jsa" -cp "$JARS" Compiler "$INPUT"
+variant launcher "$DIST/customlangc" "$INPUT"
+if [ -x "$DIST/customlangc-native" ]; then
+    variant native "$DIST/customlangc-native" "$INPUT"
+else
+    echo "native     not built: native-image is not on the PATH"
+fi
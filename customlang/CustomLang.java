@@ -0,0 +1,301 @@
+package customlang;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The library API for code in named packages, which cannot import the
+ * compiler's classes from the default package: the static {@code compile}
+ * methods of {@code CompilerSession}, with {@link Options} for the setters of
+ * {@code CompilerOptions} and {@link CompileException} for the errors of a
+ * source. The compiler's classes are looked up once, by name, in the class
+ * loader of this class, so they must be on the same class path.
+ */
+public final class CustomLang {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+    private static final Class<?> SESSION = type("CompilerSession");
+    private static final Class<?> OPTIONS = type("CompilerOptions");
+    private static final Class<?> SESSION_ERROR = type("CompilerSession$CompileException");
+    private static final Class<?> DIAGNOSTIC = type("Diagnostics$Diagnostic");
+    private static final Class<?>[] SOURCES = {CharSequence.class, Path.class, InputStream.class};
+    /** CompilerSession.compile for each source type, with or without a Writer and options. */
+    private static final MethodHandle[] COMPILE = new MethodHandle[SOURCES.length * 4];
+    private static final MethodHandle ERRORS = virtual(SESSION_ERROR, "errors", List.class);
+    private static final MethodHandle SOURCE = virtual(DIAGNOSTIC, "source", String.class);
+    private static final MethodHandle LINE = virtual(DIAGNOSTIC, "line", int.class);
+    private static final MethodHandle COLUMN = virtual(DIAGNOSTIC, "column", int.class);
+    private static final MethodHandle MESSAGE = virtual(DIAGNOSTIC, "message", String.class);
+
+    static {
+        for (int i = 0; i < COMPILE.length; i++) {
+            boolean writer = (i & 2) != 0;
+            boolean options = (i & 1) != 0;
+            List<Class<?>> parameters = new ArrayList<>();
+            parameters.add(SOURCES[i / 4]);
+            if (writer) {
+                parameters.add(Writer.class);
+            }
+            if (options) {
+                parameters.add(OPTIONS);
+            }
+            try {
+                COMPILE[i] = LOOKUP.findStatic(SESSION, "compile",
+                        MethodType.methodType(writer ? void.class : ByteBuffer.class, parameters));
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("CompilerSession has no compile" + parameters, e);
+            }
+        }
+    }
+
+    private CustomLang() {
+    }
+
+    /** An error of a source, as {@code Diagnostics} reports it. */
+    public static final class Diagnostic {
+        private final String source;
+        private final int line;
+        private final int column;
+        private final String message;
+
+        Diagnostic(String source, int line, int column, String message) {
+            this.source = source;
+            this.line = line;
+            this.column = column;
+            this.message = message;
+        }
+
+        /** The stage that found the error: lexer, parser, symbols or generator. */
+        public String source() {
+            return source;
+        }
+
+        public int line() {
+            return line;
+        }
+
+        public int column() {
+            return column;
+        }
+
+        public String message() {
+            return message;
+        }
+    }
+
+    /** Thrown when a source has errors; the diagnostics are in {@link #errors()}. */
+    public static final class CompileException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Diagnostic> errors;
+
+        CompileException(String message, List<Diagnostic> errors, Throwable cause) {
+            super(message, cause);
+            this.errors = Collections.unmodifiableList(errors);
+        }
+
+        public List<Diagnostic> errors() {
+            return errors;
+        }
+    }
+
+    /** Compiler options, named like the command line options; checked when a source is compiled. */
+    public static final class Options {
+        private final Object options;
+
+        public Options() {
+            try {
+                options = LOOKUP.findConstructor(OPTIONS, MethodType.methodType(void.class)).invoke();
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        public Options fastIo(boolean fastIo) {
+            return set("fastIo", boolean.class, fastIo);
+        }
+
+        public Options batch(boolean batch) {
+            return set("batch", boolean.class, batch);
+        }
+
+        /** Implies {@link #batch}. */
+        public Options threads(int threads) {
+            return set("threads", int.class, threads);
+        }
+
+        public Options inferInt(boolean inferInt) {
+            return set("inferInt", boolean.class, inferInt);
+        }
+
+        public Options slots(boolean slots) {
+            return set("slots", boolean.class, slots);
+        }
+
+        public Options profile(boolean profile) {
+            return set("profile", boolean.class, profile);
+        }
+
+        public Options reassociate(boolean reassociate) {
+            return set("reassociate", boolean.class, reassociate);
+        }
+
+        public Options strict(boolean strict) {
+            return set("strict", boolean.class, strict);
+        }
+
+        /** 0 is no limit. */
+        public Options maxErrors(int maxErrors) {
+            return set("maxErrors", int.class, maxErrors);
+        }
+
+        /** 0 keeps a single main(). */
+        public Options chunkSize(int chunkSize) {
+            return set("chunkSize", int.class, chunkSize);
+        }
+
+        public Options bind(String name, double value) {
+            try {
+                LOOKUP.findVirtual(OPTIONS, "bind", MethodType.methodType(OPTIONS, String.class, double.class))
+                        .invoke(options, name, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+            return this;
+        }
+
+        private Options set(String name, Class<?> type, Object value) {
+            try {
+                LOOKUP.findVirtual(OPTIONS, name, MethodType.methodType(OPTIONS, type)).invoke(options, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+            return this;
+        }
+    }
+
+    /** The C code as UTF-8 in a new buffer, which the caller owns. */
+    public static ByteBuffer compile(CharSequence source) {
+        return (ByteBuffer) unchecked(0, source, null, null);
+    }
+
+    public static ByteBuffer compile(CharSequence source, Options options) {
+        return (ByteBuffer) unchecked(0, source, null, options);
+    }
+
+    public static ByteBuffer compile(Path source) throws IOException {
+        return (ByteBuffer) call(1, source, null, null);
+    }
+
+    public static ByteBuffer compile(Path source, Options options) throws IOException {
+        return (ByteBuffer) call(1, source, null, options);
+    }
+
+    public static ByteBuffer compile(InputStream source) throws IOException {
+        return (ByteBuffer) call(2, source, null, null);
+    }
+
+    public static ByteBuffer compile(InputStream source, Options options) throws IOException {
+        return (ByteBuffer) call(2, source, null, options);
+    }
+
+    public static void compile(CharSequence source, Writer out) throws IOException {
+        call(0, source, out, null);
+    }
+
+    public static void compile(CharSequence source, Writer out, Options options) throws IOException {
+        call(0, source, out, options);
+    }
+
+    public static void compile(Path source, Writer out) throws IOException {
+        call(1, source, out, null);
+    }
+
+    public static void compile(Path source, Writer out, Options options) throws IOException {
+        call(1, source, out, options);
+    }
+
+    public static void compile(InputStream source, Writer out) throws IOException {
+        call(2, source, out, null);
+    }
+
+    public static void compile(InputStream source, Writer out, Options options) throws IOException {
+        call(2, source, out, options);
+    }
+
+    private static Object unchecked(int sourceType, Object source, Writer out, Options options) {
+        try {
+            return call(sourceType, source, out, options);
+        } catch (IOException e) {
+            // Compiling a CharSequence to a buffer does no I/O.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Object call(int sourceType, Object source, Writer out, Options options) throws IOException {
+        MethodHandle compile = COMPILE[sourceType * 4 + (out != null ? 2 : 0) + (options != null ? 1 : 0)];
+        List<Object> arguments = new ArrayList<>(3);
+        arguments.add(source);
+        if (out != null) {
+            arguments.add(out);
+        }
+        if (options != null) {
+            arguments.add(options.options);
+        }
+        try {
+            return compile.invokeWithArguments(arguments);
+        } catch (IOException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /** Turns the compiler's CompileException into this API's, and rethrows anything else unchecked. */
+    private static RuntimeException rethrow(Throwable e) {
+        if (SESSION_ERROR.isInstance(e)) {
+            List<Diagnostic> errors = new ArrayList<>();
+            try {
+                for (Object error : (List<?>) ERRORS.invoke(e)) {
+                    errors.add(new Diagnostic((String) SOURCE.invoke(error), (int) LINE.invoke(error),
+                            (int) COLUMN.invoke(error), (String) MESSAGE.invoke(error)));
+                }
+            } catch (Throwable unexpected) {
+                throw new IllegalStateException(unexpected);
+            }
+            return new CompileException(e.getMessage(), errors, e);
+        }
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IllegalStateException(e);
+    }
+
+    private static Class<?> type(String name) {
+        try {
+            return Class.forName(name, false, CustomLang.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("The compiler's " + name + " is not on the class path", e);
+        }
+    }
+
+    private static MethodHandle virtual(Class<?> type, String name, Class<?> returnType) {
+        try {
+            return LOOKUP.findVirtual(type, name, MethodType.methodType(returnType));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(type.getName() + " has no " + name + "()", e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/* CustomLang aggregate runtime, emitted after the fast I/O runtime into
+ * programs that use SUM, MIN, MAX, AVG or COUNT of INPUT.
+ *
+ * Before the first top-level statement that uses one of them, the rest of
+ * the input is read in a single pass through the fast I/O buffer and all
+ * five are computed at once, so memory does not grow with the input. The
+ * sum is compensated (Neumaier's variant of Kahan summation): the rounding
+ * error of every addition is accumulated separately and added back at the
+ * end, so the error does not grow with the number of values. -ffast-math
+ * would optimize the compensation away. Of an empty input, SUM and COUNT
+ * are 0 and MIN, MAX and AVG are NaN; NaN values are counted and summed but
+ * do not change MIN and MAX. */
+#include <math.h>
+
+struct cl_aggregate {
+    double sum;
+    double min;
+    double max;
+    double avg;
+    double count;
+};
+
+static struct cl_aggregate cl_agg;
+
+static void cl_aggregate_input(void) {
+    double sum = 0, compensation = 0, min = INFINITY, max = -INFINITY, value;
+    unsigned long long count = 0;
+    while (cl_try_read_double(&value)) {
+        double total = sum + value;
+        /* What the addition lost of the smaller operand. */
+        compensation += fabs(sum) >= fabs(value) ? (sum - total) + value : (value - total) + sum;
+        sum = total;
+        min = value < min ? value : min;
+        max = value > max ? value : max;
+        count++;
+    }
+    if (!cl_at_eof()) {
+        cl_input_error();
+    }
+    cl_agg.sum = sum + compensation;
+    cl_agg.count = (double) count;
+    cl_agg.min = count ? min : NAN;
+    cl_agg.max = count ? max : NAN;
+    cl_agg.avg = count ? cl_agg.sum / (double) count : NAN;
+}
@@ -0,0 +1,156 @@
+/* CustomLang batch runtime, emitted into programs compiled with --batch.
+ *
+ * The program body runs once per input record until the input is exhausted,
+ * and the throughput is reported on stderr. With --threads the records are
+ * read in blocks, sharded across pthreads and their output is written back
+ * in input order. */
+#include <ctype.h>
+#include <fcntl.h>
+#include <pthread.h>
+#include <string.h>
+#include <time.h>
+#include <unistd.h>
+
+#ifndef CL_UNUSED
+#define CL_UNUSED __attribute__((unused))
+#endif
+
+#define CL_BATCH_RECORDS 65536
+
+#ifndef CL_IN_SIZE
+static void cl_input_error(void) {
+    fprintf(stderr, "Error: Invalid input. Expected a decimal number.\n");
+    exit(1);
+}
+
+static int cl_try_read_double(double *value) {
+    return scanf("%lf", value) == 1;
+}
+
+CL_UNUSED static int cl_at_eof(void) {
+    int c;
+    do {
+        c = getchar();
+    } while (c != EOF && isspace(c));
+    if (c == EOF) {
+        return 1;
+    }
+    ungetc(c, stdin);
+    return 0;
+}
+#endif
+
+/* Records come from stdin, or from the file named by the first argument. */
+static void cl_open_input(int argc, char **argv) {
+    if (argc > 1) {
+        int fd = open(argv[1], O_RDONLY);
+        if (fd < 0 || dup2(fd, 0) < 0) {
+            perror(argv[1]);
+            exit(1);
+        }
+        close(fd);
+    }
+}
+
+static double cl_now(void) {
+    struct timespec now;
+    clock_gettime(CLOCK_MONOTONIC, &now);
+    return (double) now.tv_sec + (double) now.tv_nsec / 1e9;
+}
+
+static void cl_report(unsigned long records, double started) {
+    double seconds = cl_now() - started;
+    fflush(stdout);
+    fprintf(stderr, "customlang: %lu records in %.3f s (%.0f records/s)\n",
+            records, seconds, seconds > 0 ? (double) records / seconds : 0.0);
+}
+
+typedef void (*cl_record_fn)(const double *cl_in_values, FILE *cl_out);
+
+struct cl_shard {
+    cl_record_fn record;
+    const double *values;
+    size_t count;
+    size_t width;
+    char *output;
+    size_t length;
+};
+
+static int cl_read_failed;
+
+/* Reads up to max complete records of width values. A malformed value stops
+ * the run after the complete records before it. */
+static size_t cl_read_records(double *values, size_t width, size_t max) {
+    size_t count = 0;
+    while (!cl_read_failed && count < max && !cl_at_eof()) {
+        for (size_t i = 0; i < width; i++) {
+            if (!cl_try_read_double(&values[count * width + i])) {
+                cl_read_failed = 1;
+                return count;
+            }
+        }
+        count++;
+    }
+    return count;
+}
+
+static void *cl_run_shard(void *arg) {
+    struct cl_shard *shard = arg;
+    FILE *out = open_memstream(&shard->output, &shard->length);
+    for (size_t i = 0; i < shard->count; i++) {
+        shard->record(shard->values + i * shard->width, out);
+    }
+    fclose(out);
+    return NULL;
+}
+
+/* While the workers run a block, the main thread reads the next one. */
+CL_UNUSED static unsigned long cl_run_threaded(cl_record_fn record, size_t width, int threads) {
+    double *blocks[2] = {
+        malloc(CL_BATCH_RECORDS * width * sizeof(double)),
+        malloc(CL_BATCH_RECORDS * width * sizeof(double))
+    };
+    struct cl_shard *shards = calloc((size_t) threads, sizeof *shards);
+    pthread_t *workers = calloc((size_t) threads, sizeof *workers);
+    if (!blocks[0] || !blocks[1] || !shards || !workers) {
+        fprintf(stderr, "Error: Out of memory.\n");
+        exit(1);
+    }
+    unsigned long total = 0;
+    int current = 0;
+    size_t count = cl_read_records(blocks[0], width, CL_BATCH_RECORDS);
+    while (count > 0) {
+        size_t per_thread = (count + (size_t) threads - 1) / (size_t) threads;
+        int started = 0;
+        for (int t = 0; t < threads && (size_t) t * per_thread < count; t++) {
+            size_t first = (size_t) t * per_thread;
+            shards[t].record = record;
+            shards[t].values = blocks[current] + first * width;
+            shards[t].count = count - first < per_thread ? count - first : per_thread;
+            shards[t].width = width;
+            if (pthread_create(&workers[t], NULL, cl_run_shard, &shards[t]) != 0) {
+                fprintf(stderr, "Error: Cannot start thread.\n");
+                exit(1);
+            }
+            started++;
+        }
+        size_t next = cl_read_records(blocks[!current], width, CL_BATCH_RECORDS);
+        for (int t = 0; t < started; t++) {
+            pthread_join(workers[t], NULL);
+            fwrite(shards[t].output, 1, shards[t].length, stdout);
+            free(shards[t].output);
+        }
+        total += count;
+        count = next;
+        current = !current;
+    }
+    free(blocks[0]);
+    free(blocks[1]);
+    free(shards);
+    free(workers);
+    if (cl_read_failed) {
+        fflush(stdout);
+        cl_input_error();
+    }
+    return total;
+}
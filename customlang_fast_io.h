@@ -0,0 +1,204 @@
+/* CustomLang fast I/O runtime, emitted into programs compiled with --fast-io.
+ *
+ * READ goes through a large input buffer and a hand-rolled decimal parser,
+ * WRITE formats doubles without printf. Both produce exactly what
+ * scanf("%lf") and printf("%lf") would: numbers the fast paths cannot handle
+ * exactly (long mantissas, exponents, hex, inf/nan) are delegated to strtod
+ * and printf. */
+#include <stdint.h>
+#include <string.h>
+#include <unistd.h>
+
+#ifndef CL_UNUSED
+#define CL_UNUSED __attribute__((unused))
+#endif
+
+#define CL_IN_SIZE (1 << 20)
+#define CL_TOKEN_MAX 512
+
+static char cl_in[CL_IN_SIZE];
+static size_t cl_in_pos, cl_in_len;
+static int cl_in_eof;
+
+static void cl_input_error(void) {
+    fprintf(stderr, "Error: Invalid input. Expected a decimal number.\n");
+    exit(1);
+}
+
+static int cl_is_space(char c) {
+    return c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\v' || c == '\f';
+}
+
+/* Keeps the unread bytes and appends what one read() returns. Unlike fread(),
+ * read() returns as soon as a line is available, so interactive programs
+ * still see their prompts answered. */
+static void cl_fill(void) {
+    fflush(stdout);
+    memmove(cl_in, cl_in + cl_in_pos, cl_in_len - cl_in_pos);
+    cl_in_len -= cl_in_pos;
+    cl_in_pos = 0;
+    ssize_t n = read(0, cl_in + cl_in_len, CL_IN_SIZE - cl_in_len);
+    if (n <= 0) {
+        cl_in_eof = 1;
+    } else {
+        cl_in_len += (size_t) n;
+    }
+}
+
+/* Parses the next number into *value; returns 0 on invalid input or end of input. */
+static int cl_try_read_double(double *value) {
+    size_t stop;
+    for (;;) {
+        while (cl_in_pos < cl_in_len && cl_is_space(cl_in[cl_in_pos])) {
+            cl_in_pos++;
+        }
+        if (cl_in_pos < cl_in_len) {
+            /* Only parse once the whole token is buffered. */
+            stop = cl_in_pos;
+            while (stop < cl_in_len && !cl_is_space(cl_in[stop])) {
+                stop++;
+            }
+            if (stop < cl_in_len || cl_in_eof || stop - cl_in_pos >= CL_TOKEN_MAX - 1) {
+                break;
+            }
+        } else if (cl_in_eof) {
+            return 0;
+        }
+        cl_fill();
+    }
+
+    static const double powers[] = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    const char *start = cl_in + cl_in_pos;
+    const char *end = cl_in + stop;
+    const char *p = start;
+    int negative = 0;
+    if (p < end && (*p == '-' || *p == '+')) {
+        negative = *p++ == '-';
+    }
+    uint64_t mantissa = 0;
+    int digits = 0;
+    int fraction = 0;
+    while (p < end && *p >= '0' && *p <= '9') {
+        mantissa = mantissa * 10 + (uint64_t) (*p++ - '0');
+        digits++;
+    }
+    if (p < end && *p == '.') {
+        p++;
+        while (p < end && *p >= '0' && *p <= '9') {
+            mantissa = mantissa * 10 + (uint64_t) (*p++ - '0');
+            digits++;
+            fraction++;
+        }
+    }
+    /* Both operands are exact, so one division rounds correctly (Clinger's fast path). */
+    if (digits > 0 && digits <= 19 && mantissa <= (UINT64_C(1) << 53) && fraction <= 22
+            && (p == end || !(*p == 'e' || *p == 'E' || *p == 'x' || *p == 'X'))) {
+        cl_in_pos = (size_t) (p - cl_in);
+        *value = (double) mantissa / powers[fraction];
+        if (negative) {
+            *value = -*value;
+        }
+        return 1;
+    }
+
+    char token[CL_TOKEN_MAX];
+    size_t length = 0;
+    while (start + length < end && length < CL_TOKEN_MAX - 1 && !cl_is_space(start[length])) {
+        token[length] = start[length];
+        length++;
+    }
+    token[length] = '\0';
+    char *parsed;
+    *value = strtod(token, &parsed);
+    if (parsed == token) {
+        return 0;
+    }
+    cl_in_pos += (size_t) (parsed - token);
+    return 1;
+}
+
+CL_UNUSED static double cl_read_double(void) {
+    double value;
+    if (!cl_try_read_double(&value)) {
+        cl_input_error();
+    }
+    return value;
+}
+
+/* Skips whitespace and reports whether the input is exhausted. */
+CL_UNUSED static int cl_at_eof(void) {
+    for (;;) {
+        while (cl_in_pos < cl_in_len && cl_is_space(cl_in[cl_in_pos])) {
+            cl_in_pos++;
+        }
+        if (cl_in_pos < cl_in_len) {
+            return 0;
+        }
+        if (cl_in_eof) {
+            return 1;
+        }
+        cl_fill();
+    }
+}
+
+/* Prints value like fprintf(out, "%lf\n", value). The fraction is rounded to
+ * six digits from its exact binary value, half to even, as glibc does. */
+static void cl_fprint_double(FILE *out, double value) {
+#ifdef __SIZEOF_INT128__
+    if (value > -9007199254740992.0 && value < 9007199254740992.0) {
+        uint64_t bits;
+        memcpy(&bits, &value, sizeof bits);
+        double magnitude = bits >> 63 ? -value : value;
+        uint64_t integer = (uint64_t) magnitude;
+        double fraction = magnitude - (double) integer;
+        uint64_t micros = 0;
+        if (fraction != 0) {
+            memcpy(&bits, &fraction, sizeof bits);
+            int exponent = (int) (bits >> 52 & 0x7ff);
+            uint64_t significand = (bits & ((UINT64_C(1) << 52) - 1)) | (UINT64_C(1) << 52);
+            int shift = 1075 - exponent;
+            /* Below 2^-21 the fraction rounds to 0 at six digits. */
+            if (exponent != 0 && shift < 74) {
+                unsigned __int128 scaled = (unsigned __int128) significand * 1000000u;
+                unsigned __int128 half = (unsigned __int128) 1 << (shift - 1);
+                unsigned __int128 remainder = scaled & ((half << 1) - 1);
+                micros = (uint64_t) (scaled >> shift);
+                if (remainder > half || (remainder == half && (micros & 1))) {
+                    micros++;
+                }
+            }
+        }
+        if (micros == 1000000) {
+            micros = 0;
+            integer++;
+        }
+
+        char buffer[40];
+        char *p = buffer + sizeof buffer;
+        *--p = '\n';
+        for (int i = 0; i < 6; i++) {
+            *--p = (char) ('0' + micros % 10);
+            micros /= 10;
+        }
+        *--p = '.';
+        do {
+            *--p = (char) ('0' + integer % 10);
+            integer /= 10;
+        } while (integer != 0);
+        memcpy(&bits, &value, sizeof bits);
+        if (bits >> 63) {
+            *--p = '-';
+        }
+        fwrite(p, 1, (size_t) (buffer + sizeof buffer - p), out);
+        return;
+    }
+#endif
+    fprintf(out, "%lf\n", value);
+}
+
+CL_UNUSED static void cl_print_double(double value) {
+    cl_fprint_double(stdout, value);
+}
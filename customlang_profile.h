@@ -0,0 +1,163 @@
+/* CustomLang profiling runtime, emitted into programs compiled with --profile.
+ *
+ * Every statement that runs code is a site. Statements that always run
+ * together form a run, which counts how often it is entered, so a site's
+ * hit count costs nothing per statement. A timed statement reads the clock
+ * once, when it ends, and is charged the ticks since the previous reading,
+ * less the cost of a reading. Ticks are rdtsc cycles on x86-64 and
+ * nanoseconds elsewhere; they are converted to nanoseconds against
+ * CLOCK_MONOTONIC over the whole run.
+ *
+ * Reading the clock costs about as much as a simple statement, so in batch
+ * mode only one record in $CUSTOMLANG_PROFILE_EVERY (default 64) is timed
+ * and a statement's total time is estimated from its time per timed hit.
+ * At exit the sites are written, hottest first, to the file named by
+ * $CUSTOMLANG_PROFILE, or to customlang.prof. The generated program defines
+ * CL_PROFILE_SITES, CL_PROFILE_RUNS and CL_PROFILE_SOURCE and fills in
+ * cl_profile_lines. */
+#include <time.h>
+
+#ifndef CL_UNUSED
+#define CL_UNUSED __attribute__((unused))
+#endif
+
+#define CL_PROFILE_EVERY 64
+
+struct cl_profile_site {
+    unsigned long long timed;
+    unsigned long long ticks;
+};
+
+struct cl_profile_line {
+    int line;
+    int run;
+    const char *text;
+};
+
+static const struct cl_profile_line cl_profile_lines[CL_PROFILE_SITES];
+static struct cl_profile_site cl_profile_sites[CL_PROFILE_SITES];
+static unsigned long long cl_profile_runs[CL_PROFILE_RUNS];
+static unsigned long long cl_profile_last;
+static unsigned long long cl_profile_overhead;
+static int cl_profile_timing = 1;
+static unsigned long cl_profile_every = 1;
+static unsigned long cl_profile_countdown = 1;
+static unsigned long long cl_profile_started_ticks;
+static double cl_profile_started_ns;
+
+static inline unsigned long long cl_profile_ticks(void) {
+#if defined(__x86_64__) || defined(__i386__)
+    return __builtin_ia32_rdtsc();
+#else
+    struct timespec now;
+    clock_gettime(CLOCK_MONOTONIC, &now);
+    return (unsigned long long) now.tv_sec * 1000000000ull + (unsigned long long) now.tv_nsec;
+#endif
+}
+
+static double cl_profile_ns(void) {
+    struct timespec now;
+    clock_gettime(CLOCK_MONOTONIC, &now);
+    return (double) now.tv_sec * 1e9 + (double) now.tv_nsec;
+}
+
+static inline void cl_profile_enter(int run) {
+    cl_profile_runs[run]++;
+}
+
+static inline void cl_profile_tick(int site) {
+    if (cl_profile_timing) {
+        unsigned long long now = cl_profile_ticks();
+        cl_profile_sites[site].timed++;
+        cl_profile_sites[site].ticks += now - cl_profile_last;
+        cl_profile_last = now;
+    }
+}
+
+/* Called before every record in batch mode: decides whether the record is
+ * timed and, if so, restarts the clock, so that waiting for the record is
+ * not charged to its first statement. */
+CL_UNUSED static inline void cl_profile_record(void) {
+    cl_profile_timing = --cl_profile_countdown == 0;
+    if (cl_profile_timing) {
+        cl_profile_countdown = cl_profile_every;
+        cl_profile_last = cl_profile_ticks();
+    }
+}
+
+/* Estimated ticks of a site over all its hits. */
+static double cl_profile_total(int site) {
+    const struct cl_profile_site *s = &cl_profile_sites[site];
+    if (s->timed == 0) {
+        return 0.0;
+    }
+    double per_hit = (double) s->ticks / (double) s->timed - (double) cl_profile_overhead;
+    return (per_hit > 0 ? per_hit : 0.0) * (double) cl_profile_runs[cl_profile_lines[site].run];
+}
+
+static int cl_profile_hotter(const void *a, const void *b) {
+    double x = cl_profile_total(*(const int *) a);
+    double y = cl_profile_total(*(const int *) b);
+    return x < y ? 1 : x > y ? -1 : *(const int *) a - *(const int *) b;
+}
+
+static void cl_profile_report(void) {
+    double ns = cl_profile_ns() - cl_profile_started_ns;
+    unsigned long long ticks = cl_profile_ticks() - cl_profile_started_ticks;
+    double ns_per_tick = ticks > 0 ? ns / (double) ticks : 1.0;
+    const char *path = getenv("CUSTOMLANG_PROFILE");
+    FILE *report = fopen(path && *path ? path : "customlang.prof", "w");
+    if (!report) {
+        perror(path && *path ? path : "customlang.prof");
+        return;
+    }
+    int *order = malloc(CL_PROFILE_SITES * sizeof *order);
+    if (!order) {
+        fclose(report);
+        return;
+    }
+    double total = 0;
+    for (int i = 0; i < CL_PROFILE_SITES; i++) {
+        order[i] = i;
+        total += cl_profile_total(i);
+    }
+    qsort(order, CL_PROFILE_SITES, sizeof order[0], cl_profile_hotter);
+    fprintf(report, "# %s: about %.3f ms in %d statements, %.3f ms total, 1 in %lu runs timed\n",
+            CL_PROFILE_SOURCE, total * ns_per_tick / 1e6, CL_PROFILE_SITES, ns / 1e6, cl_profile_every);
+    fprintf(report, "# %6s %14s %14s %10s  %s\n", "time%", "ns", "hits", "ns/hit", "line: statement");
+    for (int i = 0; i < CL_PROFILE_SITES; i++) {
+        int site = order[i];
+        unsigned long long hits = cl_profile_runs[cl_profile_lines[site].run];
+        double site_ns = cl_profile_total(site) * ns_per_tick;
+        fprintf(report, "%8.2f %14.0f %14llu %10.1f  %s:%d: %s\n",
+                total > 0 ? 100.0 * cl_profile_total(site) / total : 0.0, site_ns, hits,
+                hits > 0 ? site_ns / (double) hits : 0.0,
+                CL_PROFILE_SOURCE, cl_profile_lines[site].line, cl_profile_lines[site].text);
+    }
+    free(order);
+    fclose(report);
+}
+
+/* Starts profiling; a program that runs its statements once per record
+ * times 1 in $CUSTOMLANG_PROFILE_EVERY records. */
+static void cl_profile_start(int records) {
+    const char *every = getenv("CUSTOMLANG_PROFILE_EVERY");
+    if (records) {
+        cl_profile_every = every && atol(every) > 0 ? (unsigned long) atol(every) : CL_PROFILE_EVERY;
+        cl_profile_countdown = 1;
+    }
+    /* The cheapest of many back-to-back readings is what a reading adds to
+     * the statement it ends. */
+    cl_profile_overhead = ~0ull;
+    for (int i = 0; i < 1000; i++) {
+        unsigned long long start = cl_profile_ticks();
+        unsigned long long cost = cl_profile_ticks() - start;
+        if (cost < cl_profile_overhead) {
+            cl_profile_overhead = cost;
+        }
+    }
+    cl_profile_started_ns = cl_profile_ns();
+    cl_profile_started_ticks = cl_profile_ticks();
+    cl_profile_last = cl_profile_started_ticks;
+    atexit(cl_profile_report);
+}
@@ -0,0 +1,46 @@
+#!/bin/sh
+# Builds a distribution of the compiler that starts fast, into OUT (dist/out):
+#   customlang.jar   the compiler classes and the C runtimes
+#   antlr.jar        the ANTLR runtime
+#   customlang.jsa   an AppCDS archive of the classes a compile loads,
+#                    recorded while compiling dist/training.customlang
+#   customlangc      the launcher, which maps the archive instead of loading
+#                    and verifying the classes one by one
+# If native-image (GraalVM) is on the PATH, also customlangc-native, built
+# with the configuration in dist/native-image.
+# The ANTLR runtime is $ANTLR_JAR, or the antlr jar on $CLASSPATH.
+#   dist/build.sh [OUT]
+set -e
+DIST=$(cd "$(dirname "$0")" && pwd)
+ROOT=$(dirname "$DIST")
+OUT=${1:-$DIST/out}
+if [ -z "$ANTLR_JAR" ]; then
+    ANTLR_JAR=$(echo "${CLASSPATH:-}" | tr ':' '\n' | grep 'antlr[^/]*\.jar$' | head -n 1)
+fi
+if [ ! -f "$ANTLR_JAR" ]; then
+    echo "Set ANTLR_JAR to the ANTLR runtime jar" >&2
+    exit 1
+fi
+
+rm -rf "$OUT"
+mkdir -p "$OUT/classes"
+javac -nowarn -cp "$ANTLR_JAR" -d "$OUT/classes" "$ROOT"/*.java "$ROOT"/customlang/*.java
+cp "$ROOT"/customlang_*.h "$OUT/classes"
+jar --create --file "$OUT/customlang.jar" -C "$OUT/classes" .
+rm -rf "$OUT/classes"
+cp "$ANTLR_JAR" "$OUT/antlr.jar"
+cp "$DIST/customlangc" "$OUT/customlangc"
+chmod +x "$OUT/customlangc"
+
+# CDS archives only classes loaded from jars, with the same class path at run time.
+TRAINING=$(mktemp -d)
+trap 'rm -rf "$TRAINING"' EXIT
+(cd "$TRAINING" && java -XX:ArchiveClassesAtExit="$OUT/customlang.jsa" \
+    -cp "$OUT/antlr.jar:$OUT/customlang.jar" Compiler "$DIST/training.customlang")
+
+if command -v native-image > /dev/null; then
+    native-image --no-fallback -H:ConfigurationFileDirectories="$DIST/native-image" \
+        -cp "$OUT/antlr.jar:$OUT/customlang.jar" Compiler "$OUT/customlangc-native"
+else
+    echo "native-image is not on the PATH; skipping customlangc-native" >&2
+fi
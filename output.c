@@ -1,24 +1,31 @@
 #include <stdio.h>
 #include <stdlib.h>
 
+static const char cl_str_0[] = "Digite o valor de A: ";
+static const char cl_str_1[] = "Digite o valor de b: ";
+static const char cl_str_2[] = "C está predefinido com valor: ";
+static const char cl_str_3[] = "Resultado: ";
+static const char cl_str_4[] = "a + b * c = ";
+
 int main() {
 double a;
 double b;
 double c = 2.0;
-printf("Digite o valor de A: ");
+fwrite(cl_str_0, 1, sizeof cl_str_0 - 1, stdout);
 if (scanf("%lf", &a) != 1) {
     fprintf(stderr, "Error: Invalid input. Expected a decimal number.\n");
     exit(1);
 }
-printf("Digite o valor de b: ");
+fwrite(cl_str_1, 1, sizeof cl_str_1 - 1, stdout);
 if (scanf("%lf", &b) != 1) {
     fprintf(stderr, "Error: Invalid input. Expected a decimal number.\n");
     exit(1);
 }
-printf("C está predefinido com valor: ""%lf\n", c);
+fwrite(cl_str_2, 1, sizeof cl_str_2 - 1, stdout);
+printf("%lf\n", c);
 double d = a + b * c;
-printf("Resultado: ");
-printf("");
-printf("a + b * c = ""%lf\n", d);
+fwrite(cl_str_3, 1, sizeof cl_str_3 - 1, stdout);
+fwrite(cl_str_4, 1, sizeof cl_str_4 - 1, stdout);
+printf("%lf\n", d);
 return 0;
 }
\ No newline at end of file